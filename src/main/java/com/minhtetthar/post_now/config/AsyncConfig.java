@@ -0,0 +1,165 @@
+package com.minhtetthar.post_now.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One bounded executor per workload, so a large email fan-out cannot delay
+ * like notifications and storage cleanup cannot starve either of them.
+ * Each executor publishes queue depth, active threads, task wait/run time
+ * and rejections to Micrometer, tagged with its name.
+ */
+@Configuration
+@RequiredArgsConstructor
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String NOTIFICATION_EXECUTOR = "notificationExecutor";
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String STORAGE_EXECUTOR = "storageExecutor";
+    public static final String UPLOAD_EXECUTOR = "uploadExecutor";
+    public static final String IMAGE_EXECUTOR = "imageExecutor";
+
+    private final AsyncExecutorProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Bean(name = NOTIFICATION_EXECUTOR)
+    public ThreadPoolTaskExecutor notificationExecutor() {
+        return createRelayExecutor("notification");
+    }
+
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        return createRelayExecutor("email");
+    }
+
+    @Bean(name = STORAGE_EXECUTOR)
+    public ThreadPoolTaskExecutor storageExecutor() {
+        return createExecutor("storage");
+    }
+
+    /**
+     * Streams upload bodies to storage so request threads are not held while
+     * bytes travel to R2.
+     */
+    @Bean(name = UPLOAD_EXECUTOR)
+    public ThreadPoolTaskExecutor uploadExecutor() {
+        return createExecutor("upload");
+    }
+
+    /**
+     * Decodes and resizes images. CPU bound, so keep it small.
+     */
+    @Bean(name = IMAGE_EXECUTOR)
+    public ThreadPoolTaskExecutor imageExecutor() {
+        return createRelayExecutor("image");
+    }
+
+    /**
+     * Plain @Async methods run on the notification executor instead of
+     * Spring's unbounded default.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return notificationExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Uncaught exception in async method {}", method.getName(), ex);
+    }
+
+    /**
+     * OutboxRelay hands claimed events back when their executor throws
+     * RejectedExecutionException. A discarded task would sit claimed until its
+     * lease expires, and caller-runs would run handlers on the relay's
+     * scheduler thread, so these executors only accept abort.
+     */
+    private ThreadPoolTaskExecutor createRelayExecutor(String name) {
+        AsyncExecutorProperties.RejectionPolicy policy = properties.get(name).getRejectionPolicy();
+        if (policy != AsyncExecutorProperties.RejectionPolicy.ABORT) {
+            throw new IllegalStateException("async.executors." + name + ".rejection-policy must be abort, "
+                    + "the outbox relay dispatches to it (was " + policy + ")");
+        }
+        return createExecutor(name);
+    }
+
+    private ThreadPoolTaskExecutor createExecutor(String name) {
+        AsyncExecutorProperties.Pool pool = properties.get(name);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(Math.max(pool.getCoreSize(), pool.getMaxSize()));
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        executor.setKeepAliveSeconds((int) pool.getKeepAlive().toSeconds());
+        executor.setRejectedExecutionHandler(countingRejections(name, rejectionHandler(pool.getRejectionPolicy())));
+        executor.setTaskDecorator(timingDecorator(name));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        if (pool.isVirtualThreads()) {
+            executor.setThreadFactory(Thread.ofVirtual().name(name + "-vt-", 0).factory());
+        }
+        executor.initialize();
+
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), name, Tags.empty()).bindTo(meterRegistry);
+        log.info("Initialized {} executor: core={}, max={}, queue={}, rejection={}, virtualThreads={}",
+                name, pool.getCoreSize(), pool.getMaxSize(), pool.getQueueCapacity(),
+                pool.getRejectionPolicy(), pool.isVirtualThreads());
+        return executor;
+    }
+
+    private RejectedExecutionHandler rejectionHandler(AsyncExecutorProperties.RejectionPolicy policy) {
+        return switch (policy) {
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+            case DISCARD_OLDEST -> new ThreadPoolExecutor.DiscardOldestPolicy();
+        };
+    }
+
+    private RejectedExecutionHandler countingRejections(String name, RejectedExecutionHandler delegate) {
+        Counter rejected = meterRegistry.counter("executor.rejected", "name", name);
+        return (task, executor) -> {
+            rejected.increment();
+            log.warn("Task rejected by {} executor (queue size {})", name, executor.getQueue().size());
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
+    /**
+     * Records how long tasks wait in the queue and how long they run.
+     */
+    private TaskDecorator timingDecorator(String name) {
+        Timer waitTimer = meterRegistry.timer("executor.task.wait", "name", name);
+        Timer runTimer = meterRegistry.timer("executor.task.run", "name", name);
+        return task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                long startedAt = System.nanoTime();
+                waitTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    runTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            };
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sizing of the per-workload executors (prefix: async.executors.&lt;name&gt;)
+ */
+@Component
+@ConfigurationProperties(prefix = "async")
+@Getter
+@Setter
+public class AsyncExecutorProperties {
+
+    private Map<String, Pool> executors = new HashMap<>();
+
+    public Pool get(String name) {
+        return executors.getOrDefault(name, new Pool());
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        private int coreSize = 2;
+
+        private int maxSize = 4;
+
+        /**
+         * Tasks waiting for a thread. Once full (and max-size threads are busy)
+         * the rejection policy applies.
+         */
+        private int queueCapacity = 100;
+
+        private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
+        /**
+         * Run tasks on virtual threads. max-size still caps how many run at once.
+         */
+        private boolean virtualThreads = false;
+
+        private Duration keepAlive = Duration.ofSeconds(60);
+    }
+
+    public enum RejectionPolicy {
+        ABORT, // Throw RejectedExecutionException to the submitter
+        CALLER_RUNS, // Run the task on the submitting thread (back-pressure)
+        DISCARD, // Drop the task
+        DISCARD_OLDEST // Drop the oldest queued task
+    }
+}
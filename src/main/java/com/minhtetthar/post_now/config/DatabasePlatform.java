@@ -0,0 +1,43 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Detects the database product behind the data source so services can switch
+ * to Postgres-specific SQL while H2 (development) keeps using portable queries.
+ */
+@Component
+@Slf4j
+public class DatabasePlatform {
+
+    private final String productName;
+
+    public DatabasePlatform(DataSource dataSource) {
+        String name;
+        try (Connection connection = dataSource.getConnection()) {
+            name = connection.getMetaData().getDatabaseProductName();
+        } catch (SQLException e) {
+            log.warn("Could not detect database product, assuming a generic database", e);
+            name = "unknown";
+        }
+        this.productName = name;
+        log.info("Detected database platform: {}", productName);
+    }
+
+    public boolean isPostgres() {
+        return "PostgreSQL".equalsIgnoreCase(productName);
+    }
+
+    public boolean isH2() {
+        return "H2".equalsIgnoreCase(productName);
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+}
@@ -0,0 +1,41 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for EmailDeliveryEngine (prefix: email.delivery)
+ */
+@Component
+@ConfigurationProperties(prefix = "email.delivery")
+@Getter
+@Setter
+public class EmailDeliveryProperties {
+
+    /**
+     * Provider requests in flight at the same time.
+     */
+    private int maxConcurrency = 4;
+
+    /**
+     * Global limit of provider requests per second, shared by all senders.
+     */
+    private int requestsPerSecond = 2;
+
+    private int maxAttempts = 4;
+
+    private Duration initialBackoff = Duration.ofSeconds(1);
+
+    private Duration maxBackoff = Duration.ofSeconds(30);
+
+    /**
+     * Store one email_deliveries row per recipient. A retried new post event
+     * uses these rows to skip followers already emailed; without them the
+     * retry emails every immediate follower again.
+     */
+    private boolean recordOutcomes = true;
+}
@@ -0,0 +1,28 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for digest emails (prefix: email.digest)
+ */
+@Component
+@ConfigurationProperties(prefix = "email.digest")
+@Getter
+@Setter
+public class EmailDigestProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Recipients loaded and sent per round.
+     */
+    private int recipientsPerBatch = 200;
+
+    /**
+     * Posts listed in one digest; the rest are summarized as a count.
+     */
+    private int maxPostsPerDigest = 10;
+}
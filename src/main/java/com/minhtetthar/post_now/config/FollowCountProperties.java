@@ -0,0 +1,26 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reconciliation of the follower/following counts on users (prefix: follow.counts)
+ */
+@Component
+@ConfigurationProperties(prefix = "follow.counts")
+@Getter
+@Setter
+public class FollowCountProperties {
+
+    /**
+     * Recount follows on schedule (follow.counts.cron) and correct drifted counts.
+     */
+    private boolean reconcileEnabled = true;
+
+    /**
+     * Users recounted per statement; keeps each update transaction short.
+     */
+    private int batchSize = 1000;
+}
@@ -0,0 +1,51 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the in-memory follow graph (prefix: follow.graph)
+ */
+@Component
+@ConfigurationProperties(prefix = "follow.graph")
+@Getter
+@Setter
+public class FollowGraphProperties {
+
+    /**
+     * Answer follow checks from memory; off means a query per check.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Full reload from the database, in milliseconds. Repairs anything the
+     * catch-up missed, and purges the change log.
+     */
+    private long reloadInterval = 3600000;
+
+    /**
+     * How often follows and unfollows made through other instances are read
+     * from the change log, in milliseconds.
+     */
+    private long syncInterval = 5000;
+
+    /**
+     * How far before the last seen change each catch-up starts reading
+     * again, in milliseconds. Covers clock skew between instances and
+     * transactions that commit after later ones.
+     */
+    private long syncOverlap = 60000;
+
+    /**
+     * Change log entries older than this are deleted, in milliseconds. Must
+     * be well over reload-interval.
+     */
+    private long changeRetention = 86400000;
+
+    /**
+     * Follow rows read per query while loading.
+     */
+    private int loadBatchSize = 10000;
+}
@@ -0,0 +1,65 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for friends-of-friends follow suggestions (prefix: follow.suggestions)
+ */
+@Component
+@ConfigurationProperties(prefix = "follow.suggestions")
+@Getter
+@Setter
+public class FollowSuggestionProperties {
+
+    /**
+     * Serve suggestions from the in-memory follow graph; off returns none.
+     */
+    private boolean enabled = true;
+
+    private int defaultLimit = 20;
+
+    private int maxLimit = 50;
+
+    /**
+     * Ranked candidates kept per user, so follows and dismissals made from
+     * the list do not force a recomputation.
+     */
+    private int cacheDepth = 100;
+
+    /**
+     * Users whose suggestions are cached.
+     */
+    private long cacheMaxUsers = 10000;
+
+    /**
+     * How long a computed list is served, in milliseconds. Follows by people
+     * the user follows adjust cached lists in place meanwhile.
+     */
+    private long cacheTtl = 600000;
+
+    /**
+     * Followed accounts visited per computation. Users following more are
+     * sampled evenly.
+     */
+    private int maxFollowingScanned = 1000;
+
+    /**
+     * Second-hop follows visited per computation, spread evenly over the
+     * followed accounts. This bounds the work for every user.
+     */
+    private int maxEdgesScanned = 200000;
+
+    /**
+     * Computations visiting more follows than this are split across the
+     * fork-join pool; smaller ones run on the request thread.
+     */
+    private int parallelThreshold = 20000;
+
+    /**
+     * Fork-join pool size; 0 uses the number of processors.
+     */
+    private int parallelism = 0;
+}
@@ -0,0 +1,76 @@
+package com.minhtetthar.post_now.config;
+
+import com.minhtetthar.post_now.entity.Notification;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Retention settings for the notifications table (prefix: notifications.retention)
+ */
+@Component
+@ConfigurationProperties(prefix = "notifications.retention")
+@Getter
+@Setter
+public class NotificationRetentionProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Maximum age per notification type. Types without an entry are never purged.
+     */
+    private Map<Notification.NotificationType, Duration> maxAge = new EnumMap<>(Notification.NotificationType.class);
+
+    /**
+     * Rows deleted per statement; keeps each delete transaction short.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Sleep between batches so the purge does not compete with user traffic.
+     */
+    private Duration pauseBetweenBatches = Duration.ofMillis(200);
+
+    /**
+     * Upper bound of batches per type in a single run.
+     */
+    private int maxBatchesPerRun = 500;
+
+    private Partitioning partitioning = new Partitioning();
+
+    @Getter
+    @Setter
+    public static class Partitioning {
+
+        /**
+         * Maintain monthly range partitions (Postgres only, requires the
+         * notifications table to be converted with db/postgres/notifications-partitioning.sql).
+         */
+        private boolean enabled = false;
+
+        /**
+         * How many future monthly partitions to keep created ahead of time.
+         */
+        private int monthsAhead = 2;
+    }
+
+    /**
+     * Age after which every notification type has expired, so whole partitions
+     * older than this can be dropped. Null while any type has no max age,
+     * since those rows are kept forever.
+     */
+    public Duration partitionDropAge() {
+        if (!maxAge.keySet().containsAll(EnumSet.allOf(Notification.NotificationType.class))) {
+            return null;
+        }
+        return maxAge.values().stream()
+                .max(Duration::compareTo)
+                .orElse(null);
+    }
+}
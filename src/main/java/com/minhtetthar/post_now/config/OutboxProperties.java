@@ -0,0 +1,50 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for the outbox relay (prefix: outbox.relay)
+ */
+@Component
+@ConfigurationProperties(prefix = "outbox.relay")
+@Getter
+@Setter
+public class OutboxProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Maximum events claimed per poll. Handlers run on the notification and
+     * email executors (async.executors.*), which bound the work in flight.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Delay between polls, in milliseconds.
+     */
+    private long pollInterval = 1000;
+
+    /**
+     * How long a claimed event stays invisible to other relays.
+     */
+    private Duration lease = Duration.ofMinutes(5);
+
+    private int maxAttempts = 10;
+
+    /**
+     * Base delay for exponential retry backoff.
+     */
+    private Duration retryBackoff = Duration.ofSeconds(5);
+
+    private Duration maxRetryBackoff = Duration.ofHours(1);
+
+    /**
+     * Processed events older than this are deleted.
+     */
+    private Duration cleanupAfter = Duration.ofDays(7);
+}
@@ -3,16 +3,24 @@ package com.minhtetthar.post_now.config;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 import java.net.URI;
 
+/**
+ * S3 clients for Cloudflare R2. Only loaded with the r2 storage backend, so
+ * the application starts without R2 credentials when storing locally.
+ */
 @Configuration
+@ConditionalOnProperty(name = "storage.backend", havingValue = "r2", matchIfMissing = true)
 @Slf4j
 public class R2Config {
 
@@ -36,7 +44,48 @@ public class R2Config {
         log.info("Initializing S3Client with endpoint: {}", endpoint);
         log.info("Bucket name: {}", bucketName);
         log.info("Public URL: {}", publicUrl);
+        validate();
 
+        return S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentialsProvider())
+                .region(Region.US_EAST_1) // R2 doesn't use regions, but SDK requires one
+                .build();
+    }
+
+    /**
+     * Non-blocking client for uploads; request bodies are streamed over Netty.
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient() {
+        validate();
+
+        return S3AsyncClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentialsProvider())
+                .region(Region.US_EAST_1)
+                .build();
+    }
+
+    /**
+     * Signs short-lived URLs that let clients upload directly to the bucket.
+     */
+    @Bean
+    public S3Presigner s3Presigner() {
+        validate();
+
+        return S3Presigner.builder()
+                .endpointOverride(URI.create(endpoint))
+                .credentialsProvider(credentialsProvider())
+                .region(Region.US_EAST_1)
+                .build();
+    }
+
+    private StaticCredentialsProvider credentialsProvider() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+    }
+
+    private void validate() {
         if (accessKey == null || accessKey.isEmpty()) {
             throw new IllegalArgumentException("R2 access key is not configured");
         }
@@ -52,14 +101,6 @@ public class R2Config {
         if (publicUrl == null || publicUrl.isEmpty()) {
             throw new IllegalArgumentException("R2 public URL is not configured");
         }
-
-        AwsBasicCredentials credentials = AwsBasicCredentials.create(accessKey, secretKey);
-
-        return S3Client.builder()
-                .endpointOverride(URI.create(endpoint))
-                .credentialsProvider(StaticCredentialsProvider.create(credentials))
-                .region(Region.US_EAST_1) // R2 doesn't use regions, but SDK requires one
-                .build();
     }
 
     public String getBucketName() {
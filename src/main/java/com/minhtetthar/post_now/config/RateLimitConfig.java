@@ -29,10 +29,12 @@ public class RateLimitConfig {
     public CacheManager cacheManager() {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager(
                 "rate-limit-buckets",  // Rate limiting cache with 1 hour TTL
-                "users",               // User cache with 15 min TTL
+                "users",               // Users by username with 15 min TTL
+                "usersById",           // User profiles by id with 15 min TTL
                 "posts",               // Posts cache with 15 min TTL
                 "postStats",           // Post stats cache with 15 min TTL
-                "relationships"        // Relationships cache with 15 min TTL
+                "relationships",       // Relationships cache with 15 min TTL
+                "userIds"              // Username to id, for follow graph lookups
         );
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .expireAfterAccess(1, TimeUnit.HOURS)
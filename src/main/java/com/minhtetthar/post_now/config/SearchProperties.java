@@ -0,0 +1,174 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Search settings (prefix: search)
+ */
+@Component
+@ConfigurationProperties(prefix = "search")
+@Getter
+@Setter
+public class SearchProperties {
+
+    private Posts posts = new Posts();
+
+    private Autocomplete autocomplete = new Autocomplete();
+
+    private Users users = new Users();
+
+    @Getter
+    @Setter
+    public static class Posts {
+
+        /**
+         * Use the tsvector column and its GIN index on Postgres. Other databases
+         * always use the LIKE query.
+         */
+        private boolean fullTextEnabled = true;
+
+        /**
+         * Build the GIN index at startup if missing (db/postgres/posts-search.sql),
+         * once the tsvector column has been added by the one-off
+         * db/postgres/posts-search-migration.sql. Turn off where the schema is
+         * migrated by hand.
+         */
+        private boolean initializeSchema = true;
+
+        private Index index = new Index();
+    }
+
+    @Getter
+    @Setter
+    public static class Index {
+
+        /**
+         * Serve post search from the embedded Lucene index instead of the database.
+         */
+        private boolean enabled = true;
+
+        private String directory = "search-index";
+
+        /**
+         * Upper bound for a saved post to show up in search results, in milliseconds.
+         */
+        private long refreshInterval = 1000;
+
+        /**
+         * How often pending changes are made durable on disk, in milliseconds.
+         * Changes lost in a crash are restored by the rebuild at startup.
+         */
+        private long commitInterval = 30000;
+
+        /**
+         * Posts read per query while rebuilding or catching up the index.
+         */
+        private int rebuildBatchSize = 500;
+
+        /**
+         * How often posts changed through other instances are read into the
+         * index, in milliseconds.
+         */
+        private long syncInterval = 60000;
+
+        /**
+         * How far before the last seen change each catch-up starts reading
+         * again, in milliseconds. Covers clock skew between instances and
+         * transactions that commit after later ones.
+         */
+        private long syncOverlap = 60000;
+
+        /**
+         * Deepest result reachable through paging.
+         */
+        private int maxResults = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Autocomplete {
+
+        /**
+         * Answer user autocomplete from memory; off means a LIKE query per request.
+         */
+        private boolean enabled = true;
+
+        private int defaultLimit = 10;
+
+        private int maxLimit = 20;
+
+        /**
+         * Prefixes matching more index terms than this get their best users
+         * precomputed instead of being scanned per request.
+         */
+        private int scanLimit = 256;
+
+        /**
+         * Full rebuild from the database, in milliseconds. Refreshes follower
+         * counts and folds in the changes applied since the last rebuild.
+         */
+        private long rebuildInterval = 600000;
+
+        /**
+         * Changed users kept beside the index before a rebuild is started early.
+         */
+        private int maxPendingChanges = 10000;
+
+        private int rebuildBatchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Users {
+
+        /**
+         * Use the pg_trgm GIN index on Postgres. Elsewhere the in-memory
+         * trigram index below is used, or LIKE when it is disabled.
+         */
+        private boolean fuzzyEnabled = true;
+
+        /**
+         * Create the pg_trgm extension and index at startup if missing
+         * (db/postgres/users-trigram.sql). Creating the extension needs a
+         * privileged role; turn off where the schema is migrated by hand.
+         */
+        private boolean initializeSchema = true;
+
+        private TrigramIndex index = new TrigramIndex();
+    }
+
+    @Getter
+    @Setter
+    public static class TrigramIndex {
+
+        /**
+         * Keep an in-memory trigram index of users on databases without pg_trgm.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Share of the search term's trigrams a name must contain, from 0 to 1.
+         */
+        private double minSimilarity = 0.5;
+
+        /**
+         * Full rebuild from the database, in milliseconds.
+         */
+        private long rebuildInterval = 600000;
+
+        /**
+         * Changed users kept beside the index before a rebuild is started early.
+         */
+        private int maxPendingChanges = 10000;
+
+        private int rebuildBatchSize = 1000;
+
+        /**
+         * Deepest result reachable through paging.
+         */
+        private int maxResults = 1000;
+    }
+}
@@ -1,6 +1,7 @@
 package com.minhtetthar.post_now.config;
 
 import com.minhtetthar.post_now.service.UserService;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,8 +41,10 @@ public class SecurityConfig {
                 .cors(cors -> cors.disable())
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatch only writes the result of a request that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**", "/api/health/**", "/h2-console/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/posts", "/api/posts/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/posts", "/api/posts/**", "/api/tags/**").permitAll()
                         .requestMatchers("/api/posts/**", "/api/comments/**", "/api/likes/**", "/api/users/**")
                         .authenticated()
                         .anyRequest().permitAll())
@@ -0,0 +1,154 @@
+package com.minhtetthar.post_now.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Image storage settings (prefix: storage)
+ */
+@Component
+@ConfigurationProperties(prefix = "storage")
+@Getter
+@Setter
+public class StorageProperties {
+
+    /**
+     * Where images are stored: "r2" (Cloudflare R2) or "local" (filesystem).
+     */
+    private String backend = "r2";
+
+    private Local local = new Local();
+
+    private Cache cache = new Cache();
+
+    private Upload upload = new Upload();
+
+    private Presign presign = new Presign();
+
+    private Variants variants = new Variants();
+
+    private Gc gc = new Gc();
+
+    @Getter
+    @Setter
+    public static class Upload {
+
+        /**
+         * Uploads streaming to storage at the same time.
+         */
+        private int maxConcurrent = 16;
+
+        /**
+         * How long an upload waits for a free slot before it is rejected.
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(2);
+
+        /**
+         * Secret that upload keys are derived from together with the content
+         * hash, so a key does not reveal the hash. Must be the same on every
+         * instance; when empty a random one is used until restart, and
+         * identical uploads are only deduplicated until then.
+         */
+        private String keySecret = "";
+    }
+
+    @Getter
+    @Setter
+    public static class Presign {
+
+        /**
+         * Lifetime of a presigned upload URL.
+         */
+        private Duration expiry = Duration.ofMinutes(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Variants {
+
+        /**
+         * Square avatar edge length for profile images.
+         */
+        private int avatarSize = 128;
+
+        /**
+         * Feed thumbnail width for post images.
+         */
+        private int thumbnailWidth = 480;
+
+        /**
+         * Detail view width for post images.
+         */
+        private int fullWidth = 1600;
+
+        private float jpegQuality = 0.85f;
+
+        /**
+         * Larger images are not decoded (decompression bomb guard).
+         */
+        private long maxSourcePixels = 50_000_000L;
+    }
+
+    @Getter
+    @Setter
+    public static class Local {
+
+        /**
+         * Directory holding the objects of the local backend.
+         */
+        private String root = "storage-data";
+
+        /**
+         * Base URL of the download endpoint serving the local files.
+         */
+        private String publicUrl = "http://localhost:8090/api/files";
+    }
+
+    @Getter
+    @Setter
+    public static class Cache {
+
+        /**
+         * Keep copies of remotely stored objects served by the download
+         * endpoint on local disk.
+         */
+        private boolean enabled = false;
+
+        private String directory = System.getProperty("java.io.tmpdir") + "/post-now-cache";
+
+        /**
+         * Least recently served files are removed beyond this size.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+    }
+
+    @Getter
+    @Setter
+    public static class Gc {
+
+        private boolean enabled = true;
+
+        /**
+         * Prefixes scanned for objects nothing refers to anymore.
+         */
+        private List<String> prefixes = List.of("posts/", "profiles/");
+
+        /**
+         * Objects younger than this are kept even if unreferenced: their upload
+         * or presigned PUT may not have been attached to a post or profile yet.
+         */
+        private Duration gracePeriod = Duration.ofHours(24);
+
+        /**
+         * Originals (with their variants) deleted per transaction and request.
+         */
+        private int batchSize = 200;
+    }
+}
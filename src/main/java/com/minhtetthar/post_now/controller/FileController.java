@@ -0,0 +1,96 @@
+package com.minhtetthar.post_now.controller;
+
+import com.minhtetthar.post_now.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Serves stored images: the local backend's files, or R2 objects through the
+ * disk cache. Files on disk go out with Tomcat's sendfile (zero-copy) when
+ * the connector supports it, otherwise via FileChannel.transferTo.
+ */
+@RestController
+@RequestMapping("/api/files")
+@RequiredArgsConstructor
+@Slf4j
+public class FileController {
+
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final FileStorageService fileStorageService;
+
+    @GetMapping("/{*key}")
+    public void download(@PathVariable String key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        String fileName = key.startsWith("/") ? key.substring(1) : key;
+        Path file;
+        try {
+            file = fileStorageService.resolveLocalFile(fileName);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType(FileStorageService.contentTypeOf(fileName));
+        // Keys never get new content: hashes, random names or derived variants
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+
+        if (file == null) {
+            streamFromBackend(fileName, response);
+            return;
+        }
+
+        long size = Files.size(file);
+        response.setContentLengthLong(size);
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = 0;
+            while (position < size) {
+                long sent = channel.transferTo(position, size - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private void streamFromBackend(String fileName, HttpServletResponse response) throws IOException {
+        try (InputStream content = fileStorageService.openObject(fileName)) {
+            if (content == null) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            content.transferTo(response.getOutputStream());
+        }
+    }
+}
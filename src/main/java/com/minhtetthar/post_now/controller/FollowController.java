@@ -1,10 +1,11 @@
 package com.minhtetthar.post_now.controller;
 
 import com.minhtetthar.post_now.dto.follow.FollowDto;
+import com.minhtetthar.post_now.dto.follow.FollowSuggestionDto;
+import com.minhtetthar.post_now.dto.follow.RelationshipDto;
 import com.minhtetthar.post_now.dto.user.UserSummaryDto;
-import com.minhtetthar.post_now.entity.User;
 import com.minhtetthar.post_now.service.FollowService;
-import com.minhtetthar.post_now.service.NotificationService;
+import com.minhtetthar.post_now.service.FollowSuggestionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -16,6 +17,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -25,7 +27,7 @@ import java.util.Map;
 public class FollowController {
 
     private final FollowService followService;
-    private final NotificationService notificationService;
+    private final FollowSuggestionService followSuggestionService;
 
     @PostMapping("/{username}/follow")
     public ResponseEntity<?> followUser(
@@ -35,21 +37,9 @@ public class FollowController {
             String followerUsername = auth.getName();
             log.info("Follow request: {} wants to follow {}", followerUsername, username);
 
-            log.debug("Step 1: Calling followService.followUser()");
+            // The follow notification is written to the outbox in the same transaction
             FollowDto follow = followService.followUser(followerUsername, username);
-            log.debug("Step 1 SUCCESS: Follow relationship created: {}", follow.getId());
-
-            log.debug("Step 2: Loading follower user: {}", followerUsername);
-            User follower = followService.getUser(followerUsername);
-            log.debug("Step 2 SUCCESS: Follower loaded - id: {}", follower.getId());
-
-            log.debug("Step 3: Loading following user: {}", username);
-            User following = followService.getUser(username);
-            log.debug("Step 3 SUCCESS: Following user loaded - id: {}", following.getId());
-
-            log.debug("Step 4: Creating follow notification");
-            notificationService.createNewFollowNotification(follower, following);
-            log.info("Step 4 SUCCESS: Follow notification created asynchronously");
+            log.debug("Follow relationship created: {}", follow.getId());
 
             return ResponseEntity.status(HttpStatus.CREATED).body(follow);
         } catch (IllegalArgumentException e) {
@@ -112,6 +102,35 @@ public class FollowController {
         }
     }
 
+    /**
+     * Follow buttons for a list of users in one call: /relationships?usernames=a,b,c
+     */
+    @GetMapping("/relationships")
+    public ResponseEntity<?> getRelationships(
+            @RequestParam List<String> usernames,
+            Authentication auth) {
+        try {
+            Map<String, RelationshipDto> relationships = followService.getRelationships(auth.getName(), usernames);
+            return ResponseEntity.ok(relationships);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        } catch (Exception e) {
+            log.error("Error in getRelationships endpoint", e);
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Failed to load relationships");
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+    }
+
+    @GetMapping("/me/suggestions")
+    public ResponseEntity<List<FollowSuggestionDto>> getSuggestions(
+            @RequestParam(required = false) Integer limit,
+            Authentication auth) {
+        return ResponseEntity.ok(followSuggestionService.getSuggestions(auth.getName(), limit));
+    }
+
     @GetMapping("/{username}/follow-stats")
     public ResponseEntity<Map<String, Object>> getFollowStats(
             @PathVariable String username,
@@ -1,8 +1,6 @@
 package com.minhtetthar.post_now.controller;
 
 import com.minhtetthar.post_now.service.LikeService;
-import com.minhtetthar.post_now.service.NotificationService;
-import com.minhtetthar.post_now.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,8 +14,6 @@ import java.util.Map;
 public class LikeController {
 
     private final LikeService likeService;
-    private final NotificationService notificationService;
-    private final UserService userService;
 
     @GetMapping("/post/{postId}/count")
     public ResponseEntity<Map<String, Long>> getLikesCount(@PathVariable Long postId) {
@@ -42,18 +38,14 @@ public class LikeController {
     }
 
     @PostMapping("/post/{postId}")
-    public ResponseEntity<Map<String, String>> likePost(
+    public ResponseEntity<Map<String, Object>> likePost(
             @PathVariable Long postId,
             Authentication auth) {
         try {
-            likeService.likePost(postId, auth.getName());
-
-            // Trigger notification for post author
-            var actor = userService.loadUserByUsername(auth.getName());
-            var post = likeService.getPost(postId);
-            notificationService.createNewLikeNotification(actor, post);
-
-            return ResponseEntity.ok(Map.of("message", "Post liked successfully"));
+            boolean changed = likeService.likePost(postId, auth.getName());
+            return ResponseEntity.ok(Map.of(
+                    "message", changed ? "Post liked successfully" : "Post already liked",
+                    "changed", changed));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -61,12 +53,14 @@ public class LikeController {
     }
 
     @DeleteMapping("/post/{postId}")
-    public ResponseEntity<Map<String, String>> unlikePost(
+    public ResponseEntity<Map<String, Object>> unlikePost(
             @PathVariable Long postId,
             Authentication auth) {
         try {
-            likeService.unlikePost(postId, auth.getName());
-            return ResponseEntity.ok(Map.of("message", "Post unliked successfully"));
+            boolean changed = likeService.unlikePost(postId, auth.getName());
+            return ResponseEntity.ok(Map.of(
+                    "message", changed ? "Post unliked successfully" : "Post was not liked",
+                    "changed", changed));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -74,12 +68,12 @@ public class LikeController {
     }
 
     @PostMapping("/post/{postId}/toggle")
-    public ResponseEntity<Map<String, String>> toggleLike(
+    public ResponseEntity<Map<String, Object>> toggleLike(
             @PathVariable Long postId,
             Authentication auth) {
         try {
-            likeService.toggleLike(postId, auth.getName());
-            return ResponseEntity.ok(Map.of("message", "Like toggled successfully"));
+            boolean liked = likeService.toggleLike(postId, auth.getName());
+            return ResponseEntity.ok(Map.of("message", "Like toggled successfully", "liked", liked));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", e.getMessage()));
@@ -1,11 +1,14 @@
 package com.minhtetthar.post_now.controller;
 
 import com.minhtetthar.post_now.dto.notification.NotificationDto;
+import com.minhtetthar.post_now.dto.notification.NotificationStorageStats;
+import com.minhtetthar.post_now.service.NotificationRetentionService;
 import com.minhtetthar.post_now.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -19,6 +22,7 @@ import java.util.Map;
 public class NotificationController {
 
     private final NotificationService notificationService;
+    private final NotificationRetentionService retentionService;
 
     @GetMapping
     public ResponseEntity<Page<NotificationDto>> getAllNotifications(
@@ -63,4 +67,14 @@ public class NotificationController {
         notificationService.markAllAsRead(auth.getName());
         return ResponseEntity.ok().build();
     }
+
+    @GetMapping("/storage")
+    public ResponseEntity<NotificationStorageStats> getStorageStats(Authentication auth) {
+        boolean admin = auth != null && auth.getAuthorities().stream()
+                .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+        if (!admin) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(retentionService.measureStorage());
+    }
 }
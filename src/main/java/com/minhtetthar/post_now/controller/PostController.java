@@ -3,11 +3,15 @@ package com.minhtetthar.post_now.controller;
 import com.minhtetthar.post_now.dto.post.PostCreateDto;
 import com.minhtetthar.post_now.dto.post.PostDto;
 import com.minhtetthar.post_now.dto.post.PostUpdateDto;
+import com.minhtetthar.post_now.dto.storage.ConfirmUploadDto;
+import com.minhtetthar.post_now.dto.storage.PresignUploadRequestDto;
+import com.minhtetthar.post_now.dto.storage.PresignedUploadDto;
+import com.minhtetthar.post_now.dto.storage.UploadedImage;
 import com.minhtetthar.post_now.exception.FileUploadException;
 import com.minhtetthar.post_now.exception.FileSizeLimitExceededException;
 import com.minhtetthar.post_now.exception.InvalidFileTypeException;
+import com.minhtetthar.post_now.exception.StorageBusyException;
 import com.minhtetthar.post_now.service.FileStorageService;
-import com.minhtetthar.post_now.service.NotificationService;
 import com.minhtetthar.post_now.service.PostService;
 import com.minhtetthar.post_now.service.UserService;
 import jakarta.validation.Valid;
@@ -23,6 +27,8 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/posts")
@@ -31,7 +37,6 @@ public class PostController {
 
         private final PostService postService;
         private final FileStorageService fileStorageService;
-        private final NotificationService notificationService;
         private final UserService userService;
 
         @GetMapping
@@ -81,17 +86,22 @@ public class PostController {
         }
 
         @PostMapping
-        public ResponseEntity<PostDto> createPost(
+        public ResponseEntity<?> createPost(
                         @Valid @RequestBody PostCreateDto createDto,
                         Authentication auth) {
+                if (createDto.getImageKey() != null) {
+                        // Image was uploaded directly to storage with a presigned URL
+                        try {
+                                Long userId = userService.getCurrentUser(auth.getName()).getId();
+                                UploadedImage uploaded = fileStorageService.confirmPresignedUpload(
+                                                userId, "posts", createDto.getImageKey());
+                                createDto.setImageUrl(uploaded.getUrl());
+                        } catch (Exception e) {
+                                return imageErrorResponse(e, "Failed to create post: ");
+                        }
+                }
                 try {
                         PostDto post = postService.createPost(createDto, auth.getName());
-
-                        // Trigger notification for followers
-                        var author = userService.loadUserByUsername(auth.getName());
-                        var postEntity = postService.getPostEntity(post.getId());
-                        notificationService.createNewPostNotification(author, postEntity);
-
                         return ResponseEntity.status(HttpStatus.CREATED).body(post);
                 } catch (Exception e) {
                         return ResponseEntity.badRequest().build();
@@ -99,43 +109,39 @@ public class PostController {
         }
 
         @PostMapping(consumes = "multipart/form-data")
-        public ResponseEntity<?> createPostWithImage(
+        public CompletableFuture<ResponseEntity<?>> createPostWithImage(
                         @RequestParam("title") String title,
                         @RequestParam("content") String content,
                         @RequestParam(value = "image", required = false) MultipartFile image,
                         Authentication auth) {
-                try {
-                        PostCreateDto createDto = new PostCreateDto();
-                        createDto.setTitle(title);
-                        createDto.setContent(content);
-
-                        // Upload image if provided
-                        if (image != null && !image.isEmpty()) {
-                                String imageUrl = fileStorageService.uploadImage(image, "posts");
-                                createDto.setImageUrl(imageUrl);
-                        }
+                String username = auth.getName();
+                PostCreateDto createDto = new PostCreateDto();
+                createDto.setTitle(title);
+                createDto.setContent(content);
 
-                        PostDto post = postService.createPost(createDto, auth.getName());
-
-                        // Trigger notification for followers
-                        var author = userService.loadUserByUsername(auth.getName());
-                        var postEntity = postService.getPostEntity(post.getId());
-                        notificationService.createNewPostNotification(author, postEntity);
-
-                        return ResponseEntity.status(HttpStatus.CREATED).body(post);
+                try {
+                        // Upload image if provided; the request thread is released while it streams
+                        CompletableFuture<String> imageUrl = image != null && !image.isEmpty()
+                                        ? fileStorageService.uploadImage(image, "posts",
+                                                        userService.getCurrentUser(username).getId())
+                                                        .thenApply(UploadedImage::getUrl)
+                                        : CompletableFuture.completedFuture(null);
 
-                } catch (InvalidFileTypeException | FileSizeLimitExceededException e) {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("error", e.getMessage());
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-                } catch (FileUploadException e) {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("error", "Failed to upload image: " + e.getMessage());
-                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+                        return imageUrl
+                                        .<ResponseEntity<?>>thenApply(url -> {
+                                                createDto.setImageUrl(url);
+                                                try {
+                                                        PostDto post = postService.createPost(createDto, username);
+                                                        return ResponseEntity.status(HttpStatus.CREATED).body(post);
+                                                } catch (RuntimeException e) {
+                                                        // Release the upload right away instead of leaving it to the orphan collector
+                                                        fileStorageService.deleteImage(url);
+                                                        throw e;
+                                                }
+                                        })
+                                        .exceptionally(e -> imageErrorResponse(e, "Failed to create post: "));
                 } catch (Exception e) {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("error", "Failed to create post: " + e.getMessage());
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                        return CompletableFuture.completedFuture(imageErrorResponse(e, "Failed to create post: "));
                 }
         }
 
@@ -153,42 +159,94 @@ public class PostController {
         }
 
         @PostMapping(value = "/{id}/image", consumes = "multipart/form-data")
-        public ResponseEntity<?> updatePostImage(
+        public CompletableFuture<ResponseEntity<?>> updatePostImage(
                         @PathVariable Long id,
                         @RequestParam("image") MultipartFile image,
                         Authentication auth) {
+                String username = auth.getName();
+                try {
+                        String oldImageUrl = postService.getImageUrl(id);
+
+                        // Upload new image, then update post with new image URL
+                        Long userId = userService.getCurrentUser(username).getId();
+                        return fileStorageService.uploadImage(image, "posts", userId)
+                                        .<ResponseEntity<?>>thenApply(uploaded -> {
+                                                PostUpdateDto updateDto = new PostUpdateDto();
+                                                updateDto.setImageUrl(uploaded.getUrl());
+                                                PostDto updatedPost;
+                                                try {
+                                                        updatedPost = postService.updatePost(id, updateDto, username);
+                                                } catch (RuntimeException e) {
+                                                        // Release the upload right away instead of leaving it to the orphan collector
+                                                        fileStorageService.deleteImage(uploaded.getUrl());
+                                                        throw e;
+                                                }
+
+                                                // Delete old image if it exists
+                                                if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
+                                                        fileStorageService.deleteImage(oldImageUrl);
+                                                }
+                                                return ResponseEntity.ok(updatedPost);
+                                        })
+                                        .exceptionally(e -> imageErrorResponse(e, "Failed to update post image: "));
+                } catch (Exception e) {
+                        return CompletableFuture.completedFuture(imageErrorResponse(e, "Failed to update post image: "));
+                }
+        }
+
+        /**
+         * Start a direct upload for a post image. The returned key is passed as
+         * imageKey when creating a post, or to /{id}/image/confirm.
+         */
+        @PostMapping("/images/presign")
+        public ResponseEntity<?> presignPostImageUpload(
+                        @Valid @RequestBody PresignUploadRequestDto request,
+                        Authentication auth) {
+                if (!fileStorageService.supportsDirectUpload()) {
+                        Map<String, String> error = new HashMap<>();
+                        error.put("error", "Direct uploads are not supported by this storage backend");
+                        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(error);
+                }
                 try {
-                        // Get current post to check for existing image
-                        PostDto currentPost = postService.getPostById(id, auth.getName());
-                        String oldImageUrl = currentPost.getImageUrl();
+                        Long userId = userService.getCurrentUser(auth.getName()).getId();
+                        PresignedUploadDto upload = fileStorageService.createPresignedUpload(
+                                        userId, "posts", request.getContentType(), request.getContentLength());
+                        return ResponseEntity.ok(upload);
+                } catch (Exception e) {
+                        return imageErrorResponse(e, "Failed to prepare upload: ");
+                }
+        }
 
-                        // Upload new image
-                        String imageUrl = fileStorageService.uploadImage(image, "posts");
+        @PostMapping("/{id}/image/confirm")
+        public ResponseEntity<?> confirmPostImageUpload(
+                        @PathVariable Long id,
+                        @Valid @RequestBody ConfirmUploadDto request,
+                        Authentication auth) {
+                try {
+                        String oldImageUrl = postService.getImageUrl(id);
+
+                        Long userId = userService.getCurrentUser(auth.getName()).getId();
+                        UploadedImage uploaded = fileStorageService.confirmPresignedUpload(
+                                        userId, "posts", request.getKey());
 
-                        // Update post with new image URL
                         PostUpdateDto updateDto = new PostUpdateDto();
-                        updateDto.setImageUrl(imageUrl);
-                        PostDto updatedPost = postService.updatePost(id, updateDto, auth.getName());
+                        updateDto.setImageUrl(uploaded.getUrl());
+                        PostDto updatedPost;
+                        try {
+                                updatedPost = postService.updatePost(id, updateDto, auth.getName());
+                        } catch (RuntimeException e) {
+                                fileStorageService.deleteImage(uploaded.getUrl());
+                                throw e;
+                        }
 
                         // Delete old image if it exists
-                        if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
+                        if (oldImageUrl != null && !oldImageUrl.isEmpty() && !oldImageUrl.equals(uploaded.getUrl())) {
                                 fileStorageService.deleteImage(oldImageUrl);
                         }
 
                         return ResponseEntity.ok(updatedPost);
-
-                } catch (InvalidFileTypeException | FileSizeLimitExceededException e) {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("error", e.getMessage());
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-                } catch (FileUploadException e) {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("error", "Failed to upload image: " + e.getMessage());
-                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
                 } catch (Exception e) {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("error", "Failed to update post image: " + e.getMessage());
-                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                        return imageErrorResponse(e, "Failed to update post image: ");
                 }
         }
 
@@ -197,8 +255,7 @@ public class PostController {
                         @PathVariable Long id,
                         Authentication auth) {
                 try {
-                        PostDto currentPost = postService.getPostById(id, auth.getName());
-                        String imageUrl = currentPost.getImageUrl();
+                        String imageUrl = postService.getImageUrl(id);
 
                         if (imageUrl == null || imageUrl.isEmpty()) {
                                 Map<String, String> error = new HashMap<>();
@@ -234,4 +291,24 @@ public class PostController {
                         return ResponseEntity.badRequest().build();
                 }
         }
-}
\ No newline at end of file
+
+        private ResponseEntity<?> imageErrorResponse(Throwable e, String fallbackMessage) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                Map<String, String> error = new HashMap<>();
+                if (cause instanceof InvalidFileTypeException || cause instanceof FileSizeLimitExceededException
+                                || cause instanceof IllegalArgumentException) {
+                        error.put("error", cause.getMessage());
+                        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                }
+                if (cause instanceof StorageBusyException) {
+                        error.put("error", cause.getMessage());
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+                }
+                if (cause instanceof FileUploadException) {
+                        error.put("error", "Failed to upload image: " + cause.getMessage());
+                        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+                }
+                error.put("error", fallbackMessage + cause.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+}
@@ -0,0 +1,36 @@
+package com.minhtetthar.post_now.controller;
+
+import com.minhtetthar.post_now.dto.post.PostDto;
+import com.minhtetthar.post_now.service.PostService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/tags")
+@RequiredArgsConstructor
+public class TagController {
+
+    private final PostService postService;
+
+    /**
+     * Newest public posts with #{tag}. Ordered by the tag index; a sort parameter is ignored.
+     */
+    @GetMapping("/{tag}/posts")
+    public ResponseEntity<Page<PostDto>> getPostsByTag(
+            @PathVariable String tag,
+            @PageableDefault(size = 20) Pageable pageable,
+            Authentication auth) {
+        String username = auth != null ? auth.getName() : null;
+        Page<PostDto> posts = postService.getPostsByTag(tag, Pageable.ofSize(pageable.getPageSize())
+                .withPage(pageable.getPageNumber()), username);
+        return ResponseEntity.ok(posts);
+    }
+}
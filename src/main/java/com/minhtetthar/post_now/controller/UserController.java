@@ -1,10 +1,16 @@
 package com.minhtetthar.post_now.controller;
 
+import com.minhtetthar.post_now.dto.storage.ConfirmUploadDto;
+import com.minhtetthar.post_now.dto.storage.PresignUploadRequestDto;
+import com.minhtetthar.post_now.dto.storage.PresignedUploadDto;
+import com.minhtetthar.post_now.dto.storage.UploadedImage;
+import com.minhtetthar.post_now.dto.user.UserAutocompleteDto;
 import com.minhtetthar.post_now.dto.user.UserDto;
 import com.minhtetthar.post_now.dto.user.UserUpdateDto;
 import com.minhtetthar.post_now.exception.FileUploadException;
 import com.minhtetthar.post_now.exception.FileSizeLimitExceededException;
 import com.minhtetthar.post_now.exception.InvalidFileTypeException;
+import com.minhtetthar.post_now.exception.StorageBusyException;
 import com.minhtetthar.post_now.service.FileStorageService;
 import com.minhtetthar.post_now.service.UserService;
 import jakarta.validation.Valid;
@@ -19,7 +25,10 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/users")
@@ -64,6 +73,13 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<UserAutocompleteDto>> autocompleteUsers(
+            @RequestParam("q") String query,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(userService.autocomplete(query, limit));
+    }
+
     @PutMapping("/me")
     public ResponseEntity<UserDto> updateCurrentUser(
             @Valid @RequestBody UserUpdateDto updateDto,
@@ -87,41 +103,80 @@ public class UserController {
     }
 
     @PostMapping("/me/profile-image")
-    public ResponseEntity<?> uploadProfileImage(
+    public CompletableFuture<ResponseEntity<?>> uploadProfileImage(
             @RequestParam("image") MultipartFile image,
             Authentication auth) {
+        String username = auth.getName();
         try {
             // Get current user to check for existing image
+            UserDto currentUser = userService.getCurrentUser(username);
+            String oldImageUrl = currentUser.getProfileImage();
+
+            // Upload new image, then update user with new image URL
+            return fileStorageService.uploadImage(image, "profiles", currentUser.getId())
+                    .<ResponseEntity<?>>thenApply(uploaded -> {
+                        UserUpdateDto updateDto = new UserUpdateDto();
+                        updateDto.setProfileImage(uploaded.getUrl());
+                        UserDto updatedUser = userService.updateUser(username, updateDto);
+
+                        // Delete old image if it exists
+                        if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
+                            fileStorageService.deleteImage(oldImageUrl);
+                        }
+                        return ResponseEntity.ok(updatedUser);
+                    })
+                    .exceptionally(this::imageErrorResponse);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(imageErrorResponse(e));
+        }
+    }
+
+    /**
+     * Start a direct upload: the client PUTs the image to the returned URL,
+     * then calls /me/profile-image/confirm with the key.
+     */
+    @PostMapping("/me/profile-image/presign")
+    public ResponseEntity<?> presignProfileImageUpload(
+            @Valid @RequestBody PresignUploadRequestDto request,
+            Authentication auth) {
+        if (!fileStorageService.supportsDirectUpload()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Direct uploads are not supported by this storage backend");
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(error);
+        }
+        try {
+            UserDto currentUser = userService.getCurrentUser(auth.getName());
+            PresignedUploadDto upload = fileStorageService.createPresignedUpload(
+                    currentUser.getId(), "profiles", request.getContentType(), request.getContentLength());
+            return ResponseEntity.ok(upload);
+        } catch (Exception e) {
+            return imageErrorResponse(e);
+        }
+    }
+
+    @PostMapping("/me/profile-image/confirm")
+    public ResponseEntity<?> confirmProfileImageUpload(
+            @Valid @RequestBody ConfirmUploadDto request,
+            Authentication auth) {
+        try {
             UserDto currentUser = userService.getCurrentUser(auth.getName());
             String oldImageUrl = currentUser.getProfileImage();
 
-            // Upload new image
-            String imageUrl = fileStorageService.uploadImage(image, "profiles");
+            UploadedImage uploaded = fileStorageService.confirmPresignedUpload(
+                    currentUser.getId(), "profiles", request.getKey());
 
-            // Update user with new image URL
             UserUpdateDto updateDto = new UserUpdateDto();
-            updateDto.setProfileImage(imageUrl);
+            updateDto.setProfileImage(uploaded.getUrl());
             UserDto updatedUser = userService.updateUser(auth.getName(), updateDto);
 
             // Delete old image if it exists
-            if (oldImageUrl != null && !oldImageUrl.isEmpty()) {
+            if (oldImageUrl != null && !oldImageUrl.isEmpty() && !oldImageUrl.equals(uploaded.getUrl())) {
                 fileStorageService.deleteImage(oldImageUrl);
             }
 
             return ResponseEntity.ok(updatedUser);
-
-        } catch (InvalidFileTypeException | FileSizeLimitExceededException e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
-        } catch (FileUploadException e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Failed to upload image: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         } catch (Exception e) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "An unexpected error occurred");
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+            return imageErrorResponse(e);
         }
     }
 
@@ -153,4 +208,24 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<?> imageErrorResponse(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Map<String, String> error = new HashMap<>();
+        if (cause instanceof InvalidFileTypeException || cause instanceof FileSizeLimitExceededException
+                || cause instanceof IllegalArgumentException) {
+            error.put("error", cause.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        if (cause instanceof StorageBusyException) {
+            error.put("error", cause.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+        if (cause instanceof FileUploadException) {
+            error.put("error", "Failed to upload image: " + cause.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+        }
+        error.put("error", "An unexpected error occurred");
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+    }
+}
@@ -0,0 +1,17 @@
+package com.minhtetthar.post_now.dto.follow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A follow reduced to ids, for loading the follow graph.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowEdge {
+    private Long id;
+    private Long followerId;
+    private Long followingId;
+}
@@ -0,0 +1,17 @@
+package com.minhtetthar.post_now.dto.follow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowSuggestionDto {
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private String profileImage;
+    private int mutualCount; // Followed accounts of the current user who follow them
+}
@@ -0,0 +1,19 @@
+package com.minhtetthar.post_now.dto.follow;
+
+import com.minhtetthar.post_now.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The parts of a follower needed to email them about a new post.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowerRecipient {
+    private Long id;
+    private String username;
+    private String email;
+    private User.EmailFrequency emailFrequency;
+}
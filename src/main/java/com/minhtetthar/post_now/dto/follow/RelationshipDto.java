@@ -0,0 +1,16 @@
+package com.minhtetthar.post_now.dto.follow;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How the current user and another user are connected.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationshipDto {
+    private boolean following; // The current user follows them
+    private boolean followedBy; // They follow the current user
+}
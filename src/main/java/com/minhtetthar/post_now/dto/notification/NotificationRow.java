@@ -0,0 +1,30 @@
+package com.minhtetthar.post_now.dto.notification;
+
+import com.minhtetthar.post_now.entity.Notification;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat projection of a notification with its actor's summary fields,
+ * loaded in a single statement without touching the lazy associations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationRow {
+    private Long id;
+    private Notification.NotificationType type;
+    private boolean read;
+    private LocalDateTime createdAt;
+    private Long postId;
+    private Long commentId;
+    private Long actorId;
+    private String actorUsername;
+    private String actorFirstName;
+    private String actorLastName;
+    private String actorProfileImage;
+    private String actorAvatarUrl;
+}
@@ -0,0 +1,18 @@
+package com.minhtetthar.post_now.dto.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationStorageStats {
+    private long rowCount; // Exact on H2, planner estimate on Postgres
+    private Long tableBytes; // null when the database cannot report sizes
+    private Long indexBytes;
+    private Long totalBytes;
+    private Map<String, Long> indexSizes; // Per index name, Postgres only
+}
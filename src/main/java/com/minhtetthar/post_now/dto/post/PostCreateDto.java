@@ -17,4 +17,6 @@ public class PostCreateDto {
     private Post.PostType type = Post.PostType.PUBLIC;
     
     private String imageUrl;
+
+    private String imageKey; // Key of a presigned upload to confirm and attach
 }
\ No newline at end of file
@@ -13,6 +13,8 @@ public class PostDto {
     private String content;
     private Post.PostType type;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String displayImageUrl;
     private Boolean active;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,11 @@
+package com.minhtetthar.post_now.dto.storage;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ConfirmUploadDto {
+
+    @NotBlank(message = "Key is required")
+    private String key;
+}
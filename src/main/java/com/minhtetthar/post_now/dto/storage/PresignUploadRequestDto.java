@@ -0,0 +1,15 @@
+package com.minhtetthar.post_now.dto.storage;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class PresignUploadRequestDto {
+
+    @NotBlank(message = "Content type is required")
+    private String contentType;
+
+    @Positive(message = "Content length must be positive")
+    private long contentLength;
+}
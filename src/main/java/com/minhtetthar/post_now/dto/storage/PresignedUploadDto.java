@@ -0,0 +1,19 @@
+package com.minhtetthar.post_now.dto.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDto {
+    private String key; // Pass back to the confirm endpoint once the PUT succeeded
+    private String uploadUrl;
+    private String method;
+    private Map<String, String> headers; // Must be sent with the PUT exactly as given
+    private Instant expiresAt;
+}
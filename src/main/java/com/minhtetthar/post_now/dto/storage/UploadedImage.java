@@ -0,0 +1,16 @@
+package com.minhtetthar.post_now.dto.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadedImage {
+    private String key;
+    private String url;
+    private long size;
+    private String contentType;
+    private String sha256; // Hex digest of the stored bytes
+}
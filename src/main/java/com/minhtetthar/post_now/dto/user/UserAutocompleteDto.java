@@ -0,0 +1,16 @@
+package com.minhtetthar.post_now.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserAutocompleteDto {
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private long followerCount;
+}
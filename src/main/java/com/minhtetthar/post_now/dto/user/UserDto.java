@@ -14,7 +14,11 @@ public class UserDto {
     private String lastName;
     private String bio;
     private String profileImage;
+    private String avatarUrl;
     private User.Role role;
+    private User.EmailFrequency emailFrequency;
+    private long followerCount;
+    private long followingCount;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.minhtetthar.post_now.dto.user;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The fields of an enabled user the autocomplete index is built from.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserIndexRow {
+    private Long id;
+    private String username;
+    private String firstName;
+    private String lastName;
+    private long followerCount;
+}
@@ -9,4 +9,5 @@ public class UserSummaryDto {
     private String firstName;
     private String lastName;
     private String profileImage;
+    private String avatarUrl;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.minhtetthar.post_now.dto.user;
 
+import com.minhtetthar.post_now.entity.User;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -17,4 +18,5 @@ public class UserUpdateDto {
     private String bio;
     
     private String profileImage;
+    private User.EmailFrequency emailFrequency;
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one email to one recipient.
+ */
+@Entity
+@Table(name = "email_deliveries", indexes = {
+        @Index(name = "idx_email_recipient_created", columnList = "recipient_id,created_at"),
+        @Index(name = "idx_email_source_event_recipient", columnList = "source_event_id,recipient_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDelivery {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient_id")
+    private Long recipientId;
+
+    // Outbox event the email was sent for, null for emails not sent from an event
+    @Column(name = "source_event_id")
+    private Long sourceEventId;
+
+    @Column(name = "recipient_email", nullable = false)
+    private String recipientEmail;
+
+    @Column(length = 500)
+    private String subject;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "provider_message_id")
+    private String providerMessageId;
+
+    @Column(length = 1000)
+    private String error;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum Status {
+        SENT, FAILED
+    }
+}
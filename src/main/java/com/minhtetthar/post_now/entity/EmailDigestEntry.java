@@ -0,0 +1,37 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A new post waiting to go out in a recipient's next digest email.
+ */
+@Entity
+@Table(name = "email_digest_entries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_digest_recipient_post", columnNames = {"recipient_id", "post_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDigestEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "recipient_id", nullable = false)
+    private Long recipientId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,41 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A follow or unfollow, written in the same transaction. Follow graphs read
+ * these to catch up with changes made through other instances; rows older than
+ * follow.graph.change-retention are deleted.
+ */
+@Entity
+@Table(name = "follow_changes", indexes = {
+        @Index(name = "idx_follow_changes_changed_at", columnList = "changed_at,id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FollowChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "follower_id", nullable = false)
+    private Long followerId;
+
+    @Column(name = "following_id", nullable = false)
+    private Long followingId;
+
+    @Column(nullable = false)
+    private boolean following; // false for an unfollow
+
+    @CreationTimestamp
+    @Column(name = "changed_at", nullable = false, updatable = false)
+    private LocalDateTime changedAt;
+}
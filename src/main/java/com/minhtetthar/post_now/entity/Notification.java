@@ -11,7 +11,9 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "notifications", indexes = {
         @Index(name = "idx_user_created", columnList = "user_id,created_at"),
-        @Index(name = "idx_user_read", columnList = "user_id,is_read")
+        @Index(name = "idx_user_read", columnList = "user_id,is_read"),
+        @Index(name = "idx_source_event", columnList = "source_event_id"),
+        @Index(name = "idx_type_created", columnList = "type,created_at") // Retention purge
 })
 @Data
 @NoArgsConstructor
@@ -42,6 +44,9 @@ public class Notification {
     @JoinColumn(name = "comment_id")
     private Comment comment;
 
+    @Column(name = "source_event_id")
+    private Long sourceEventId; // Outbox event that created this notification, for idempotent retries
+
     @Column(name = "is_read", nullable = false)
     private boolean read = false;
 
@@ -53,6 +58,7 @@ public class Notification {
         NEW_POST, // New post from followed user
         NEW_LIKE, // Someone liked your post
         NEW_COMMENT, // Someone commented on your post
-        NEW_FOLLOW // Someone followed you
+        NEW_FOLLOW, // Someone followed you
+        NEW_MENTION // Someone mentioned you in a post
     }
 }
@@ -0,0 +1,52 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user read watermark for notifications.
+ * Every notification created at or before (lastReadAt, lastReadId) counts as read;
+ * newer ones are read only if their own is_read flag was set individually.
+ */
+@Entity
+@Table(name = "notification_read_markers")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReadMarker {
+
+    public static final LocalDateTime NEVER = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "last_read_at", nullable = false)
+    private LocalDateTime lastReadAt = NEVER;
+
+    @Column(name = "last_read_id", nullable = false)
+    private Long lastReadId = 0L;
+
+    public static NotificationReadMarker initial(Long userId) {
+        return new NotificationReadMarker(userId, NEVER, 0L);
+    }
+
+    /**
+     * Whether a notification is covered by this watermark.
+     */
+    public boolean covers(Notification notification) {
+        return covers(notification.getId(), notification.getCreatedAt());
+    }
+
+    public boolean covers(Long id, LocalDateTime createdAt) {
+        if (createdAt == null) {
+            return false;
+        }
+        return createdAt.isBefore(lastReadAt)
+                || (createdAt.isEqual(lastReadAt) && id <= lastReadId);
+    }
+}
@@ -0,0 +1,79 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain event written in the same transaction as the change that caused it.
+ * OutboxRelay picks it up and runs the side effects (notifications, emails).
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_available", columnList = "status,available_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private EventType type;
+
+    @Column(name = "actor_id", nullable = false)
+    private Long actorId; // User who caused the event
+
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "comment_id")
+    private Long commentId;
+
+    @Column(name = "target_user_id")
+    private Long targetUserId; // e.g. the followed user
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    // Next attempt for pending events, lease expiry for events being processed
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt = LocalDateTime.now();
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    public enum EventType {
+        NEW_POST, // Notify followers about a new post
+        NEW_POST_EMAIL, // Email followers about a new post
+        NEW_MENTION, // Notify users mentioned in a post
+        NEW_LIKE, // Notify post author about a like
+        NEW_COMMENT, // Notify post author about a comment
+        NEW_FOLLOW, // Notify user about a new follower
+        POST_IMAGE_VARIANTS, // Resize a post's new image
+        PROFILE_IMAGE_VARIANTS // Resize a user's new profile image
+    }
+
+    public enum Status {
+        PENDING, PROCESSING, PROCESSED, FAILED
+    }
+}
@@ -7,7 +7,9 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+        @Index(name = "idx_posts_changed_at", columnList = "changed_at,id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -32,6 +34,13 @@ public class Post {
     @Column(length = 2000)
     private String imageUrl;
 
+    // Resized copies of imageUrl, filled in after upload
+    @Column(length = 2000)
+    private String thumbnailUrl;
+
+    @Column(length = 2000)
+    private String displayImageUrl;
+
     @Builder.Default
     private Boolean active = true;
 
@@ -40,6 +49,10 @@ public class Post {
 
     private LocalDateTime updatedAt;
 
+    // Set on every insert and update; search indexes catch up from it
+    @Column(name = "changed_at")
+    private LocalDateTime changedAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id", nullable = false)
     private User author;
@@ -50,9 +63,15 @@ public class Post {
     @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<Like> likes;
 
+    @PrePersist
+    protected void onCreate() {
+        changedAt = LocalDateTime.now();
+    }
+
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        changedAt = updatedAt;
     }
 
     public enum PostType {
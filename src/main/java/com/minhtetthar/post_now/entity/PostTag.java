@@ -0,0 +1,38 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A #hashtag or @mention found in a post, written when the post is saved.
+ * The (tag, created_at, post_id) index turns a tag's feed into a range scan.
+ */
+@Entity
+@Table(name = "post_tags", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_post_tag", columnNames = {"post_id", "tag"})
+}, indexes = {
+        @Index(name = "idx_post_tags_tag_created", columnList = "tag,created_at,post_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostTag {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String tag; // "#java" (lowercased) or "@username" (as written)
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // The post's creation time, so a tag's posts come out in feed order
+}
@@ -0,0 +1,49 @@
+package com.minhtetthar.post_now.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * An object in the image bucket and how many posts/profiles point at it.
+ * Uploads are keyed by owner and content hash, so identical images of one
+ * owner share one object. A count of zero marks an object being deleted.
+ */
+@Entity
+@Table(name = "stored_objects", indexes = {
+        @Index(name = "idx_stored_object_sha256", columnList = "sha256")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+
+    @Id
+    @Column(name = "object_key", length = 512)
+    private String objectKey;
+
+    @Column(length = 64)
+    private String sha256; // Null for presigned uploads, which are never hashed by us
+
+    @Column(nullable = false)
+    private long size;
+
+    @Column(name = "content_type", length = 100)
+    private String contentType;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt; // Last reference change; the orphan collector leaves recent ones alone
+}
@@ -2,6 +2,7 @@ package com.minhtetthar.post_now.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -37,11 +38,35 @@ public class User implements UserDetails {
     private String lastName;
     private String bio;
     private String profileImage;
+    private String avatarUrl; // Square thumbnail of profileImage, filled in after upload
 
     @Enumerated(EnumType.STRING)
     @Builder.Default
     private Role role = Role.USER;
 
+    /**
+     * How new-post emails reach this user. Immediate delivery is opt-in;
+     * everyone else gets a digest.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "email_frequency", nullable = false, length = 20)
+    @ColumnDefault("'DAILY'")
+    @Builder.Default
+    private EmailFrequency emailFrequency = EmailFrequency.DAILY;
+
+    /**
+     * Maintained by FollowService with atomic increments and corrected by
+     * FollowCountReconciler. Never written from the entity, so saving a stale
+     * copy of a user cannot overwrite a concurrent change.
+     */
+    @Column(name = "follower_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long followerCount;
+
+    @Column(name = "following_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long followingCount;
+
     @Builder.Default
     private Boolean accountNonExpired = true;
 
@@ -101,4 +126,8 @@ public class User implements UserDetails {
     public enum Role {
         USER, ADMIN, MODERATOR
     }
+
+    public enum EmailFrequency {
+        IMMEDIATE, HOURLY, DAILY
+    }
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.minhtetthar.post_now.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published inside the transaction that creates or removes a follow.
+ */
+@Getter
+@AllArgsConstructor
+public class FollowChangedEvent {
+
+    private final Long followerId;
+    private final Long followingId;
+    private final boolean following; // false once unfollowed
+
+    public static FollowChangedEvent followed(Long followerId, Long followingId) {
+        return new FollowChangedEvent(followerId, followingId, true);
+    }
+
+    public static FollowChangedEvent unfollowed(Long followerId, Long followingId) {
+        return new FollowChangedEvent(followerId, followingId, false);
+    }
+}
@@ -0,0 +1,27 @@
+package com.minhtetthar.post_now.event;
+
+import com.minhtetthar.post_now.entity.Post;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published inside the transaction that creates, edits or deletes a post.
+ * Carries the searchable text so listeners need not read the post again.
+ */
+@Getter
+@AllArgsConstructor
+public class PostChangedEvent {
+
+    private final Long postId;
+    private final String title;
+    private final String content;
+    private final boolean deleted;
+
+    public static PostChangedEvent saved(Post post) {
+        return new PostChangedEvent(post.getId(), post.getTitle(), post.getContent(), !Boolean.TRUE.equals(post.getActive()));
+    }
+
+    public static PostChangedEvent deleted(Long postId) {
+        return new PostChangedEvent(postId, null, null, true);
+    }
+}
@@ -0,0 +1,24 @@
+package com.minhtetthar.post_now.event;
+
+import com.minhtetthar.post_now.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published inside the transaction that creates, edits or disables a user.
+ */
+@Getter
+@AllArgsConstructor
+public class UserChangedEvent {
+
+    private final Long userId;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final boolean enabled;
+
+    public static UserChangedEvent of(User user) {
+        return new UserChangedEvent(user.getId(), user.getUsername(), user.getFirstName(), user.getLastName(),
+                user.isEnabled());
+    }
+}
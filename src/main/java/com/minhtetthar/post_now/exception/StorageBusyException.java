@@ -0,0 +1,7 @@
+package com.minhtetthar.post_now.exception;
+
+public class StorageBusyException extends RuntimeException {
+    public StorageBusyException(String message) {
+        super(message);
+    }
+}
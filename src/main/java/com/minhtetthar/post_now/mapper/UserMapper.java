@@ -21,6 +21,8 @@ public interface UserMapper {
     @Mapping(target = "posts", ignore = true)
     @Mapping(target = "comments", ignore = true)
     @Mapping(target = "likes", ignore = true)
+    @Mapping(target = "followerCount", ignore = true)
+    @Mapping(target = "followingCount", ignore = true)
     User toEntity(UserCreateDto dto);
 
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
@@ -37,5 +39,7 @@ public interface UserMapper {
     @Mapping(target = "accountNonLocked", ignore = true)
     @Mapping(target = "credentialsNonExpired", ignore = true)
     @Mapping(target = "enabled", ignore = true)
+    @Mapping(target = "followerCount", ignore = true)
+    @Mapping(target = "followingCount", ignore = true)
     void updateEntity(@MappingTarget User user, UserUpdateDto dto);
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.EmailDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailDeliveryRepository extends JpaRepository<EmailDelivery, Long> {
+
+    /**
+     * Which of {@code recipientIds} already have a delivery with this status
+     * for the given outbox event.
+     */
+    @Query("SELECT d.recipientId FROM EmailDelivery d " +
+           "WHERE d.sourceEventId = :eventId AND d.status = :status AND d.recipientId IN :recipientIds")
+    List<Long> findRecipientIdsBySourceEventId(@Param("eventId") Long eventId,
+                                               @Param("status") EmailDelivery.Status status,
+                                               @Param("recipientIds") Collection<Long> recipientIds);
+}
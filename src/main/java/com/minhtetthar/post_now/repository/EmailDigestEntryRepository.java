@@ -0,0 +1,35 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.EmailDigestEntry;
+import com.minhtetthar.post_now.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface EmailDigestEntryRepository extends JpaRepository<EmailDigestEntry, Long> {
+
+    @Query("SELECT e.recipientId FROM EmailDigestEntry e WHERE e.post.id = :postId AND e.recipientId IN :recipientIds")
+    List<Long> findRecipientIdsByPostId(@Param("postId") Long postId,
+                                        @Param("recipientIds") Collection<Long> recipientIds);
+
+    /**
+     * Recipients with pending entries whose email frequency is one of the given
+     * ones, in id order after the given id (keyset pagination).
+     */
+    @Query("SELECT DISTINCT e.recipientId FROM EmailDigestEntry e, User u " +
+            "WHERE u.id = e.recipientId AND u.emailFrequency IN :frequencies AND e.recipientId > :afterId " +
+            "ORDER BY e.recipientId")
+    List<Long> findPendingRecipientIds(@Param("frequencies") Collection<User.EmailFrequency> frequencies,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+
+    @Query("SELECT e FROM EmailDigestEntry e JOIN FETCH e.post p JOIN FETCH p.author " +
+            "WHERE e.recipientId IN :recipientIds ORDER BY e.recipientId, e.createdAt DESC")
+    List<EmailDigestEntry> findWithPostsByRecipientIdIn(@Param("recipientIds") Collection<Long> recipientIds);
+}
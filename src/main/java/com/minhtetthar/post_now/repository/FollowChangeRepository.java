@@ -0,0 +1,36 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.FollowChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FollowChangeRepository extends JpaRepository<FollowChange, Long> {
+
+    /**
+     * Changes after the (changedAt, id) position, oldest first. Keyset
+     * pagination for catching up the follow graph.
+     */
+    @Query("SELECT c FROM FollowChange c WHERE c.changedAt > :since OR (c.changedAt = :since AND c.id > :afterId) " +
+            "ORDER BY c.changedAt, c.id")
+    List<FollowChange> findChangedAfter(@Param("since") LocalDateTime since,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+
+    @Query("SELECT max(c.changedAt) FROM FollowChange c")
+    Optional<LocalDateTime> findLastChangedAt();
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FollowChange c WHERE c.changedAt < :cutoff")
+    int deleteByChangedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+}
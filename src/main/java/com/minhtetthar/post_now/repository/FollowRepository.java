@@ -1,16 +1,23 @@
 package com.minhtetthar.post_now.repository;
 
+import com.minhtetthar.post_now.dto.follow.FollowEdge;
+import com.minhtetthar.post_now.dto.follow.FollowerRecipient;
 import com.minhtetthar.post_now.entity.Follow;
 import com.minhtetthar.post_now.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface FollowRepository extends JpaRepository<Follow, Long> {
@@ -23,6 +30,8 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
 
     long countByFollower(User follower);
 
+    boolean existsByIdIsNotNull();
+
     Page<Follow> findByFollowing(User following, Pageable pageable);
 
     Page<Follow> findByFollower(User follower, Pageable pageable);
@@ -30,6 +39,39 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
     @Query("SELECT f.following FROM Follow f WHERE f.follower = :user")
     List<User> findFollowingUsers(@Param("user") User user);
 
-    @Query("SELECT f.follower FROM Follow f WHERE f.following = :user")
-    List<User> findFollowerUsers(@Param("user") User user);
+    /**
+     * Ids of everyone following {@code userId}, streamed from a database
+     * cursor. Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT f.follower.id FROM Follow f WHERE f.following.id = :userId")
+    Stream<Long> streamFollowerIds(@Param("userId") Long userId);
+
+    /**
+     * Followers of {@code userId} with id above {@code afterId}, in id order
+     * (keyset pagination), reduced to what a new post email needs.
+     */
+    @Query("SELECT new com.minhtetthar.post_now.dto.follow.FollowerRecipient(u.id, u.username, u.email, u.emailFrequency) " +
+            "FROM Follow f JOIN f.follower u WHERE f.following.id = :userId AND u.id > :afterId ORDER BY u.id")
+    List<FollowerRecipient> findFollowerRecipients(@Param("userId") Long userId,
+                                                   @Param("afterId") Long afterId,
+                                                   Pageable pageable);
+
+    /**
+     * Follows between {@code userId} and any of {@code otherIds}, in either direction.
+     */
+    @Query("SELECT new com.minhtetthar.post_now.dto.follow.FollowEdge(f.id, f.follower.id, f.following.id) " +
+            "FROM Follow f WHERE (f.follower.id = :userId AND f.following.id IN :otherIds) " +
+            "OR (f.following.id = :userId AND f.follower.id IN :otherIds)")
+    List<FollowEdge> findEdgesBetween(@Param("userId") Long userId, @Param("otherIds") Collection<Long> otherIds);
+
+    /**
+     * Keyset pagination over all follows as id pairs, for loading the follow graph.
+     */
+    @Query("SELECT new com.minhtetthar.post_now.dto.follow.FollowEdge(f.id, f.follower.id, f.following.id) " +
+            "FROM Follow f WHERE f.id > :afterId ORDER BY f.id")
+    List<FollowEdge> findEdgesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -4,22 +4,55 @@ import com.minhtetthar.post_now.entity.Like;
 import com.minhtetthar.post_now.entity.Post;
 import com.minhtetthar.post_now.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
 
 @Repository
 public interface LikeRepository extends JpaRepository<Like, Long> {
 
-    Optional<Like> findByPostAndUser(Post post, User user);
-
     @Query("SELECT COUNT(l) FROM Like l WHERE l.post = :post")
     Long countByPost(@Param("post") Post post);
 
     @Query("SELECT CASE WHEN COUNT(l) > 0 THEN true ELSE false END FROM Like l WHERE l.post = :post AND l.user = :user")
     boolean existsByPostAndUser(@Param("post") Post post, @Param("user") User user);
 
-    void deleteByPostAndUser(Post post, User user);
+    /**
+     * Postgres only: like an active post in one statement. Returns 1 if the
+     * like was added, 0 if it already existed or the post is not active;
+     * concurrent inserts of the same like cannot fail on the unique constraint.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO likes (post_id, user_id, created_at) " +
+            "SELECT p.id, :userId, :createdAt FROM posts p WHERE p.id = :postId AND p.active = true " +
+            "ON CONFLICT (post_id, user_id) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsentPostgres(@Param("postId") Long postId,
+                               @Param("userId") Long userId,
+                               @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Portable variant of {@link #insertIfAbsentPostgres}. Two concurrent
+     * inserts of the same like can still meet the unique constraint.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO likes (post_id, user_id, created_at) " +
+            "SELECT p.id, :userId, :createdAt FROM posts p WHERE p.id = :postId AND p.active = true " +
+            "AND NOT EXISTS (SELECT 1 FROM likes l WHERE l.post_id = :postId AND l.user_id = :userId)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("postId") Long postId,
+                       @Param("userId") Long userId,
+                       @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Unlike an active post. Returns the number of likes removed, 0 or 1;
+     * likes of deleted posts are left alone, as {@link #insertIfAbsent} does.
+     */
+    @Modifying
+    @Query("DELETE FROM Like l WHERE l.post.id = :postId AND l.user.id = :userId " +
+            "AND EXISTS (SELECT 1 FROM Post p WHERE p.id = :postId AND p.active = true)")
+    int deleteFromActivePost(@Param("postId") Long postId, @Param("userId") Long userId);
 }
\ No newline at end of file
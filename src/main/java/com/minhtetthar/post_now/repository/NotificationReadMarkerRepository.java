@@ -0,0 +1,9 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.NotificationReadMarker;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface NotificationReadMarkerRepository extends JpaRepository<NotificationReadMarker, Long> {
+}
@@ -1,5 +1,6 @@
 package com.minhtetthar.post_now.repository;
 
+import com.minhtetthar.post_now.dto.notification.NotificationRow;
 import com.minhtetthar.post_now.entity.Notification;
 import com.minhtetthar.post_now.entity.User;
 import org.springframework.data.domain.Page;
@@ -10,18 +11,72 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
 
-    Page<Notification> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
+    String ROW_SELECT = "SELECT new com.minhtetthar.post_now.dto.notification.NotificationRow(" +
+            "n.id, n.type, n.read, n.createdAt, n.post.id, n.comment.id, " +
+            "a.id, a.username, a.firstName, a.lastName, a.profileImage, a.avatarUrl) " +
+            "FROM Notification n JOIN n.actor a ";
 
-    Page<Notification> findByUserAndReadOrderByCreatedAtDesc(User user, boolean read, Pageable pageable);
+    String UNREAD_AFTER_WATERMARK = "n.read = false AND " +
+            "(n.createdAt > :lastReadAt OR (n.createdAt = :lastReadAt AND n.id > :lastReadId))";
 
-    long countByUserAndRead(User user, boolean read);
+    @Query(value = ROW_SELECT + "WHERE n.user.id = :userId ORDER BY n.createdAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId")
+    Page<NotificationRow> findRowsByUserId(@Param("userId") Long userId, Pageable pageable);
 
-    @Modifying
-    @Query("UPDATE Notification n SET n.read = true WHERE n.user = :user AND n.read = false")
-    int markAllAsReadByUser(@Param("user") User user);
+    /**
+     * Unread notifications are the ones newer than the user's read watermark that
+     * have not been read individually. The predicate is a range on (user_id, created_at).
+     */
+    @Query(value = ROW_SELECT + "WHERE n.user.id = :userId AND " + UNREAD_AFTER_WATERMARK +
+            " ORDER BY n.createdAt DESC",
+            countQuery = "SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND " +
+                    UNREAD_AFTER_WATERMARK)
+    Page<NotificationRow> findUnreadRowsAfterWatermark(@Param("userId") Long userId,
+                                                       @Param("lastReadAt") LocalDateTime lastReadAt,
+                                                       @Param("lastReadId") Long lastReadId,
+                                                       Pageable pageable);
+
+    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user = :user AND " + UNREAD_AFTER_WATERMARK)
+    long countUnreadAfterWatermark(@Param("user") User user,
+                                   @Param("lastReadAt") LocalDateTime lastReadAt,
+                                   @Param("lastReadId") Long lastReadId);
+
+    Optional<Notification> findFirstByUserOrderByCreatedAtDescIdDesc(User user);
+
+    boolean existsBySourceEventId(Long sourceEventId);
+
+    @Query("SELECT n.user.id FROM Notification n WHERE n.sourceEventId = :eventId AND n.user.id IN :userIds")
+    List<Long> findRecipientIdsBySourceEventId(@Param("eventId") Long eventId,
+                                               @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Which of {@code userIds} already have a notification of this type for the
+     * post; looked up per recipient through idx_user_created.
+     */
+    @Query("SELECT n.user.id FROM Notification n " +
+            "WHERE n.user.id IN :userIds AND n.post.id = :postId AND n.type = :type")
+    List<Long> findRecipientIdsByPostAndType(@Param("postId") Long postId,
+                                             @Param("type") Notification.NotificationType type,
+                                             @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * The oldest expired notifications of a type. Walks idx_type_created in
+     * order, so each batch stops after {@code pageable} rows instead of
+     * sorting everything past the cutoff.
+     */
+    @Query("SELECT n.id FROM Notification n WHERE n.type = :type AND n.createdAt < :cutoff " +
+            "ORDER BY n.createdAt")
+    List<Long> findIdsOlderThan(@Param("type") Notification.NotificationType type,
+                                @Param("cutoff") LocalDateTime cutoff,
+                                Pageable pageable);
 
     @Modifying
     @Query("UPDATE Notification n SET n.read = true WHERE n.id = :id AND n.user = :user")
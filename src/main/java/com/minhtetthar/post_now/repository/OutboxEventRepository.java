@@ -0,0 +1,93 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Pending events that are due, plus processing events whose lease expired
+     * (the worker that claimed them crashed or timed out).
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status IN :statuses AND e.availableAt <= :now ORDER BY e.id")
+    List<Long> findDueIds(@Param("statuses") List<OutboxEvent.Status> statuses,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * Claim an event for processing. Returns 0 if another relay got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :processing, e.availableAt = :leaseUntil, " +
+            "e.attempts = e.attempts + 1 " +
+            "WHERE e.id = :id AND e.status IN :statuses AND e.availableAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("statuses") List<OutboxEvent.Status> statuses,
+              @Param("processing") OutboxEvent.Status processing,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    /**
+     * Hand a claimed event back without counting the attempt, e.g. when the
+     * executor that should run it is saturated.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :pending, e.availableAt = :now, e.attempts = e.attempts - 1 " +
+            "WHERE e.id = :id")
+    int release(@Param("id") Long id,
+                @Param("pending") OutboxEvent.Status pending,
+                @Param("now") LocalDateTime now);
+
+    /**
+     * Record the outcome of a claimed event. Matches only while the claim is
+     * still this worker's: once the lease expired and another relay claimed the
+     * event again, attempts moved on and this returns 0.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.availableAt = :availableAt, " +
+            "e.processedAt = :processedAt, e.lastError = :lastError " +
+            "WHERE e.id = :id AND e.status = :processing AND e.attempts = :attempts")
+    int finish(@Param("id") Long id,
+               @Param("attempts") int attempts,
+               @Param("processing") OutboxEvent.Status processing,
+               @Param("status") OutboxEvent.Status status,
+               @Param("availableAt") LocalDateTime availableAt,
+               @Param("processedAt") LocalDateTime processedAt,
+               @Param("lastError") String lastError);
+
+    /**
+     * Push the lease of a claimed event further out. Commits on its own, so a
+     * handler can call it between pages of a long transaction. Returns 0 when
+     * the claim was lost.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.availableAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.status = :processing AND e.attempts = :attempts")
+    int extendLease(@Param("id") Long id,
+                    @Param("attempts") int attempts,
+                    @Param("processing") OutboxEvent.Status processing,
+                    @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByStatus(OutboxEvent.Status status);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :cutoff")
+    int deleteByStatusAndProcessedAtBefore(@Param("status") OutboxEvent.Status status,
+                                           @Param("cutoff") LocalDateTime cutoff);
+}
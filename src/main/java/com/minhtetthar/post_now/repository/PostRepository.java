@@ -5,10 +5,15 @@ import com.minhtetthar.post_now.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,6 +21,26 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 
     Page<Post> findByActiveTrue(Pageable pageable);
 
+    long countByActiveTrue();
+
+    /**
+     * Keyset pagination over active posts, for rebuilding the search index.
+     */
+    List<Post> findByActiveTrueAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    /**
+     * Posts inserted or updated after the (changedAt, id) position, active or
+     * not, oldest change first. Keyset pagination for catching up the search index.
+     */
+    @Query("SELECT p FROM Post p WHERE p.changedAt > :since OR (p.changedAt = :since AND p.id > :afterId) " +
+            "ORDER BY p.changedAt, p.id")
+    List<Post> findChangedAfter(@Param("since") LocalDateTime since,
+                                @Param("afterId") Long afterId,
+                                Pageable pageable);
+
+    @Query("SELECT max(p.changedAt) FROM Post p")
+    Optional<LocalDateTime> findLastChangedAt();
+
     @Query("SELECT p FROM Post p WHERE p.active = true AND p.type = 'PUBLIC' ORDER BY p.createdAt DESC")
     Page<Post> findPublicPosts(Pageable pageable);
 
@@ -30,6 +55,46 @@ public interface PostRepository extends JpaRepository<Post, Long> {
             "LOWER(p.content) LIKE LOWER(CONCAT('%', :search, '%'))) ORDER BY p.createdAt DESC")
     Page<Post> findBySearchTerm(@Param("search") String search, Pageable pageable);
 
+    /**
+     * Postgres only: matches through the GIN-indexed search_vector column (see
+     * db/postgres/posts-search-migration.sql), best ranked first. The search
+     * term uses web search syntax: quoted phrases, "or", and "-" to exclude
+     * words. The pageable must be unsorted.
+     */
+    @Query(value = "SELECT p.* FROM posts p " +
+            "WHERE p.active = true AND p.search_vector @@ websearch_to_tsquery('english', :search) " +
+            "ORDER BY ts_rank_cd(p.search_vector, websearch_to_tsquery('english', :search)) DESC, p.created_at DESC",
+            countQuery = "SELECT count(*) FROM posts p " +
+                    "WHERE p.active = true AND p.search_vector @@ websearch_to_tsquery('english', :search)",
+            nativeQuery = true)
+    Page<Post> findByFullTextSearch(@Param("search") String search, Pageable pageable);
+
+    /**
+     * Store generated variants, unless the post's image changed in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Post p SET p.thumbnailUrl = :thumbnailUrl, p.displayImageUrl = :displayImageUrl " +
+            "WHERE p.id = :id AND p.imageUrl = :imageUrl")
+    int updateImageVariants(@Param("id") Long id,
+                            @Param("imageUrl") String imageUrl,
+                            @Param("thumbnailUrl") String thumbnailUrl,
+                            @Param("displayImageUrl") String displayImageUrl);
+
+    /**
+     * Another post using the same (content-addressed) image whose variants are done.
+     */
+    Optional<Post> findFirstByImageUrlAndThumbnailUrlIsNotNull(String imageUrl);
+
     @Query("SELECT p FROM Post p WHERE p.id = :id AND p.active = true")
     Optional<Post> findActivePostById(@Param("id") Long id);
+
+    /**
+     * Images still in use; those of deleted posts are left to the orphan collector.
+     */
+    @Query("SELECT DISTINCT p.imageUrl FROM Post p WHERE p.active = true AND p.imageUrl IS NOT NULL")
+    List<String> findActiveImageUrls();
+
+    @Query("SELECT DISTINCT p.imageUrl FROM Post p WHERE p.active = true AND p.imageUrl IN :imageUrls")
+    List<String> findActiveImageUrlsIn(@Param("imageUrls") Collection<String> imageUrls);
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.PostTag;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PostTagRepository extends JpaRepository<PostTag, Long> {
+
+    /**
+     * Newest public posts carrying {@code tag}, read along idx_post_tags_tag_created.
+     */
+    @Query(value = "SELECT p FROM PostTag t JOIN t.post p " +
+            "WHERE t.tag = :tag AND p.active = true AND p.type = 'PUBLIC' " +
+            "ORDER BY t.createdAt DESC, t.post.id DESC",
+            countQuery = "SELECT count(t) FROM PostTag t JOIN t.post p " +
+                    "WHERE t.tag = :tag AND p.active = true AND p.type = 'PUBLIC'")
+    Page<Post> findPublicPostsByTag(@Param("tag") String tag, Pageable pageable);
+
+    @Query("SELECT t.tag FROM PostTag t WHERE t.post.id = :postId")
+    List<String> findTagsByPostId(@Param("postId") Long postId);
+
+    @Modifying
+    @Query("DELETE FROM PostTag t WHERE t.post.id = :postId AND t.tag IN :tags")
+    int deleteByPostIdAndTagIn(@Param("postId") Long postId, @Param("tags") Collection<String> tags);
+
+    @Modifying
+    @Query("DELETE FROM PostTag t WHERE t.post.id = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+}
@@ -0,0 +1,28 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.entity.StoredObject;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+
+    /**
+     * Row lock that serializes reference changes and deletion of one object.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM StoredObject o WHERE o.objectKey = :key")
+    Optional<StoredObject> findForUpdate(@Param("key") String key);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM StoredObject o WHERE o.objectKey IN :keys")
+    List<StoredObject> findAllForUpdate(@Param("keys") Collection<String> keys);
+}
@@ -1,22 +1,52 @@
 package com.minhtetthar.post_now.repository;
 
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
 import com.minhtetthar.post_now.entity.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Text covered by idx_users_search_trgm (db/postgres/users-trigram.sql).
+     */
+    String TRIGRAM_TEXT = "lower(u.username || ' ' || coalesce(u.first_name, '') || ' ' || coalesce(u.last_name, ''))";
+
     Optional<User> findByUsername(String username);
 
     Optional<User> findByEmail(String email);
 
+    List<User> findByUsernameIn(Collection<String> usernames);
+
+    /**
+     * Users whose username, lowercased, is one of {@code usernames}, which
+     * must be lowercase. Served by idx_users_username_lower on Postgres
+     * (db/postgres/users-trigram.sql).
+     */
+    @Query("SELECT u FROM User u WHERE LOWER(u.username) IN :usernames")
+    List<User> findByUsernameLowerIn(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Usernames never change and users are only disabled, never deleted, so
+     * a resolved id stays valid. Unknown names are not cached, since they may
+     * be registered later.
+     */
+    @Cacheable(value = "userIds", unless = "#result == null")
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
@@ -26,4 +56,77 @@ public interface UserRepository extends JpaRepository<User, Long> {
             "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
             "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')))")
     Page<User> findBySearchTerm(@Param("search") String search, Pageable pageable);
+
+    /**
+     * Substring or similar-word matches through the pg_trgm index (Postgres only),
+     * most similar first.
+     */
+    @Query(value = "SELECT u.* FROM users u WHERE u.enabled = true AND (" +
+            TRIGRAM_TEXT + " LIKE '%' || lower(:search) || '%' OR lower(:search) <% " + TRIGRAM_TEXT + ") " +
+            "ORDER BY word_similarity(lower(:search), " + TRIGRAM_TEXT + ") DESC, u.id",
+            countQuery = "SELECT count(*) FROM users u WHERE u.enabled = true AND (" +
+                    TRIGRAM_TEXT + " LIKE '%' || lower(:search) || '%' OR lower(:search) <% " + TRIGRAM_TEXT + ")",
+            nativeQuery = true)
+    Page<User> findByTrigramSearch(@Param("search") String search, Pageable pageable);
+
+    /**
+     * Keyset pagination over enabled users with their follower counts, for
+     * building the autocomplete index.
+     */
+    @Query("SELECT new com.minhtetthar.post_now.dto.user.UserIndexRow(u.id, u.username, u.firstName, u.lastName, u.followerCount) " +
+            "FROM User u WHERE u.enabled = true AND u.id > :afterId ORDER BY u.id")
+    List<UserIndexRow> findIndexRowsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = u.followerCount + :delta WHERE u.id = :id")
+    int adjustFollowerCount(@Param("id") Long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = u.followingCount + :delta WHERE u.id = :id")
+    int adjustFollowingCount(@Param("id") Long id, @Param("delta") long delta);
+
+    boolean existsByFollowerCountGreaterThan(long followerCount);
+
+    @Query("SELECT COALESCE(MAX(u.id), 0) FROM User u")
+    long findMaxId();
+
+    /**
+     * Recount followers of users with ids in (fromId, toId], writing only counts that drifted.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.followerCount = (SELECT COUNT(f) FROM Follow f WHERE f.following.id = u.id) " +
+            "WHERE u.id > :fromId AND u.id <= :toId " +
+            "AND u.followerCount <> (SELECT COUNT(f) FROM Follow f WHERE f.following.id = u.id)")
+    int reconcileFollowerCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Modifying
+    @Query("UPDATE User u SET u.followingCount = (SELECT COUNT(f) FROM Follow f WHERE f.follower.id = u.id) " +
+            "WHERE u.id > :fromId AND u.id <= :toId " +
+            "AND u.followingCount <> (SELECT COUNT(f) FROM Follow f WHERE f.follower.id = u.id)")
+    int reconcileFollowingCounts(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    /**
+     * Store a generated avatar, unless the profile image changed in the meantime.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.avatarUrl = :avatarUrl WHERE u.id = :id AND u.profileImage = :profileImage")
+    int updateAvatar(@Param("id") Long id,
+                     @Param("profileImage") String profileImage,
+                     @Param("avatarUrl") String avatarUrl);
+
+    /**
+     * Another user with the same (content-addressed) profile image whose avatar is done.
+     */
+    Optional<User> findFirstByProfileImageAndAvatarUrlIsNotNull(String profileImage);
+
+    /**
+     * Profile images of all users, enabled or not: a disabled account can be
+     * enabled again and keeps its image.
+     */
+    @Query("SELECT DISTINCT u.profileImage FROM User u WHERE u.profileImage IS NOT NULL")
+    List<String> findProfileImages();
+
+    @Query("SELECT DISTINCT u.profileImage FROM User u WHERE u.profileImage IN :profileImages")
+    List<String> findProfileImagesIn(@Param("profileImages") Collection<String> profileImages);
 }
\ No newline at end of file
@@ -24,6 +24,7 @@ public class CommentService {
     private final PostRepository postRepository;
     private final CommentMapper commentMapper;
     private final UserService userService;
+    private final OutboxService outboxService;
 
     public Page<CommentDto> getCommentsByPostId(Long postId, Pageable pageable) {
         Post post = postRepository.findById(postId)
@@ -52,6 +53,8 @@ public class CommentService {
         comment.setAuthor(author);
         comment = commentRepository.save(comment);
 
+        outboxService.publishNewComment(author.getId(), post.getId(), comment.getId());
+
         return commentMapper.toDto(comment);
     }
 
@@ -71,12 +74,4 @@ public class CommentService {
         comment.setActive(false);
         commentRepository.save(comment);
     }
-
-    public Comment getCommentEntity(Long id) {
-        Comment comment = commentRepository.findActiveCommentById(id);
-        if (comment == null) {
-            throw new RuntimeException("Comment not found with id: " + id);
-        }
-        return comment;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.EmailDigestProperties;
+import com.minhtetthar.post_now.entity.EmailDigestEntry;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.EmailDigestEntryRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.email.EmailDeliveryReport;
+import com.minhtetthar.post_now.service.email.EmailDigest;
+import com.minhtetthar.post_now.service.email.OutgoingEmail;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Collects new posts per recipient and sends one summary email per recipient
+ * on their chosen schedule, instead of one email per post.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDigestService {
+
+    private final EmailDigestEntryRepository digestEntryRepository;
+    private final UserRepository userRepository;
+    private final EmailService emailService;
+    private final EmailDigestProperties properties;
+
+    // One guard per frequency, so the hourly and daily runs can overlap
+    private final Map<User.EmailFrequency, AtomicBoolean> running = runningFlags();
+
+    /**
+     * Queue a post for the given recipients' next digest. Recipients that
+     * already have it queued (redelivered outbox event) are skipped.
+     */
+    @Transactional
+    public int enqueue(Post post, List<Long> recipientIds) {
+        if (recipientIds.isEmpty()) {
+            return 0;
+        }
+        Set<Long> alreadyQueued = new HashSet<>(digestEntryRepository.findRecipientIdsByPostId(post.getId(), recipientIds));
+
+        List<EmailDigestEntry> entries = new ArrayList<>(recipientIds.size());
+        for (Long recipientId : recipientIds) {
+            if (alreadyQueued.add(recipientId)) {
+                EmailDigestEntry entry = new EmailDigestEntry();
+                entry.setRecipientId(recipientId);
+                entry.setPost(post);
+                entries.add(entry);
+            }
+        }
+        digestEntryRepository.saveAll(entries);
+        return entries.size();
+    }
+
+    /**
+     * Hourly run also flushes entries of users who switched to immediate
+     * delivery after they were queued.
+     */
+    @Scheduled(cron = "${email.digest.hourly-cron:0 0 * * * *}")
+    public void sendHourlyDigests() {
+        if (properties.isEnabled()) {
+            sendDigests(EnumSet.of(User.EmailFrequency.HOURLY, User.EmailFrequency.IMMEDIATE));
+        }
+    }
+
+    @Scheduled(cron = "${email.digest.daily-cron:0 0 8 * * *}")
+    public void sendDailyDigests() {
+        if (properties.isEnabled()) {
+            sendDigests(EnumSet.of(User.EmailFrequency.DAILY));
+        }
+    }
+
+    /**
+     * Send digests to every recipient with pending entries and one of the given
+     * frequencies. Returns the number of digests sent.
+     */
+    public int sendDigests(Set<User.EmailFrequency> frequencies) {
+        Set<User.EmailFrequency> claimed = EnumSet.noneOf(User.EmailFrequency.class);
+        for (User.EmailFrequency frequency : frequencies) {
+            if (running.get(frequency).compareAndSet(false, true)) {
+                claimed.add(frequency);
+            }
+        }
+        if (claimed.size() < frequencies.size()) {
+            log.info("Digest run already in progress for some of {}, sending only {}", frequencies, claimed);
+        }
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        try {
+            int digests = 0;
+            long afterId = 0;
+            while (true) {
+                List<Long> recipientIds = digestEntryRepository.findPendingRecipientIds(
+                        claimed, afterId, PageRequest.of(0, properties.getRecipientsPerBatch()));
+                if (recipientIds.isEmpty()) {
+                    break;
+                }
+                digests += sendBatch(recipientIds);
+                afterId = recipientIds.get(recipientIds.size() - 1);
+            }
+            log.info("Sent {} digest emails for {}", digests, claimed);
+            return digests;
+        } finally {
+            claimed.forEach(frequency -> running.get(frequency).set(false));
+        }
+    }
+
+    private int sendBatch(List<Long> recipientIds) {
+        List<EmailDigestEntry> entries = digestEntryRepository.findWithPostsByRecipientIdIn(recipientIds);
+        Map<Long, User> recipients = userRepository.findAllById(recipientIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        // Entries arrive grouped by recipient, newest first
+        Map<Long, List<Post>> postsByRecipient = new LinkedHashMap<>();
+        for (EmailDigestEntry entry : entries) {
+            if (Boolean.TRUE.equals(entry.getPost().getActive())) {
+                postsByRecipient.computeIfAbsent(entry.getRecipientId(), id -> new ArrayList<>()).add(entry.getPost());
+            }
+        }
+
+        List<EmailDigest> digests = new ArrayList<>(postsByRecipient.size());
+        postsByRecipient.forEach((recipientId, posts) -> {
+            User recipient = recipients.get(recipientId);
+            if (recipient != null && recipient.isEnabled()) {
+                int shown = Math.min(posts.size(), properties.getMaxPostsPerDigest());
+                digests.add(new EmailDigest(recipient, posts.subList(0, shown), posts.size()));
+            }
+        });
+
+        EmailDeliveryReport report = emailService.sendDigestEmails(digests);
+
+        // Only the loaded entries, and none of recipients whose digest failed:
+        // they are sent again in the next run. Posts queued meanwhile go out then too.
+        Set<Long> failed = report.getFailedEmails().stream()
+                .map(OutgoingEmail::getRecipientId)
+                .collect(Collectors.toSet());
+        digestEntryRepository.deleteAllByIdInBatch(entries.stream()
+                .filter(entry -> !failed.contains(entry.getRecipientId()))
+                .map(EmailDigestEntry::getId)
+                .toList());
+        return report.getSent();
+    }
+
+    private static Map<User.EmailFrequency, AtomicBoolean> runningFlags() {
+        Map<User.EmailFrequency, AtomicBoolean> flags = new EnumMap<>(User.EmailFrequency.class);
+        for (User.EmailFrequency frequency : User.EmailFrequency.values()) {
+            flags.put(frequency, new AtomicBoolean(false));
+        }
+        return flags;
+    }
+}
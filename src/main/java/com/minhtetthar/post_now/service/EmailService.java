@@ -1,164 +1,144 @@
 package com.minhtetthar.post_now.service;
 
+import com.minhtetthar.post_now.dto.follow.FollowerRecipient;
 import com.minhtetthar.post_now.entity.Post;
 import com.minhtetthar.post_now.entity.User;
-import com.resend.Resend;
-import com.resend.core.exception.ResendException;
-import com.resend.services.emails.model.CreateEmailOptions;
-import com.resend.services.emails.model.CreateEmailResponse;
+import com.minhtetthar.post_now.service.email.EmailDeliveryEngine;
+import com.minhtetthar.post_now.service.email.EmailDeliveryReport;
+import com.minhtetthar.post_now.service.email.EmailDigest;
+import com.minhtetthar.post_now.service.email.EmailTemplate;
+import com.minhtetthar.post_now.service.email.EmailTemplateRegistry;
+import com.minhtetthar.post_now.service.email.OutgoingEmail;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class EmailService {
 
-    private final Resend resendClient;
-    private final String fromEmail;
+    private static final String BASE_URL = "http://localhost:8090";
+
+    private final EmailDeliveryEngine deliveryEngine;
+    private final EmailTemplate newPostTemplate;
+    private final EmailTemplate digestTemplate;
+    private final EmailTemplate digestPostTemplate;
+    private final String redirectTo;
 
     public EmailService(
-            @Value("${resend.api-key}") String apiKey,
-            @Value("${resend.from-email}") String fromEmail) {
-        this.resendClient = new Resend(apiKey);
-        this.fromEmail = fromEmail;
-        log.info("Email service initialized with from address: {}", fromEmail);
+            EmailDeliveryEngine deliveryEngine,
+            EmailTemplateRegistry templates,
+            @Value("${email.redirect-to:}") String redirectTo) {
+        this.deliveryEngine = deliveryEngine;
+        this.newPostTemplate = templates.get("new-post");
+        this.digestTemplate = templates.get("digest");
+        this.digestPostTemplate = templates.get("digest-post");
+        this.redirectTo = redirectTo;
+        if (!redirectTo.isBlank()) {
+            log.info("All outgoing emails are redirected to {}", redirectTo);
+        }
     }
 
-    @Async
-    public void sendNewPostEmails(User author, Post post, List<User> followers) {
+    public EmailDeliveryReport sendNewPostEmails(User author, Post post, List<FollowerRecipient> followers,
+                                                 Long sourceEventId) {
         if (followers.isEmpty()) {
-            log.info("No followers to notify for new post from {}", author.getUsername());
-            return;
+            return new EmailDeliveryReport();
         }
 
         log.info("Sending new post notification emails to {} followers", followers.size());
 
         String subject = author.getUsername() + " posted something new!";
-        String postTitle = post.getTitle() != null && !post.getTitle().isEmpty()
-                ? post.getTitle()
-                : "Untitled";
-
-        for (User follower : followers) {
-            try {
-                String htmlContent = buildNewPostEmailHtml(author, post, follower, postTitle);
-
-                CreateEmailOptions email = CreateEmailOptions.builder()
-                        .from(fromEmail)
-                        // .to(follower.getEmail())
-                        .to("minhtettharutycc@gmail.com")
-                        .subject(subject)
-                        .html(htmlContent)
-                        .build();
-
-                CreateEmailResponse response = resendClient.emails().send(email);
-                log.info("Email sent to {}: {}", follower.getEmail(), response.getId());
-
-            } catch (ResendException e) {
-                log.error("Failed to send email to {}: {}", follower.getEmail(), e.getMessage(), e);
-            } catch (Exception e) {
-                log.error("Unexpected error sending email to {}: {}", follower.getEmail(), e.getMessage(), e);
+
+        // Everything but the recipient's name is the same for all followers
+        EmailTemplate postTemplate = newPostTemplate.bind(Map.of(
+                "authorName", author.getUsername(),
+                "postTitle", postTitle(post),
+                "postExcerpt", truncateContent(post.getContent(), 200),
+                "postUrl", BASE_URL + "/api/posts/" + post.getId(),
+                "profileUrl", BASE_URL + "/api/users/" + author.getUsername()));
+
+        StringBuilder buffer = new StringBuilder(postTemplate.getStaticLength() + 64);
+        Map<String, String> recipientValues = new HashMap<>(2);
+        List<OutgoingEmail> emails = new ArrayList<>(followers.size());
+        for (FollowerRecipient follower : followers) {
+            buffer.setLength(0);
+            recipientValues.put("recipientName", follower.getUsername());
+            postTemplate.render(recipientValues, buffer);
+
+            emails.add(OutgoingEmail.builder()
+                    .recipientId(follower.getId())
+                    .sourceEventId(sourceEventId)
+                    .to(redirectTo.isBlank() ? follower.getEmail() : redirectTo)
+                    .subject(subject)
+                    .html(buffer.toString())
+                    .build());
+        }
+
+        EmailDeliveryReport report = deliveryEngine.deliver(emails);
+        log.info("New post emails for post {}: {} sent, {} failed in {} provider requests",
+                post.getId(), report.getSent(), report.getFailed(), report.getRequests());
+        return report;
+    }
+
+    public EmailDeliveryReport sendDigestEmails(List<EmailDigest> digests) {
+        if (digests.isEmpty()) {
+            return new EmailDeliveryReport();
+        }
+
+        // Digests in a batch share most posts; render each post block once
+        Map<Long, String> renderedPosts = new HashMap<>();
+        StringBuilder posts = new StringBuilder();
+        StringBuilder buffer = new StringBuilder(digestTemplate.getStaticLength() + 4096);
+        Map<String, String> values = new HashMap<>(4);
+
+        List<OutgoingEmail> emails = new ArrayList<>(digests.size());
+        for (EmailDigest digest : digests) {
+            User recipient = digest.getRecipient();
+
+            posts.setLength(0);
+            for (Post post : digest.getPosts()) {
+                posts.append(renderedPosts.computeIfAbsent(post.getId(), id -> renderDigestPost(post)));
             }
+            int remaining = digest.getTotalPosts() - digest.getPosts().size();
+
+            values.put("recipientName", recipient.getUsername());
+            values.put("posts", posts.toString());
+            values.put("more", remaining > 0 ? "<p>...and " + remaining + " more.</p>" : "");
+            buffer.setLength(0);
+            digestTemplate.render(values, buffer);
+
+            String subject = digest.getTotalPosts() == 1
+                    ? "1 new post from people you follow"
+                    : digest.getTotalPosts() + " new posts from people you follow";
+            emails.add(OutgoingEmail.builder()
+                    .recipientId(recipient.getId())
+                    .to(redirectTo.isBlank() ? recipient.getEmail() : redirectTo)
+                    .subject(subject)
+                    .html(buffer.toString())
+                    .build());
         }
+
+        EmailDeliveryReport report = deliveryEngine.deliver(emails);
+        log.info("Digest emails: {} sent, {} failed in {} provider requests",
+                report.getSent(), report.getFailed(), report.getRequests());
+        return report;
+    }
+
+    private String renderDigestPost(Post post) {
+        return digestPostTemplate.render(Map.of(
+                "postUrl", BASE_URL + "/api/posts/" + post.getId(),
+                "postTitle", postTitle(post),
+                "authorName", post.getAuthor().getUsername(),
+                "postExcerpt", truncateContent(post.getContent(), 140)));
     }
 
-    private String buildNewPostEmailHtml(User author, Post post, User follower, String postTitle) {
-        String postUrl = "http://localhost:8090/api/posts/" + post.getId();
-        String profileUrl = "http://localhost:8090/api/users/" + author.getUsername();
-
-        return """
-                <!DOCTYPE html>
-                <html>
-                <head>
-                    <meta charset="UTF-8">
-                    <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                    <style>
-                        body {
-                            font-family: Arial, sans-serif;
-                            line-height: 1.6;
-                            color: #333;
-                            max-width: 600px;
-                            margin: 0 auto;
-                            padding: 20px;
-                        }
-                        .header {
-                            background-color: #4CAF50;
-                            color: white;
-                            padding: 20px;
-                            text-align: center;
-                            border-radius: 5px 5px 0 0;
-                        }
-                        .content {
-                            background-color: #f9f9f9;
-                            padding: 20px;
-                            border: 1px solid #ddd;
-                        }
-                        .post-title {
-                            font-size: 20px;
-                            font-weight: bold;
-                            margin: 15px 0;
-                            color: #2c3e50;
-                        }
-                        .post-content {
-                            margin: 15px 0;
-                            padding: 15px;
-                            background-color: white;
-                            border-left: 4px solid #4CAF50;
-                        }
-                        .button {
-                            display: inline-block;
-                            padding: 12px 24px;
-                            background-color: #4CAF50;
-                            color: white;
-                            text-decoration: none;
-                            border-radius: 4px;
-                            margin: 15px 0;
-                        }
-                        .footer {
-                            margin-top: 20px;
-                            text-align: center;
-                            font-size: 12px;
-                            color: #666;
-                        }
-                    </style>
-                </head>
-                <body>
-                    <div class="header">
-                        <h1>New Post from %s</h1>
-                    </div>
-                    <div class="content">
-                        <p>Hi %s,</p>
-                        <p>%s just posted something new:</p>
-
-                        <div class="post-title">%s</div>
-
-                        <div class="post-content">
-                            %s
-                        </div>
-
-                        <a href="%s" class="button">View Post</a>
-
-                        <p>Keep up with <a href="%s">%s</a> on PostNow!</p>
-                    </div>
-                    <div class="footer">
-                        <p>You're receiving this email because you follow %s on PostNow.</p>
-                        <p>PostNow &copy; 2026</p>
-                    </div>
-                </body>
-                </html>
-                """.formatted(
-                author.getUsername(),
-                follower.getUsername(),
-                author.getUsername(),
-                postTitle,
-                truncateContent(post.getContent(), 200),
-                postUrl,
-                profileUrl,
-                author.getUsername(),
-                author.getUsername());
+    private String postTitle(Post post) {
+        return post.getTitle() != null && !post.getTitle().isEmpty() ? post.getTitle() : "Untitled";
     }
 
     private String truncateContent(String content, int maxLength) {
@@ -1,33 +1,75 @@
 package com.minhtetthar.post_now.service;
 
-import com.minhtetthar.post_now.config.R2Config;
-import com.minhtetthar.post_now.exception.FileUploadException;
+import com.minhtetthar.post_now.config.AsyncConfig;
+import com.minhtetthar.post_now.config.StorageProperties;
+import com.minhtetthar.post_now.dto.storage.PresignedUploadDto;
+import com.minhtetthar.post_now.dto.storage.UploadedImage;
+import com.minhtetthar.post_now.entity.StoredObject;
 import com.minhtetthar.post_now.exception.FileSizeLimitExceededException;
+import com.minhtetthar.post_now.exception.FileUploadException;
 import com.minhtetthar.post_now.exception.InvalidFileTypeException;
-import lombok.RequiredArgsConstructor;
+import com.minhtetthar.post_now.exception.StorageBusyException;
+import com.minhtetthar.post_now.exception.StorageException;
+import com.minhtetthar.post_now.repository.StoredObjectRepository;
+import com.minhtetthar.post_now.service.storage.StorageBackend;
+import com.minhtetthar.post_now.service.storage.StorageDiskCache;
+import com.minhtetthar.post_now.service.storage.StoredObjectInfo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.*;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
 
-    private final S3Client s3Client;
-    private final R2Config r2Config;
+    private final StorageBackend storageBackend;
+    private final StorageDiskCache diskCache;
+    private final ThreadPoolTaskExecutor uploadExecutor;
+    private final StorageProperties.Upload uploadProperties;
+    private final StorageProperties.Presign presignProperties;
+    private final Semaphore uploadPermits;
+    private final StoredObjectRepository storedObjectRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter deduplicatedCounter;
+    private final SecretKeySpec keySecret;
 
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final int MAGIC_BYTES_LENGTH = 12;
+    private static final int DELETION_WAIT_ATTEMPTS = 20;
+    private static final long DELETION_WAIT_MILLIS = 100;
+    private static final Duration STALE_DELETION = Duration.ofMinutes(1);
     private static final List<String> ALLOWED_CONTENT_TYPES = Arrays.asList(
             "image/jpeg",
             "image/png",
@@ -35,55 +77,408 @@ public class FileStorageService {
             "image/webp");
     private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList(
             "jpg", "jpeg", "png", "gif", "webp");
+    public static final String VARIANT_AVATAR = "avatar";
+    public static final String VARIANT_THUMBNAIL = "thumb";
+    public static final String VARIANT_FULL = "full";
+    private static final List<String> VARIANTS = List.of(VARIANT_AVATAR, VARIANT_THUMBNAIL, VARIANT_FULL);
+    private static final List<String> VARIANT_EXTENSIONS = List.of("jpg", "png");
+    private static final Map<String, String> EXTENSION_BY_CONTENT_TYPE = Map.of(
+            "image/jpeg", "jpg",
+            "image/png", "png",
+            "image/gif", "gif",
+            "image/webp", "webp");
+    private static final Map<String, String> CONTENT_TYPE_BY_EXTENSION = Map.of(
+            "jpg", "image/jpeg",
+            "jpeg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp");
+
+    public FileStorageService(StorageBackend storageBackend,
+                              StorageDiskCache diskCache,
+                              @Qualifier(AsyncConfig.UPLOAD_EXECUTOR) ThreadPoolTaskExecutor uploadExecutor,
+                              StorageProperties storageProperties,
+                              StoredObjectRepository storedObjectRepository,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.diskCache = diskCache;
+        this.uploadExecutor = uploadExecutor;
+        this.uploadProperties = storageProperties.getUpload();
+        this.presignProperties = storageProperties.getPresign();
+        this.uploadPermits = new Semaphore(uploadProperties.getMaxConcurrent());
+        this.storedObjectRepository = storedObjectRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.deduplicatedCounter = Counter.builder("storage.upload.deduplicated")
+                .description("Uploads skipped because identical content was already stored")
+                .register(meterRegistry);
+
+        String secret = uploadProperties.getKeySecret();
+        byte[] secretBytes;
+        if (secret == null || secret.isBlank()) {
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+            log.warn("storage.upload.key-secret is not set, identical uploads are only deduplicated until restart");
+        } else {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.keySecret = new SecretKeySpec(secretBytes, "HmacSHA256");
+    }
 
     /**
-     * Upload an image file to Cloudflare R2
+     * Upload an image file to the storage backend.
+     * <p>
+     * Metadata is checked on the calling thread; the rest runs on the upload
+     * executor. A first pass over the (local, spooled) multipart file checks
+     * the image magic numbers and computes its SHA-256. The key is
+     * folder/ownerId/mac.ext, where mac is keyed with storage.upload.key-secret
+     * over the hash: the same owner uploading the same image gets the same key,
+     * while keys reveal nothing about the content and cannot be used to check
+     * whether someone else stored an image. If an object with that key is
+     * already referenced, its reference count is incremented and nothing is
+     * sent. Otherwise the file is streamed to the backend. The file is never
+     * held in memory as a whole.
      *
-     * @param file   The multipart file to upload
-     * @param folder The folder/prefix in the bucket (e.g., "profiles" or "posts")
-     * @return The public URL of the uploaded image
+     * @param file    The multipart file to upload
+     * @param folder  The folder/prefix in the bucket (e.g., "profiles" or "posts")
+     * @param ownerId The uploading user
+     * @return The stored image, completing once storage has accepted it
+     * @throws StorageBusyException if all upload slots stay taken for acquire-timeout
      */
-    public String uploadImage(MultipartFile file, String folder) {
+    public CompletableFuture<UploadedImage> uploadImage(MultipartFile file, String folder, Long ownerId) {
         log.info("Starting image upload to folder: {}", folder);
         validateFile(file);
 
-        String fileName = generateFileName(file, folder);
-        String contentType = file.getContentType();
+        acquireUploadPermit();
+        try {
+            return CompletableFuture
+                    .supplyAsync(() -> storeContentAddressed(file, folder, ownerId), uploadExecutor)
+                    .whenComplete((image, error) -> uploadPermits.release());
+        } catch (RejectedExecutionException e) {
+            uploadPermits.release();
+            throw new StorageBusyException("Too many uploads in progress, please retry shortly");
+        }
+    }
 
-        log.debug("Uploading file: {} with content type: {}", fileName, contentType);
+    private void acquireUploadPermit() {
+        try {
+            if (!uploadPermits.tryAcquire(uploadProperties.getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new StorageBusyException("Too many uploads in progress, please retry shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageBusyException("Interrupted while waiting for an upload slot");
+        }
+    }
+
+    private UploadedImage storeContentAddressed(MultipartFile file, String folder, Long ownerId) {
+        String contentType = file.getContentType().toLowerCase();
+        String sha256 = hashImage(file);
+        String fileName = ownerPrefix(folder, ownerId) + contentKey(sha256) + "."
+                + EXTENSION_BY_CONTENT_TYPE.get(contentType);
+        String publicUrl = constructPublicUrl(fileName);
+
+        if (acquireReference(fileName, sha256, file.getSize(), contentType)) {
+            deduplicatedCounter.increment();
+            log.info("File {} already stored, skipped upload of {} bytes", fileName, file.getSize());
+            return new UploadedImage(fileName, publicUrl, file.getSize(), contentType, sha256);
+        }
+
+        try {
+            streamToStorage(file, fileName, contentType);
+        } catch (RuntimeException e) {
+            // Give back the reference taken for this upload; there is no object to delete
+            transactionTemplate.executeWithoutResult(status -> storedObjectRepository.findForUpdate(fileName)
+                    .ifPresent(stored -> {
+                        stored.setRefCount(stored.getRefCount() - 1);
+                        if (stored.getRefCount() <= 0) {
+                            storedObjectRepository.delete(stored);
+                        }
+                    }));
+            throw e;
+        }
+
+        log.info("Successfully uploaded file: {} ({} bytes) to storage with URL: {}",
+                fileName, file.getSize(), publicUrl);
+        return new UploadedImage(fileName, publicUrl, file.getSize(), contentType, sha256);
+    }
+
+    /**
+     * Check the magic bytes and compute the SHA-256 of the content in one read.
+     */
+    private String hashImage(MultipartFile file) {
+        try (InputStream input = file.getInputStream()) {
+            byte[] header = input.readNBytes(MAGIC_BYTES_LENGTH);
+            if (header.length < 2) {
+                throw new InvalidFileTypeException("File is too small or corrupted");
+            }
+            if (!isValidImageMagicBytes(header)) {
+                throw new InvalidFileTypeException("File content does not match declared image type");
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(header);
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (IOException e) {
+            log.error("Failed to read file input stream", e);
+            throw new FileUploadException("Failed to read file", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Name for content with this digest: a MAC of the digest, so the key is
+     * stable for the same content but cannot be derived from it without the
+     * secret.
+     */
+    private String contentKey(String sha256) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(keySecret);
+            return HexFormat.of().formatHex(mac.doFinal(sha256.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
 
-        try (InputStream inputStream = file.getInputStream()) {
-            PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-                    .bucket(r2Config.getBucketName())
-                    .key(fileName)
-                    .contentType(contentType)
-                    .acl(ObjectCannedACL.PUBLIC_READ)
-                    .build();
+    /**
+     * Take a reference to the object. Returns true if it is already stored and
+     * the upload can be skipped, false if the caller has to upload it.
+     * <p>
+     * A row with no references is being deleted by {@link #deleteImage}; the
+     * upload waits for the row to go away so the deletion cannot remove the
+     * object it is about to store. A row left behind by a deletion that never
+     * finished is taken over after a minute.
+     */
+    private boolean acquireReference(String fileName, String sha256, long size, String contentType) {
+        int conflicts = 0;
+        for (int waits = 0; ; ) {
+            Reference reference;
+            try {
+                reference = transactionTemplate.execute(status -> {
+                    StoredObject stored = storedObjectRepository.findForUpdate(fileName).orElse(null);
+                    if (stored != null && stored.getRefCount() > 0) {
+                        stored.setRefCount(stored.getRefCount() + 1);
+                        return Reference.EXISTING;
+                    }
+                    if (stored != null && stored.getUpdatedAt() != null
+                            && stored.getUpdatedAt().isAfter(LocalDateTime.now().minus(STALE_DELETION))) {
+                        return Reference.DELETING;
+                    }
+                    if (stored == null) {
+                        stored = new StoredObject();
+                        stored.setObjectKey(fileName);
+                    }
+                    stored.setSha256(sha256);
+                    stored.setSize(size);
+                    stored.setContentType(contentType);
+                    stored.setRefCount(1);
+                    storedObjectRepository.save(stored);
+                    return Reference.NEW;
+                });
+            } catch (DataIntegrityViolationException e) {
+                // Another upload of the same content inserted the row first; the next attempt finds it
+                if (++conflicts >= 3) {
+                    throw new FileUploadException("Failed to register uploaded file", e);
+                }
+                continue;
+            }
+            if (reference != Reference.DELETING) {
+                return reference == Reference.EXISTING;
+            }
+            if (++waits >= DELETION_WAIT_ATTEMPTS) {
+                throw new StorageBusyException("The same image is being deleted, please retry shortly");
+            }
+            try {
+                Thread.sleep(DELETION_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new StorageBusyException("Interrupted while waiting for an image deletion");
+            }
+        }
+    }
 
-            s3Client.putObject(putObjectRequest, RequestBody.fromInputStream(inputStream, file.getSize()));
+    private enum Reference {
+        EXISTING, NEW, DELETING
+    }
 
-            String publicUrl = constructPublicUrl(fileName);
-            log.info("Successfully uploaded file: {} to R2 bucket with URL: {}", fileName, publicUrl);
-            return publicUrl;
+    private void streamToStorage(MultipartFile file, String fileName, String contentType) {
+        log.debug("Uploading file: {} with content type: {}", fileName, contentType);
 
+        try (InputStream content = file.getInputStream()) {
+            storageBackend.put(fileName, content, file.getSize(), contentType);
         } catch (IOException e) {
             log.error("Failed to read file input stream", e);
             throw new FileUploadException("Failed to read file", e);
-        } catch (S3Exception e) {
-            log.error("Failed to upload file to R2", e);
-            throw new FileUploadException(
-                    "Failed to upload file to cloud storage: " + e.awsErrorDetails().errorMessage(), e);
-        } catch (Exception e) {
-            log.error("Unexpected error during file upload", e);
-            throw new FileUploadException("Unexpected error during upload: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Delete an image from R2 by its URL
+     * Whether {@link #createPresignedUpload} can be used with the configured backend.
+     */
+    public boolean supportsDirectUpload() {
+        return storageBackend.supportsDirectUpload();
+    }
+
+    /**
+     * Issue a short-lived presigned PUT so the client uploads straight to the
+     * bucket. Content type and length are part of the signature, so the URL
+     * cannot be used for a different type or size. Keys are scoped to the owner:
+     * folder/ownerId/uuid.ext
+     */
+    public PresignedUploadDto createPresignedUpload(Long ownerId, String folder, String contentType, long contentLength) {
+        validateDeclaredImage(contentType, contentLength);
+
+        String normalizedType = contentType.toLowerCase();
+        String fileName = ownerPrefix(folder, ownerId) + UUID.randomUUID() + "."
+                + EXTENSION_BY_CONTENT_TYPE.get(normalizedType);
+
+        PresignedUploadDto presigned = storageBackend.presignPut(
+                fileName, normalizedType, contentLength, presignProperties.getExpiry());
+
+        log.info("Issued presigned upload for {} ({} bytes, {}), expires at {}",
+                fileName, contentLength, normalizedType, presigned.getExpiresAt());
+        return presigned;
+    }
+
+    /**
+     * Check a presigned upload before it is attached to a post or profile: the key
+     * must belong to the owner, HEAD must report an allowed type and size, and a
+     * ranged GET of the first bytes must match an image signature. Objects that
+     * fail the checks are deleted.
+     *
+     * @return The stored image; the digest is not known for direct uploads
+     */
+    public UploadedImage confirmPresignedUpload(Long ownerId, String folder, String fileName) {
+        if (fileName == null || !fileName.startsWith(ownerPrefix(folder, ownerId)) || fileName.contains("..")) {
+            throw new IllegalArgumentException("Upload key does not belong to this user");
+        }
+
+        StoredObjectInfo info;
+        try {
+            info = storageBackend.stat(fileName);
+        } catch (StorageException e) {
+            log.error("Failed to confirm upload {}", fileName, e);
+            throw new FileUploadException("Failed to verify uploaded file: " + e.getMessage(), e);
+        }
+        if (info == null) {
+            throw new IllegalArgumentException("No uploaded file found for key: " + fileName);
+        }
+
+        long size = info.getSize();
+        String contentType = info.getContentType();
+        if (size <= 0 || size > MAX_FILE_SIZE) {
+            deleteObject(fileName);
+            throw new FileSizeLimitExceededException(
+                    String.format("File size exceeds maximum allowed size of %d MB", MAX_FILE_SIZE / (1024 * 1024)));
+        }
+        if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
+            deleteObject(fileName);
+            throw new InvalidFileTypeException(
+                    "Invalid file type. Allowed types: " + String.join(", ", ALLOWED_CONTENT_TYPES));
+        }
+
+        byte[] header;
+        try {
+            header = storageBackend.readPrefix(fileName, MAGIC_BYTES_LENGTH);
+        } catch (StorageException e) {
+            log.error("Failed to confirm upload {}", fileName, e);
+            throw new FileUploadException("Failed to verify uploaded file: " + e.getMessage(), e);
+        }
+        if (!isValidImageMagicBytes(header)) {
+            deleteObject(fileName);
+            throw new InvalidFileTypeException("File content does not match declared image type");
+        }
+
+        registerReference(fileName, size, contentType.toLowerCase());
+        log.info("Confirmed presigned upload {} ({} bytes, {})", fileName, size, contentType);
+        return new UploadedImage(fileName, constructPublicUrl(fileName), size, contentType, null);
+    }
+
+    /**
+     * Open a stored image for reading.
+     *
+     * @return the object content, or null if the URL does not point into our bucket
+     */
+    public InputStream openImage(String imageUrl) {
+        String fileName = extractFileNameFromUrl(imageUrl);
+        if (fileName == null) {
+            return null;
+        }
+        return storageBackend.open(fileName);
+    }
+
+    /**
+     * Find a file on local disk holding the object, for zero-copy serving: the
+     * object itself with the local backend, otherwise a read-through cache copy
+     * if the disk cache is enabled.
+     *
+     * @return the file, or null if the object must be streamed from the backend
+     */
+    public Path resolveLocalFile(String fileName) {
+        Path local = storageBackend.localFile(fileName);
+        if (local != null || !diskCache.isEnabled()) {
+            return local;
+        }
+        return diskCache.get(fileName, storageBackend);
+    }
+
+    /**
+     * Content type to serve an object with, from its key's extension.
+     */
+    public static String contentTypeOf(String fileName) {
+        String extension = FilenameUtils.getExtension(fileName).toLowerCase();
+        return CONTENT_TYPE_BY_EXTENSION.getOrDefault(extension, "application/octet-stream");
+    }
+
+    /**
+     * Open an object by key for streaming to a client.
+     *
+     * @return the content, or null if there is no such object
+     */
+    public InputStream openObject(String fileName) {
+        return storageBackend.open(fileName);
+    }
+
+    /**
+     * Store a resized variant next to its original: posts/1/abc.png becomes
+     * posts/1/abc_thumb.jpg. Variants never change once written.
+     *
+     * @return The public URL of the variant
+     */
+    public String storeVariant(String imageUrl, String variant, byte[] content, String extension) {
+        String fileName = extractFileNameFromUrl(imageUrl);
+        if (fileName == null) {
+            throw new IllegalArgumentException("Not a stored image: " + imageUrl);
+        }
+        String variantName = variantKey(fileName, variant, extension);
+
+        storageBackend.put(variantName, new ByteArrayInputStream(content), content.length,
+                "png".equals(extension) ? "image/png" : "image/jpeg");
+
+        log.info("Stored {} variant {} ({} bytes)", variant, variantName, content.length);
+        return constructPublicUrl(variantName);
+    }
+
+    /**
+     * Release one reference to an image. The object and its variants are only
+     * deleted from storage once nothing points at it anymore. Runs on the storage
+     * executor since callers never wait for the result.
+     * <p>
+     * The last reference is released in its own transaction, which leaves the
+     * row with a count of zero. Storage is called after that commits, so no row
+     * lock is held during the request, and the row is removed afterwards.
+     * Uploads of the same content wait for the row to go, see acquireReference.
      *
      * @param imageUrl The public URL of the image to delete
      */
+    @Async(AsyncConfig.STORAGE_EXECUTOR)
     public void deleteImage(String imageUrl) {
         if (imageUrl == null || imageUrl.isEmpty()) {
             return;
@@ -96,22 +491,41 @@ public class FileStorageService {
                 return;
             }
 
-            DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-                    .bucket(r2Config.getBucketName())
-                    .key(fileName)
-                    .build();
+            Boolean lastReference = transactionTemplate.execute(status -> {
+                StoredObject stored = storedObjectRepository.findForUpdate(fileName).orElse(null);
+                if (stored == null) {
+                    return true; // Stored before reference counting
+                }
+                if (stored.getRefCount() == 0) {
+                    return false; // Another delete is removing it
+                }
+                stored.setRefCount(stored.getRefCount() - 1);
+                if (stored.getRefCount() > 0) {
+                    log.info("Released reference to {} ({} left)", fileName, stored.getRefCount());
+                }
+                return stored.getRefCount() == 0;
+            });
+            if (!Boolean.TRUE.equals(lastReference)) {
+                return;
+            }
 
-            s3Client.deleteObject(deleteObjectRequest);
-            log.info("Successfully deleted file: {} from R2 bucket", fileName);
+            try {
+                removeObjectAndVariants(fileName);
+            } finally {
+                // If storage failed the objects are left to the orphan collector
+                transactionTemplate.executeWithoutResult(status -> storedObjectRepository.findForUpdate(fileName)
+                        .filter(stored -> stored.getRefCount() == 0)
+                        .ifPresent(storedObjectRepository::delete));
+            }
 
-        } catch (S3Exception e) {
-            log.error("Failed to delete file from R2: {}", imageUrl, e);
+        } catch (StorageException e) {
+            log.error("Failed to delete file from storage: {}", imageUrl, e);
             // Don't throw exception - deletion is best effort
         }
     }
 
     /**
-     * Validate file size and type
+     * Validate file size, declared type and extension without reading the content
      */
     private void validateFile(MultipartFile file) {
         if (file == null || file.isEmpty()) {
@@ -138,19 +552,99 @@ public class FileStorageService {
                     "Invalid file extension. Allowed extensions: " + String.join(", ", ALLOWED_EXTENSIONS));
         }
 
-        // Validate magic bytes (first few bytes of the file)
-        try {
-            byte[] fileBytes = new byte[8];
-            int bytesRead = file.getInputStream().read(fileBytes);
-            if (bytesRead < 2) {
-                throw new InvalidFileTypeException("File is too small or corrupted");
+        // Magic bytes are checked while hashing, see hashImage
+    }
+
+    /**
+     * Validate what a client declares before a presigned upload
+     */
+    private void validateDeclaredImage(String contentType, long contentLength) {
+        if (contentLength <= 0 || contentLength > MAX_FILE_SIZE) {
+            throw new FileSizeLimitExceededException(
+                    String.format("File size exceeds maximum allowed size of %d MB", MAX_FILE_SIZE / (1024 * 1024)));
+        }
+        if (contentType == null || !ALLOWED_CONTENT_TYPES.contains(contentType.toLowerCase())) {
+            throw new InvalidFileTypeException(
+                    "Invalid file type. Allowed types: " + String.join(", ", ALLOWED_CONTENT_TYPES));
+        }
+    }
+
+    private static String variantKey(String fileName, String variant, String extension) {
+        return stemOf(fileName) + "_" + variant + "." + extension;
+    }
+
+    /**
+     * Key without extension and variant suffix, shared by an original and its
+     * variants: posts/abc.png and posts/abc_thumb.jpg both give posts/abc.
+     */
+    public static String stemOf(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        String stem = dot > fileName.lastIndexOf('/') ? fileName.substring(0, dot) : fileName;
+        for (String variant : VARIANTS) {
+            if (stem.endsWith("_" + variant) && VARIANT_EXTENSIONS.contains(fileName.substring(dot + 1))) {
+                return stem.substring(0, stem.length() - variant.length() - 1);
             }
+        }
+        return stem;
+    }
 
-            if (!isValidImageMagicBytes(fileBytes)) {
-                throw new InvalidFileTypeException("File content does not match declared image type");
+    /**
+     * @return the storage key of one of our image URLs, or null for foreign URLs
+     */
+    public String keyOf(String imageUrl) {
+        return extractFileNameFromUrl(imageUrl);
+    }
+
+    public String urlOf(String fileName) {
+        return constructPublicUrl(fileName);
+    }
+
+    private void removeObjectAndVariants(String fileName) {
+        // Resized variants live next to the original; deleting missing keys is a no-op
+        List<String> keys = new ArrayList<>();
+        keys.add(fileName);
+        for (String variant : VARIANTS) {
+            for (String extension : VARIANT_EXTENSIONS) {
+                keys.add(variantKey(fileName, variant, extension));
             }
-        } catch (IOException e) {
-            throw new FileUploadException("Failed to validate file content", e);
+        }
+        List<String> failed = storageBackend.delete(keys);
+        diskCache.evict(keys);
+        if (!failed.isEmpty()) {
+            log.warn("Could not delete {} from storage, leaving them to the orphan collector", failed);
+            return;
+        }
+        log.info("Successfully deleted file: {} from storage", fileName);
+    }
+
+    /**
+     * Record a reference to an object uploaded directly by a client. Presigned
+     * keys are random, so the row is normally new; confirming twice counts twice,
+     * matching the two deletes the caller will eventually issue.
+     */
+    private void registerReference(String fileName, long size, String contentType) {
+        transactionTemplate.executeWithoutResult(status -> {
+            StoredObject stored = storedObjectRepository.findForUpdate(fileName).orElseGet(() -> {
+                StoredObject created = new StoredObject();
+                created.setObjectKey(fileName);
+                created.setSize(size);
+                created.setContentType(contentType);
+                return created;
+            });
+            stored.setRefCount(stored.getRefCount() + 1);
+            storedObjectRepository.save(stored);
+        });
+    }
+
+    private String ownerPrefix(String folder, Long ownerId) {
+        return folder + "/" + ownerId + "/";
+    }
+
+    private void deleteObject(String fileName) {
+        try {
+            storageBackend.delete(List.of(fileName));
+        } catch (StorageException e) {
+            log.warn("Failed to delete rejected upload {}", fileName, e);
         }
     }
 
@@ -170,33 +664,19 @@ public class FileStorageService {
         if (bytes.length >= 4 && bytes[0] == 0x47 && bytes[1] == 0x49 && bytes[2] == 0x46 && bytes[3] == 0x38) {
             return true;
         }
-        // WebP: RIFF ... WEBP (check for "RIFF" and "WEBP")
-        if (bytes.length >= 8 && bytes[0] == 0x52 && bytes[1] == 0x49 && bytes[2] == 0x46 && bytes[3] == 0x46) {
-            // Check for WEBP at position 8-11, but we only read 8 bytes, so we'll be
-            // lenient
+        // WebP: "RIFF" <size> "WEBP"
+        if (bytes.length >= 12 && bytes[0] == 0x52 && bytes[1] == 0x49 && bytes[2] == 0x46 && bytes[3] == 0x46
+                && bytes[8] == 0x57 && bytes[9] == 0x45 && bytes[10] == 0x42 && bytes[11] == 0x50) {
             return true;
         }
         return false;
     }
 
-    /**
-     * Generate a unique file name with the original extension
-     */
-    private String generateFileName(MultipartFile file, String folder) {
-        String extension = FilenameUtils.getExtension(file.getOriginalFilename());
-        String uniqueId = UUID.randomUUID().toString();
-        return folder + "/" + uniqueId + "." + extension;
-    }
-
     /**
      * Construct the public URL for an uploaded file
      */
     private String constructPublicUrl(String fileName) {
-        String publicUrl = r2Config.getPublicUrl();
-        if (!publicUrl.endsWith("/")) {
-            publicUrl += "/";
-        }
-        return publicUrl + fileName;
+        return storageBackend.getPublicUrl() + "/" + fileName;
     }
 
     /**
@@ -207,8 +687,8 @@ public class FileStorageService {
             return null;
         }
 
-        String publicUrl = r2Config.getPublicUrl();
-        if (imageUrl.startsWith(publicUrl)) {
+        String publicUrl = storageBackend.getPublicUrl();
+        if (imageUrl.startsWith(publicUrl + "/")) {
             String fileName = imageUrl.substring(publicUrl.length());
             if (fileName.startsWith("/")) {
                 fileName = fileName.substring(1);
@@ -0,0 +1,116 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.FollowCountProperties;
+import com.minhtetthar.post_now.repository.FollowRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recounts follows and corrects the follower/following counts stored on
+ * users wherever they drifted, e.g. through follows removed by hand or a
+ * count adjusted concurrently with the recount. Walks users in id ranges,
+ * one short transaction per range, and only writes rows that differ.
+ */
+@Service
+@Slf4j
+public class FollowCountReconciler {
+
+    private final UserRepository userRepository;
+    private final FollowRepository followRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final CacheManager cacheManager;
+    private final FollowCountProperties properties;
+    private final Counter correctedCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public FollowCountReconciler(UserRepository userRepository,
+                                 FollowRepository followRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 CacheManager cacheManager,
+                                 FollowCountProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.followRepository = followRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.cacheManager = cacheManager;
+        this.properties = properties;
+        this.correctedCounter = Counter.builder("follow.counts.corrected")
+                .description("User follower/following counts corrected by reconciliation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts start at zero when the columns are added to an existing database;
+     * fill them in right away rather than at the next scheduled run.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeCounts() {
+        if (properties.isReconcileEnabled() && followRepository.existsByIdIsNotNull()
+                && !userRepository.existsByFollowerCountGreaterThan(0)) {
+            log.info("Follow counts not initialized, reconciling in the background");
+            Thread.ofVirtual().name("follow-count-reconcile").start(this::reconcile);
+        }
+    }
+
+    @Scheduled(cron = "${follow.counts.cron:0 45 4 * * *}")
+    public void runScheduledReconciliation() {
+        if (!properties.isReconcileEnabled()) {
+            return;
+        }
+        reconcile();
+    }
+
+    /**
+     * Run one pass and return the number of corrected counts.
+     */
+    public long reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Follow count reconciliation already running, skipping");
+            return 0;
+        }
+
+        try {
+            long started = System.nanoTime();
+            long maxId = userRepository.findMaxId();
+            long corrected = 0;
+            for (long fromId = 0; fromId < maxId; fromId += properties.getBatchSize()) {
+                long from = fromId;
+                long to = fromId + properties.getBatchSize();
+                Integer changed = transactionTemplate.execute(status ->
+                        userRepository.reconcileFollowerCounts(from, to)
+                                + userRepository.reconcileFollowingCounts(from, to));
+                corrected += changed == null ? 0 : changed;
+            }
+
+            if (corrected > 0) {
+                correctedCounter.increment(corrected);
+                for (String name : List.of("users", "usersById")) {
+                    Cache users = cacheManager.getCache(name);
+                    if (users != null) {
+                        users.clear();
+                    }
+                }
+                log.warn("Corrected {} follow counts in {} ms", corrected, (System.nanoTime() - started) / 1_000_000);
+            } else {
+                log.info("Follow counts consistent, checked users up to id {} in {} ms",
+                        maxId, (System.nanoTime() - started) / 1_000_000);
+            }
+            return corrected;
+        } finally {
+            running.set(false);
+        }
+    }
+}
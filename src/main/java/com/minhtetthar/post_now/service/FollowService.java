@@ -1,21 +1,38 @@
 package com.minhtetthar.post_now.service;
 
 import com.minhtetthar.post_now.dto.follow.FollowDto;
+import com.minhtetthar.post_now.dto.follow.FollowEdge;
+import com.minhtetthar.post_now.dto.follow.RelationshipDto;
 import com.minhtetthar.post_now.dto.user.UserSummaryDto;
 import com.minhtetthar.post_now.entity.Follow;
+import com.minhtetthar.post_now.entity.FollowChange;
 import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.event.FollowChangedEvent;
 import com.minhtetthar.post_now.mapper.UserMapper;
+import com.minhtetthar.post_now.repository.FollowChangeRepository;
 import com.minhtetthar.post_now.repository.FollowRepository;
 import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.graph.FollowGraph;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -23,9 +40,16 @@ import java.util.List;
 @Slf4j
 public class FollowService {
 
+    private static final int MAX_RELATIONSHIP_LOOKUPS = 100;
+
     private final FollowRepository followRepository;
+    private final FollowChangeRepository followChangeRepository;
     private final UserRepository userRepository;
     private final UserMapper userMapper;
+    private final OutboxService outboxService;
+    private final FollowGraph followGraph;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CacheManager cacheManager;
 
     @Transactional
     public FollowDto followUser(String followerUsername, String followingUsername) {
@@ -47,6 +71,10 @@ public class FollowService {
         follow.setFollower(follower);
         follow.setFollowing(following);
         follow = followRepository.save(follow);
+        recordChange(FollowChangedEvent.followed(follower.getId(), following.getId()));
+
+        outboxService.publishNewFollow(follower.getId(), following.getId());
+        adjustCounts(follower, following, 1);
 
         log.info("User {} followed user {}", followerUsername, followingUsername);
 
@@ -65,10 +93,18 @@ public class FollowService {
                 .orElseThrow(() -> new IllegalArgumentException("Not following this user"));
 
         followRepository.delete(follow);
+        recordChange(FollowChangedEvent.unfollowed(follower.getId(), following.getId()));
+        adjustCounts(follower, following, -1);
         log.info("User {} unfollowed user {}", followerUsername, followingUsername);
     }
 
     public boolean isFollowing(String followerUsername, String followingUsername) {
+        if (followGraph.isReady()) {
+            Long followerId = userRepository.findIdByUsername(followerUsername).orElse(null);
+            Long followingId = userRepository.findIdByUsername(followingUsername).orElse(null);
+            return followerId != null && followingId != null && followGraph.isFollowing(followerId, followingId);
+        }
+
         User follower = userRepository.findByUsername(followerUsername).orElse(null);
         User following = userRepository.findByUsername(followingUsername).orElse(null);
 
@@ -79,6 +115,66 @@ public class FollowService {
         return followRepository.existsByFollowerAndFollowing(follower, following);
     }
 
+    /**
+     * Relationship of the current user to each of {@code usernames}, keyed by
+     * username; unknown and disabled users are left out. Answered by the
+     * follow graph, or by a single query for the pairs not in the
+     * relationships cache.
+     */
+    public Map<String, RelationshipDto> getRelationships(String currentUsername, Collection<String> usernames) {
+        Set<String> distinct = new LinkedHashSet<>(usernames);
+        distinct.remove(currentUsername);
+        if (distinct.size() > MAX_RELATIONSHIP_LOOKUPS) {
+            throw new IllegalArgumentException("At most " + MAX_RELATIONSHIP_LOOKUPS + " usernames per request");
+        }
+        Map<String, RelationshipDto> relationships = new LinkedHashMap<>();
+        if (distinct.isEmpty()) {
+            return relationships;
+        }
+        Long userId = getUserId(currentUsername);
+        List<User> others = userRepository.findByUsernameIn(distinct).stream()
+                .filter(user -> Boolean.TRUE.equals(user.getEnabled()))
+                .toList();
+
+        if (followGraph.isReady()) {
+            for (User other : others) {
+                relationships.put(other.getUsername(), new RelationshipDto(
+                        followGraph.isFollowing(userId, other.getId()),
+                        followGraph.isFollowing(other.getId(), userId)));
+            }
+            return relationships;
+        }
+
+        Cache cache = cacheManager.getCache("relationships");
+        Map<Long, User> missing = new HashMap<>();
+        for (User other : others) {
+            RelationshipDto cached = cache == null ? null : cache.get(relationshipKey(userId, other.getId()), RelationshipDto.class);
+            if (cached != null) {
+                relationships.put(other.getUsername(), cached);
+            } else {
+                missing.put(other.getId(), other);
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, RelationshipDto> found = new HashMap<>();
+            missing.keySet().forEach(id -> found.put(id, new RelationshipDto(false, false)));
+            for (FollowEdge edge : followRepository.findEdgesBetween(userId, missing.keySet())) {
+                if (edge.getFollowerId().equals(userId)) {
+                    found.get(edge.getFollowingId()).setFollowing(true);
+                } else {
+                    found.get(edge.getFollowerId()).setFollowedBy(true);
+                }
+            }
+            found.forEach((id, relationship) -> {
+                relationships.put(missing.get(id).getUsername(), relationship);
+                if (cache != null) {
+                    cache.put(relationshipKey(userId, id), relationship);
+                }
+            });
+        }
+        return relationships;
+    }
+
     public Page<UserSummaryDto> getFollowers(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
@@ -95,22 +191,22 @@ public class FollowService {
                 .map(follow -> userMapper.toSummaryDto(follow.getFollowing()));
     }
 
+    /**
+     * Read from the count column, updated in the follow's own transaction.
+     * The follow graph is per-instance and may lag behind it.
+     */
     public long getFollowerCount(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return followRepository.countByFollowing(user);
+        return user.getFollowerCount();
     }
 
     public long getFollowingCount(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return followRepository.countByFollower(user);
-    }
-
-    public List<User> getFollowersList(User user) {
-        return followRepository.findFollowerUsers(user);
+        return user.getFollowingCount();
     }
 
     public User getUser(String username) {
@@ -118,6 +214,75 @@ public class FollowService {
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
+    /**
+     * Log the change for follow graphs on other instances and tell this one.
+     */
+    private void recordChange(FollowChangedEvent event) {
+        followChangeRepository.save(new FollowChange(
+                null, event.getFollowerId(), event.getFollowingId(), event.isFollowing(), null));
+        eventPublisher.publishEvent(event);
+    }
+
+    /**
+     * Atomic increments of the counts on both users, done last so the row
+     * locks are held briefly. Rows are locked in id order, so a follow and
+     * the opposite follow running at once cannot deadlock.
+     * <p>
+     * Cached users and relationships are evicted once the transaction
+     * commits: evicted any earlier, a concurrent read could cache the old
+     * counts or relationship again before the change is visible.
+     */
+    private void adjustCounts(User follower, User following, long delta) {
+        if (follower.getId() < following.getId()) {
+            userRepository.adjustFollowingCount(follower.getId(), delta);
+            userRepository.adjustFollowerCount(following.getId(), delta);
+        } else {
+            userRepository.adjustFollowerCount(following.getId(), delta);
+            userRepository.adjustFollowingCount(follower.getId(), delta);
+        }
+
+        afterCommit(() -> {
+            // Cached users and profiles of both sides carry the old counts
+            Cache users = cacheManager.getCache("users");
+            Cache usersById = cacheManager.getCache("usersById");
+            for (User user : List.of(follower, following)) {
+                if (users != null) {
+                    users.evict(user.getUsername());
+                }
+                if (usersById != null) {
+                    usersById.evict(user.getId());
+                }
+            }
+            Cache relationships = cacheManager.getCache("relationships");
+            if (relationships != null) {
+                relationships.evict(relationshipKey(follower.getId(), following.getId()));
+                relationships.evict(relationshipKey(following.getId(), follower.getId()));
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static String relationshipKey(Long userId, Long otherId) {
+        return userId + ":" + otherId;
+    }
+
+    private Long getUserId(String username) {
+        return userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+    }
+
     private FollowDto mapToDto(Follow follow) {
         FollowDto dto = new FollowDto();
         dto.setId(follow.getId());
@@ -0,0 +1,196 @@
+package com.minhtetthar.post_now.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.minhtetthar.post_now.config.FollowSuggestionProperties;
+import com.minhtetthar.post_now.dto.follow.FollowSuggestionDto;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.event.FollowChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.graph.FollowGraph;
+import com.minhtetthar.post_now.service.graph.FollowSuggester;
+import com.minhtetthar.post_now.service.graph.FollowSuggester.Ranking;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Follow suggestions for the current user, computed by {@link FollowSuggester}
+ * and cached per user.
+ * <p>
+ * Cached lists are kept current without recomputing: when someone a cached
+ * user follows starts or stops following an account, that account's exact
+ * mutual count is recomputed and it moves within (or into, or out of) the
+ * list. A user's own follow or unfollow drops their list, since it changes
+ * which accounts are traversed. Lists are recomputed after cache-ttl.
+ * <p>
+ * Without the in-memory follow graph there are no suggestions: the self-join
+ * over follows this replaces is too expensive to run per request.
+ */
+@Service
+@Slf4j
+public class FollowSuggestionService {
+
+    private final FollowSuggester followSuggester;
+    private final FollowGraph followGraph;
+    private final UserRepository userRepository;
+    private final FollowSuggestionProperties properties;
+    private final Cache<Long, Ranking> rankings;
+    private final Timer computeTimer;
+
+    public FollowSuggestionService(FollowSuggester followSuggester,
+                                   FollowGraph followGraph,
+                                   UserRepository userRepository,
+                                   FollowSuggestionProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.followSuggester = followSuggester;
+        this.followGraph = followGraph;
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.rankings = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheMaxUsers())
+                .expireAfterWrite(Duration.ofMillis(properties.getCacheTtl()))
+                .build();
+        this.computeTimer = Timer.builder("follow.suggestions.compute")
+                .register(meterRegistry);
+        Gauge.builder("follow.suggestions.cached", rankings, Cache::estimatedSize)
+                .register(meterRegistry);
+    }
+
+    public List<FollowSuggestionDto> getSuggestions(String username, Integer limit) {
+        int size = Math.min(limit == null || limit <= 0 ? properties.getDefaultLimit() : limit,
+                properties.getMaxLimit());
+        if (!properties.isEnabled() || !followSuggester.isReady()) {
+            return List.of();
+        }
+        long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+
+        Ranking ranking = rankings.get(userId, id -> computeTimer.record(
+                () -> followSuggester.suggest(id, properties.getCacheDepth())));
+
+        // Candidates may have been followed through another instance or disabled since
+        // they were ranked, so users are loaded in rounds until the page is full
+        List<FollowSuggestionDto> suggestions = new ArrayList<>();
+        int next = 0;
+        while (suggestions.size() < size && next < ranking.ids().length) {
+            List<Integer> positions = new ArrayList<>();
+            int wanted = size - suggestions.size() + 5;
+            for (; next < ranking.ids().length && positions.size() < wanted; next++) {
+                if (!followGraph.isFollowing(userId, ranking.ids()[next])) {
+                    positions.add(next);
+                }
+            }
+            Map<Long, User> users = userRepository.findAllById(positions.stream().map(i -> ranking.ids()[i]).toList())
+                    .stream()
+                    .collect(Collectors.toMap(User::getId, Function.identity()));
+            for (int i : positions) {
+                User user = users.get(ranking.ids()[i]);
+                if (user != null && user.isEnabled() && suggestions.size() < size) {
+                    suggestions.add(new FollowSuggestionDto(user.getId(), user.getUsername(), user.getFirstName(),
+                            user.getLastName(), user.getProfileImage(), ranking.mutuals()[i]));
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Runs after {@link FollowGraph#onFollowChanged}, so mutual counts see the
+     * change. Cached lists are updated on the suggestion pool rather than the
+     * thread that committed the follow, since an actor with many followers
+     * means many mutual count computations.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFollowChanged(FollowChangedEvent event) {
+        long actorId = event.getFollowerId();
+        long targetId = event.getFollowingId();
+        rankings.invalidate(actorId);
+        if (rankings.estimatedSize() == 0 || !followGraph.isReady()) {
+            return;
+        }
+        followSuggester.execute(() -> rerankFollowersOf(actorId, targetId));
+    }
+
+    private void rerankFollowersOf(long actorId, long targetId) {
+        // Cached users who follow the actor see the target gain or lose a mutual
+        long[] actorFollowers = followGraph.followers(actorId);
+        Map<Long, Ranking> cached = rankings.asMap();
+        if (actorFollowers.length <= cached.size()) {
+            for (long userId : actorFollowers) {
+                if (cached.containsKey(userId)) {
+                    rerank(userId, targetId);
+                }
+            }
+        } else {
+            for (Long userId : List.copyOf(cached.keySet())) {
+                if (followGraph.isFollowing(userId, actorId)) {
+                    rerank(userId, targetId);
+                }
+            }
+        }
+    }
+
+    private void rerank(long userId, long candidateId) {
+        if (userId == candidateId || followGraph.isFollowing(userId, candidateId)) {
+            return;
+        }
+        int mutuals = followSuggester.mutualCount(userId, candidateId);
+        rankings.asMap().computeIfPresent(userId, (id, ranking) -> withCandidate(ranking, candidateId, mutuals));
+    }
+
+    /**
+     * A copy of {@code ranking} with {@code candidateId} placed by its new
+     * mutual count, or removed when it has none or falls below the last kept.
+     */
+    private Ranking withCandidate(Ranking ranking, long candidateId, int mutuals) {
+        long[] ids = ranking.ids();
+        int[] counts = ranking.mutuals();
+        int existing = -1;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == candidateId) {
+                existing = i;
+                break;
+            }
+        }
+        int length = existing >= 0 ? ids.length - 1 : ids.length;
+        long[] keptIds = new long[length];
+        int[] keptCounts = new int[length];
+        for (int i = 0, j = 0; i < ids.length; i++) {
+            if (i != existing) {
+                keptIds[j] = ids[i];
+                keptCounts[j++] = counts[i];
+            }
+        }
+        if (mutuals == 0) {
+            return new Ranking(keptIds, keptCounts);
+        }
+        int position = 0;
+        while (position < length && followSuggester.compare(keptIds[position], keptCounts[position], candidateId, mutuals) < 0) {
+            position++;
+        }
+        if (position >= properties.getCacheDepth()) {
+            return new Ranking(keptIds, keptCounts);
+        }
+        int newLength = Math.min(length + 1, properties.getCacheDepth());
+        long[] newIds = Arrays.copyOf(keptIds, newLength);
+        int[] newCounts = Arrays.copyOf(keptCounts, newLength);
+        System.arraycopy(keptIds, position, newIds, position + 1, newLength - position - 1);
+        System.arraycopy(keptCounts, position, newCounts, position + 1, newLength - position - 1);
+        newIds[position] = candidateId;
+        newCounts[position] = mutuals;
+        return new Ranking(newIds, newCounts);
+    }
+}
@@ -0,0 +1,136 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.StorageProperties;
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.image.ImageResizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Generates resized copies of uploaded images: a square avatar for profile
+ * images, a feed thumbnail and a detail-view size for post images. Runs on
+ * the image executor from outbox events, so the work survives restarts and
+ * is retried on storage errors.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImageVariantService {
+
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final StorageProperties storageProperties;
+
+    // Only this post's entry carries its image URLs
+    @CacheEvict(value = "posts", key = "#event.postId")
+    public void generatePostVariants(OutboxEvent event) {
+        Post post = postRepository.findActivePostById(event.getPostId()).orElse(null);
+        if (post == null || post.getImageUrl() == null) {
+            return;
+        }
+        String imageUrl = post.getImageUrl();
+
+        // Identical uploads share one object, so they can share its variants too
+        Post resized = postRepository.findFirstByImageUrlAndThumbnailUrlIsNotNull(imageUrl).orElse(null);
+        if (resized != null) {
+            postRepository.updateImageVariants(post.getId(), imageUrl,
+                    resized.getThumbnailUrl(), resized.getDisplayImageUrl());
+            return;
+        }
+
+        BufferedImage source = load(imageUrl);
+        if (source == null) {
+            return;
+        }
+
+        StorageProperties.Variants variants = storageProperties.getVariants();
+        String thumbnailUrl = store(imageUrl, FileStorageService.VARIANT_THUMBNAIL, source,
+                ImageResizer.scaleToWidth(source, variants.getThumbnailWidth()));
+        // Re-encoding a GIF would drop its animation, so the detail view keeps the original
+        String displayImageUrl = isGif(imageUrl)
+                ? imageUrl
+                : store(imageUrl, FileStorageService.VARIANT_FULL, source,
+                        ImageResizer.scaleToWidth(source, variants.getFullWidth()));
+
+        if (postRepository.updateImageVariants(post.getId(), imageUrl, thumbnailUrl, displayImageUrl) == 0) {
+            log.info("Image of post {} changed while resizing, discarding variants", post.getId());
+        }
+    }
+
+    @CacheEvict(value = {"users", "usersById"}, allEntries = true)
+    public void generateProfileVariants(OutboxEvent event) {
+        User user = userRepository.findById(event.getTargetUserId()).orElse(null);
+        if (user == null || user.getProfileImage() == null) {
+            return;
+        }
+        String imageUrl = user.getProfileImage();
+
+        User resized = userRepository.findFirstByProfileImageAndAvatarUrlIsNotNull(imageUrl).orElse(null);
+        if (resized != null) {
+            userRepository.updateAvatar(user.getId(), imageUrl, resized.getAvatarUrl());
+            return;
+        }
+
+        BufferedImage source = load(imageUrl);
+        if (source == null) {
+            return;
+        }
+
+        String avatarUrl = store(imageUrl, FileStorageService.VARIANT_AVATAR, source,
+                ImageResizer.squareThumbnail(source, storageProperties.getVariants().getAvatarSize()));
+
+        if (userRepository.updateAvatar(user.getId(), imageUrl, avatarUrl) == 0) {
+            log.info("Profile image of user {} changed while resizing, discarding avatar", user.getId());
+        }
+    }
+
+    /**
+     * Returns null for images we cannot or should not decode (foreign URL,
+     * unsupported format, too many pixels); storage errors propagate so the
+     * event is retried.
+     */
+    private BufferedImage load(String imageUrl) {
+        try (InputStream input = fileStorageService.openImage(imageUrl)) {
+            if (input == null) {
+                log.debug("Not resizing external image {}", imageUrl);
+                return null;
+            }
+            BufferedImage image = ImageResizer.read(input, storageProperties.getVariants().getMaxSourcePixels());
+            if (image == null) {
+                log.info("No decoder for {}, serving the original only", imageUrl);
+            }
+            return image;
+        } catch (IOException e) {
+            log.warn("Could not decode {}: {}", imageUrl, e.getMessage());
+            return null;
+        }
+    }
+
+    private String store(String imageUrl, String variant, BufferedImage source, BufferedImage scaled) {
+        if (scaled == source) {
+            return imageUrl; // Already within the variant's size
+        }
+        try {
+            byte[] content = ImageResizer.write(scaled, storageProperties.getVariants().getJpegQuality());
+            return fileStorageService.storeVariant(imageUrl, variant, content, ImageResizer.outputFormat(scaled));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode " + variant + " variant of " + imageUrl, e);
+        }
+    }
+
+    private boolean isGif(String imageUrl) {
+        return imageUrl.toLowerCase(Locale.ROOT).endsWith(".gif");
+    }
+}
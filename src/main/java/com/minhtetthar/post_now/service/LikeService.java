@@ -1,16 +1,18 @@
 package com.minhtetthar.post_now.service;
 
-import com.minhtetthar.post_now.entity.Like;
+import com.minhtetthar.post_now.config.DatabasePlatform;
 import com.minhtetthar.post_now.entity.Post;
 import com.minhtetthar.post_now.entity.User;
 import com.minhtetthar.post_now.repository.LikeRepository;
 import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.time.LocalDateTime;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +22,9 @@ public class LikeService {
     private final LikeRepository likeRepository;
     private final PostRepository postRepository;
     private final UserService userService;
+    private final OutboxService outboxService;
+    private final UserRepository userRepository;
+    private final DatabasePlatform databasePlatform;
 
     public Long getLikesCount(Long postId) {
         Post post = postRepository.findById(postId)
@@ -34,63 +39,63 @@ public class LikeService {
         return likeRepository.existsByPostAndUser(post, user);
     }
 
+    /**
+     * Idempotent: liking a post twice leaves one like. Returns whether the
+     * like was added. The common case is a single insert, with no reads.
+     */
     @Transactional
     @CacheEvict(value = "postStats", allEntries = true)
-    public void likePost(Long postId, String username) {
-        Post post = postRepository.findActivePostById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found with id: " + postId));
-
-        User user = userService.loadUserByUsername(username);
-
-        // Check if already liked
-        if (likeRepository.existsByPostAndUser(post, user)) {
-            throw new RuntimeException("You have already liked this post");
+    public boolean likePost(Long postId, String username) {
+        Long userId = getUserId(username);
+        if (insertLike(postId, userId) == 0) {
+            getPost(postId); // Not found, or already liked
+            return false;
         }
-
-        Like like = Like.builder()
-                .post(post)
-                .user(user)
-                .build();
-
-        likeRepository.save(like);
+        outboxService.publishNewLike(userId, postId);
+        return true;
     }
 
+    /**
+     * Idempotent: returns whether a like was removed.
+     */
     @Transactional
     @CacheEvict(value = "postStats", allEntries = true)
-    public void unlikePost(Long postId, String username) {
-        Post post = postRepository.findActivePostById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found with id: " + postId));
-
-        User user = userService.loadUserByUsername(username);
-
-        Optional<Like> like = likeRepository.findByPostAndUser(post, user);
-
-        if (like.isEmpty()) {
-            throw new RuntimeException("You have not liked this post");
+    public boolean unlikePost(Long postId, String username) {
+        Long userId = getUserId(username);
+        if (likeRepository.deleteFromActivePost(postId, userId) == 0) {
+            getPost(postId); // Not found, or not liked
+            return false;
         }
-
-        likeRepository.delete(like.get());
+        return true;
     }
 
+    /**
+     * Returns whether the post is liked afterwards.
+     */
     @Transactional
     @CacheEvict(value = "postStats", allEntries = true)
-    public void toggleLike(Long postId, String username) {
-        Post post = postRepository.findActivePostById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found with id: " + postId));
-
-        User user = userService.loadUserByUsername(username);
+    public boolean toggleLike(Long postId, String username) {
+        Long userId = getUserId(username);
+        if (likeRepository.deleteFromActivePost(postId, userId) > 0) {
+            return false;
+        }
+        if (insertLike(postId, userId) == 0) {
+            getPost(postId); // Not found, or liked concurrently
+            return true;
+        }
+        outboxService.publishNewLike(userId, postId);
+        return true;
+    }
 
-        Optional<Like> existingLike = likeRepository.findByPostAndUser(post, user);
+    private int insertLike(Long postId, Long userId) {
+        return databasePlatform.isPostgres()
+                ? likeRepository.insertIfAbsentPostgres(postId, userId, LocalDateTime.now())
+                : likeRepository.insertIfAbsent(postId, userId, LocalDateTime.now());
+    }
 
-        if (existingLike.isPresent()) {
-            likeRepository.delete(existingLike.get());
-        } else {
-            Like like = Like.builder()
-                    .post(post)
-                    .user(user)
-                    .build();
-            likeRepository.save(like);
-        }
+    private Long getUserId(String username) {
+        return userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
     }
 
     public Post getPost(Long postId) {
@@ -0,0 +1,255 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.NotificationRetentionProperties;
+import com.minhtetthar.post_now.dto.notification.NotificationStorageStats;
+import com.minhtetthar.post_now.entity.Notification;
+import com.minhtetthar.post_now.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Purges notifications older than their per-type retention and, on Postgres,
+ * maintains monthly range partitions of the notifications table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationRetentionService {
+
+    private static final String PARTITION_PREFIX = "notifications_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationRetentionProperties properties;
+    private final DatabasePlatform databasePlatform;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Scheduled(cron = "${notifications.retention.cron:0 30 3 * * *}")
+    public void runScheduledPurge() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        purgeExpiredNotifications();
+    }
+
+    /**
+     * Run one retention pass and return the number of deleted rows.
+     */
+    public long purgeExpiredNotifications() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Notification purge already running, skipping");
+            return 0;
+        }
+
+        try {
+            NotificationStorageStats before = measureStorage();
+            log.info("Notification storage before purge: {}", before);
+
+            if (properties.getPartitioning().isEnabled() && isPartitioned()) {
+                maintainPartitions();
+            }
+
+            long deleted = 0;
+            LocalDateTime now = LocalDateTime.now();
+            for (Map.Entry<Notification.NotificationType, Duration> entry : properties.getMaxAge().entrySet()) {
+                deleted += purgeType(entry.getKey(), now.minus(entry.getValue()));
+            }
+
+            NotificationStorageStats after = measureStorage();
+            log.info("Deleted {} expired notifications. Storage after purge: {}", deleted, after);
+            return deleted;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long purgeType(Notification.NotificationType type, LocalDateTime cutoff) {
+        long deleted = 0;
+        PageRequest batch = PageRequest.of(0, properties.getBatchSize());
+
+        for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+            List<Long> ids = notificationRepository.findIdsOlderThan(type, cutoff, batch);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // Each batch commits on its own so locks and WAL stay small
+            notificationRepository.deleteAllByIdInBatch(ids);
+            deleted += ids.size();
+
+            if (ids.size() < properties.getBatchSize()) {
+                break;
+            }
+            if (!pause()) {
+                break;
+            }
+        }
+
+        if (deleted > 0) {
+            log.info("Purged {} {} notifications created before {}", deleted, type, cutoff);
+        }
+        return deleted;
+    }
+
+    private boolean pause() {
+        long millis = properties.getPauseBetweenBatches().toMillis();
+        if (millis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Table and index size of notifications. On Postgres the sizes are summed over
+     * all partitions; H2 only reports the row count.
+     */
+    public NotificationStorageStats measureStorage() {
+        if (!databasePlatform.isPostgres()) {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications", Long.class);
+            return new NotificationStorageStats(rows != null ? rows : 0, null, null, null, Map.of());
+        }
+
+        String relations = "SELECT c.oid FROM pg_class c WHERE c.relname = 'notifications' " +
+                "UNION SELECT i.inhrelid FROM pg_inherits i WHERE i.inhparent = 'notifications'::regclass";
+
+        NotificationStorageStats stats = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint, " +
+                        "COALESCE(SUM(pg_table_size(c.oid)), 0)::bigint, " +
+                        "COALESCE(SUM(pg_indexes_size(c.oid)), 0)::bigint, " +
+                        "COALESCE(SUM(pg_total_relation_size(c.oid)), 0)::bigint " +
+                        "FROM pg_class c WHERE c.oid IN (" + relations + ")",
+                (rs, rowNum) -> new NotificationStorageStats(
+                        rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), null));
+
+        Map<String, Long> indexSizes = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT s.indexrelname, pg_relation_size(s.indexrelid) FROM pg_stat_user_indexes s " +
+                        "WHERE s.relid IN (" + relations + ") ORDER BY s.indexrelname",
+                rs -> {
+                    indexSizes.put(rs.getString(1), rs.getLong(2));
+                });
+        stats.setIndexSizes(indexSizes);
+        return stats;
+    }
+
+    private boolean isPartitioned() {
+        if (!databasePlatform.isPostgres()) {
+            return false;
+        }
+        Boolean partitioned = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = 'notifications'::regclass)",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(partitioned)) {
+            log.warn("Notification partitioning is enabled but the notifications table is not partitioned. " +
+                    "Run db/postgres/notifications-partitioning.sql first.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Create upcoming monthly partitions and drop the ones that lie entirely
+     * outside the retention window of every notification type.
+     */
+    private void maintainPartitions() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= properties.getPartitioning().getMonthsAhead(); i++) {
+            createPartition(current.plusMonths(i));
+        }
+
+        // Types kept forever keep every partition; the per-type purge deletes the rest
+        Duration dropAge = properties.partitionDropAge();
+        if (dropAge == null) {
+            log.debug("Not all notification types have a max age, keeping all partitions");
+            return;
+        }
+        LocalDate dropBefore = LocalDateTime.now().minus(dropAge).toLocalDate();
+
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'notifications'::regclass",
+                String.class);
+
+        for (String partition : partitions) {
+            if (!partition.startsWith(PARTITION_PREFIX)) {
+                continue; // e.g. the default partition
+            }
+            YearMonth month;
+            try {
+                month = YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+            } catch (RuntimeException e) {
+                continue;
+            }
+            if (!month.plusMonths(1).atDay(1).isAfter(dropBefore)) {
+                jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                log.info("Dropped expired notification partition {}", partition);
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String create = "CREATE TABLE " + partition +
+                " PARTITION OF notifications FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+
+        // Postgres refuses to create a partition while the default partition
+        // holds rows in its range, so those rows move into the new partition
+        String defaultPartition = jdbcTemplate.queryForObject(
+                "SELECT CASE WHEN partdefid = 0 THEN NULL ELSE partdefid::regclass::text END " +
+                        "FROM pg_partitioned_table WHERE partrelid = 'notifications'::regclass",
+                String.class);
+        Boolean hasRows = defaultPartition != null && jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + defaultPartition + " WHERE created_at >= ? AND created_at < ?)",
+                Boolean.class, from, to);
+        if (!Boolean.TRUE.equals(hasRows)) {
+            jdbcTemplate.execute(create);
+            return;
+        }
+
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("ALTER TABLE notifications DETACH PARTITION " + defaultPartition);
+            jdbcTemplate.execute(create);
+            int count = jdbcTemplate.update("WITH moved AS (DELETE FROM " + defaultPartition +
+                    " WHERE created_at >= ? AND created_at < ? RETURNING *) " +
+                    "INSERT INTO notifications SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE notifications ATTACH PARTITION " + defaultPartition + " DEFAULT");
+            return count;
+        });
+        log.info("Created notification partition {} and moved {} rows into it from {}", partition, moved, defaultPartition);
+    }
+
+    private String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,21 +1,38 @@
 package com.minhtetthar.post_now.service;
 
+import com.minhtetthar.post_now.dto.follow.FollowerRecipient;
 import com.minhtetthar.post_now.dto.notification.NotificationDto;
+import com.minhtetthar.post_now.dto.notification.NotificationRow;
+import com.minhtetthar.post_now.dto.user.UserSummaryDto;
 import com.minhtetthar.post_now.entity.*;
-import com.minhtetthar.post_now.mapper.UserMapper;
+import com.minhtetthar.post_now.exception.EmailDeliveryException;
+import com.minhtetthar.post_now.repository.CommentRepository;
+import com.minhtetthar.post_now.repository.EmailDeliveryRepository;
 import com.minhtetthar.post_now.repository.FollowRepository;
+import com.minhtetthar.post_now.repository.NotificationReadMarkerRepository;
 import com.minhtetthar.post_now.repository.NotificationRepository;
+import com.minhtetthar.post_now.repository.PostRepository;
 import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.email.EmailDeliveryReport;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,121 +40,311 @@ import java.util.List;
 @Slf4j
 public class NotificationService {
 
+    private static final int FAN_OUT_CHUNK_SIZE = 500;
+
     private final NotificationRepository notificationRepository;
+    private final NotificationReadMarkerRepository readMarkerRepository;
     private final UserRepository userRepository;
-    private final UserMapper userMapper;
     private final FollowRepository followRepository;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final PostTagService postTagService;
     private final EmailService emailService;
-
-    @Async
+    private final EmailDigestService emailDigestService;
+    private final EmailDeliveryRepository emailDeliveryRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxLeases outboxLeases;
+
+    /**
+     * Outbox handlers below are idempotent: notifications carry the id of the
+     * event that created them, and a redelivered event skips existing ones.
+     */
     @Transactional
-    public void createNewPostNotification(User actor, Post post) {
-        log.info("Creating new post notifications for user: {}", actor.getUsername());
+    public void createNewPostNotification(OutboxEvent event) {
+        Post post = postRepository.findActivePostById(event.getPostId()).orElse(null);
+        if (post == null) {
+            log.info("Skipping new post notifications, post {} no longer exists", event.getPostId());
+            return;
+        }
+        Long actorId = post.getAuthor().getId();
+        Long postId = post.getId();
+        log.info("Creating new post notifications for user: {}", post.getAuthor().getUsername());
+
+        // Follower ids are streamed and handled a chunk at a time, so memory
+        // does not grow with the follower count. Each chunk renews the lease.
+        int created = 0;
+        List<Long> chunk = new ArrayList<>(FAN_OUT_CHUNK_SIZE);
+        try (Stream<Long> followerIds = followRepository.streamFollowerIds(actorId)) {
+            Iterator<Long> iterator = followerIds.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == FAN_OUT_CHUNK_SIZE || !iterator.hasNext()) {
+                    created += createNewPostNotifications(event.getId(), actorId, postId, chunk);
+                    chunk.clear();
+                    outboxLeases.renew(event);
+                }
+            }
+        }
 
-        // Get all followers
-        List<User> followers = followRepository.findFollowerUsers(actor);
+        log.info("Created {} new post notifications", created);
+    }
 
-        for (User follower : followers) {
+    private int createNewPostNotifications(Long eventId, Long actorId, Long postId, List<Long> followerIds) {
+        Set<Long> alreadyNotified = new HashSet<>(
+                notificationRepository.findRecipientIdsBySourceEventId(eventId, followerIds));
+        User actor = userRepository.getReferenceById(actorId);
+        Post post = postRepository.getReferenceById(postId);
+
+        int created = 0;
+        for (Long followerId : followerIds) {
+            if (alreadyNotified.contains(followerId)) {
+                continue;
+            }
             Notification notification = new Notification();
             notification.setType(Notification.NotificationType.NEW_POST);
-            notification.setUser(follower);
+            notification.setUser(userRepository.getReferenceById(followerId));
             notification.setActor(actor);
             notification.setPost(post);
+            notification.setSourceEventId(eventId);
             notification.setRead(false);
 
             notificationRepository.save(notification);
+            created++;
         }
+        // Write the chunk and drop it from the persistence context
+        entityManager.flush();
+        entityManager.clear();
+        return created;
+    }
 
-        // Send email notifications to followers
-        emailService.sendNewPostEmails(actor, post, followers);
+    /**
+     * Followers who opted into immediate emails get one now; everyone else
+     * has the post queued for their next digest.
+     * <p>
+     * Runs outside a transaction: each page of followers is read and queued in
+     * its own short transaction, and the emails for the page are sent after it
+     * commits. Emails that could not be delivered fail the event once every
+     * page is done, so the relay retries it; the retry skips followers already
+     * emailed for this event and only resends the failed ones.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void sendNewPostEmails(OutboxEvent event) {
+        Post post = transactionTemplate.execute(status -> postRepository.findActivePostById(event.getPostId())
+                .map(found -> {
+                    Hibernate.initialize(found.getAuthor());
+                    return found;
+                })
+                .orElse(null));
+        if (post == null) {
+            log.info("Skipping new post emails, post {} no longer exists", event.getPostId());
+            return;
+        }
+        User author = post.getAuthor();
+        log.info("Sending new post emails for post {} by {}", post.getId(), author.getUsername());
+
+        // Followers are read a page at a time by id, so no cursor or
+        // transaction stays open while emails are sent. Each page renews the lease.
+        int queued = 0;
+        int emailed = 0;
+        int failed = 0;
+        long afterId = 0;
+        while (true) {
+            long cursor = afterId;
+            EmailPage page = transactionTemplate.execute(status -> prepareEmailPage(event.getId(), post, cursor));
+            EmailDeliveryReport report = emailService.sendNewPostEmails(author, post, page.immediate(), event.getId());
+            emailed += report.getSent();
+            failed += report.getFailed();
+            queued += page.queued();
+            outboxLeases.renew(event);
+            if (page.followers() < FAN_OUT_CHUNK_SIZE) {
+                break;
+            }
+            afterId = page.lastFollowerId();
+        }
+        log.info("Post {}: {} followers emailed, {} queued for digests", post.getId(), emailed, queued);
+        if (failed > 0) {
+            throw new EmailDeliveryException("Failed to email " + failed + " followers about post " + post.getId());
+        }
+    }
 
-        log.info("Created {} new post notifications", followers.size());
+    private EmailPage prepareEmailPage(Long eventId, Post post, long afterId) {
+        List<FollowerRecipient> followers = followRepository.findFollowerRecipients(
+                post.getAuthor().getId(), afterId, PageRequest.of(0, FAN_OUT_CHUNK_SIZE));
+        List<FollowerRecipient> immediate = new ArrayList<>();
+        List<Long> digest = new ArrayList<>();
+        for (FollowerRecipient follower : followers) {
+            if (follower.getEmailFrequency() == User.EmailFrequency.IMMEDIATE) {
+                immediate.add(follower);
+            } else {
+                digest.add(follower.getId());
+            }
+        }
+        int queued = emailDigestService.enqueue(post, digest);
+
+        if (!immediate.isEmpty()) {
+            Set<Long> alreadySent = new HashSet<>(emailDeliveryRepository.findRecipientIdsBySourceEventId(
+                    eventId, EmailDelivery.Status.SENT, immediate.stream().map(FollowerRecipient::getId).toList()));
+            immediate.removeIf(follower -> alreadySent.contains(follower.getId()));
+        }
+        long lastFollowerId = followers.isEmpty() ? afterId : followers.get(followers.size() - 1).getId();
+        return new EmailPage(immediate, queued, followers.size(), lastFollowerId);
     }
 
-    @Async
+    private record EmailPage(List<FollowerRecipient> immediate, int queued, int followers, long lastFollowerId) {
+    }
+
+    /**
+     * Mentioned users are read from the post's tag rows and matched to
+     * usernames ignoring case. Users who cannot view the post, and anyone
+     * already notified about it by an earlier edit or a redelivery, are skipped.
+     */
     @Transactional
-    public void createNewLikeNotification(User actor, Post post) {
+    public void createNewMentionNotification(OutboxEvent event) {
+        Post post = postRepository.findActivePostById(event.getPostId()).orElse(null);
+        if (post == null) {
+            return;
+        }
+        List<String> usernames = postTagService.findMentionedUsernames(post.getId());
+        if (usernames.isEmpty()) {
+            return;
+        }
+
+        User actor = post.getAuthor();
+        List<User> mentioned = userRepository.findByUsernameLowerIn(usernames).stream()
+                .filter(user -> Boolean.TRUE.equals(user.getEnabled()) && !user.getId().equals(actor.getId()))
+                .filter(user -> canView(user, post))
+                .toList();
+        if (mentioned.isEmpty()) {
+            return;
+        }
+        Set<Long> alreadyNotified = new HashSet<>(notificationRepository.findRecipientIdsByPostAndType(
+                post.getId(), Notification.NotificationType.NEW_MENTION,
+                mentioned.stream().map(User::getId).toList()));
+
+        int created = 0;
+        for (User user : mentioned) {
+            if (alreadyNotified.contains(user.getId())) {
+                continue;
+            }
+            Notification notification = new Notification();
+            notification.setType(Notification.NotificationType.NEW_MENTION);
+            notification.setUser(user);
+            notification.setActor(actor);
+            notification.setPost(post);
+            notification.setSourceEventId(event.getId());
+            notification.setRead(false);
+
+            notificationRepository.save(notification);
+            created++;
+        }
+        log.info("Created {} mention notifications for post: {}", created, post.getId());
+    }
+
+    /**
+     * The rule of PostRepository.findPostsForUser: private posts and drafts
+     * are only visible to their author.
+     */
+    private static boolean canView(User user, Post post) {
+        return post.getType() == Post.PostType.PUBLIC || post.getAuthor().getId().equals(user.getId());
+    }
+
+    @Transactional
+    public void createNewLikeNotification(OutboxEvent event) {
+        Post post = postRepository.findById(event.getPostId()).orElse(null);
+
         // Don't notify if user likes their own post
-        if (actor.getId().equals(post.getAuthor().getId())) {
+        if (post == null || event.getActorId().equals(post.getAuthor().getId())) {
+            return;
+        }
+        if (notificationRepository.existsBySourceEventId(event.getId())) {
             return;
         }
 
         Notification notification = new Notification();
         notification.setType(Notification.NotificationType.NEW_LIKE);
         notification.setUser(post.getAuthor());
-        notification.setActor(actor);
+        notification.setActor(userRepository.getReferenceById(event.getActorId()));
         notification.setPost(post);
+        notification.setSourceEventId(event.getId());
         notification.setRead(false);
 
         notificationRepository.save(notification);
         log.info("Created new like notification for post: {}", post.getId());
     }
 
-    @Async
     @Transactional
-    public void createNewCommentNotification(User actor, Comment comment) {
+    public void createNewCommentNotification(OutboxEvent event) {
+        Comment comment = commentRepository.findById(event.getCommentId()).orElse(null);
+        if (comment == null) {
+            return;
+        }
         Post post = comment.getPost();
 
         // Don't notify if user comments on their own post
-        if (actor.getId().equals(post.getAuthor().getId())) {
+        if (event.getActorId().equals(post.getAuthor().getId())) {
+            return;
+        }
+        if (notificationRepository.existsBySourceEventId(event.getId())) {
             return;
         }
 
         Notification notification = new Notification();
         notification.setType(Notification.NotificationType.NEW_COMMENT);
         notification.setUser(post.getAuthor());
-        notification.setActor(actor);
+        notification.setActor(userRepository.getReferenceById(event.getActorId()));
         notification.setPost(post);
         notification.setComment(comment);
+        notification.setSourceEventId(event.getId());
         notification.setRead(false);
 
         notificationRepository.save(notification);
         log.info("Created new comment notification for post: {}", post.getId());
     }
 
-    @Async
     @Transactional
-    public void createNewFollowNotification(User follower, User following) {
-        log.info("Async createNewFollowNotification started: {} -> {}", 
-                follower.getUsername(), following.getUsername());
-        try {
-            Notification notification = new Notification();
-            notification.setType(Notification.NotificationType.NEW_FOLLOW);
-            notification.setUser(following);
-            notification.setActor(follower);
-            notification.setRead(false);
-
-            log.debug("Saving follow notification to database");
-            notificationRepository.save(notification);
-            log.info("Successfully created new follow notification: {} followed {}", 
-                    follower.getUsername(), following.getUsername());
-        } catch (Exception e) {
-            log.error("Error creating new follow notification", e);
-            throw e;
+    public void createNewFollowNotification(OutboxEvent event) {
+        if (notificationRepository.existsBySourceEventId(event.getId())) {
+            return;
         }
+
+        Notification notification = new Notification();
+        notification.setType(Notification.NotificationType.NEW_FOLLOW);
+        notification.setUser(userRepository.getReferenceById(event.getTargetUserId()));
+        notification.setActor(userRepository.getReferenceById(event.getActorId()));
+        notification.setSourceEventId(event.getId());
+        notification.setRead(false);
+
+        notificationRepository.save(notification);
+        log.info("Created new follow notification: {} followed {}", event.getActorId(), event.getTargetUserId());
     }
 
     public Page<NotificationDto> getUserNotifications(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return notificationRepository.findByUserOrderByCreatedAtDesc(user, pageable)
-                .map(this::mapToDto);
+        NotificationReadMarker marker = getReadMarker(user);
+        return notificationRepository.findRowsByUserId(user.getId(), pageable)
+                .map(row -> mapToDto(row, marker));
     }
 
     public Page<NotificationDto> getUnreadNotifications(String username, Pageable pageable) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return notificationRepository.findByUserAndReadOrderByCreatedAtDesc(user, false, pageable)
-                .map(this::mapToDto);
+        NotificationReadMarker marker = getReadMarker(user);
+        return notificationRepository.findUnreadRowsAfterWatermark(
+                        user.getId(), marker.getLastReadAt(), marker.getLastReadId(), pageable)
+                .map(row -> mapToDto(row, marker));
     }
 
     public long getUnreadCount(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        return notificationRepository.countByUserAndRead(user, false);
+        NotificationReadMarker marker = getReadMarker(user);
+        return notificationRepository.countUnreadAfterWatermark(
+                user, marker.getLastReadAt(), marker.getLastReadId());
     }
 
     @Transactional
@@ -156,31 +363,52 @@ public class NotificationService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
 
-        int updated = notificationRepository.markAllAsReadByUser(user);
-        log.info("Marked {} notifications as read for user: {}", updated, username);
+        // Moving the watermark up to the newest notification is a single-row write,
+        // no matter how many unread notifications sit below it.
+        NotificationReadMarker marker = getReadMarker(user);
+        notificationRepository.findFirstByUserOrderByCreatedAtDescIdDesc(user)
+                .filter(latest -> !marker.covers(latest))
+                .ifPresent(latest -> {
+                    marker.setLastReadAt(latest.getCreatedAt());
+                    marker.setLastReadId(latest.getId());
+                    readMarkerRepository.save(marker);
+                    log.info("Moved read watermark to notification {} for user: {}", latest.getId(), username);
+                });
     }
 
-    private NotificationDto mapToDto(Notification notification) {
+    private NotificationReadMarker getReadMarker(User user) {
+        return readMarkerRepository.findById(user.getId())
+                .orElseGet(() -> NotificationReadMarker.initial(user.getId()));
+    }
+
+    private NotificationDto mapToDto(NotificationRow row, NotificationReadMarker marker) {
+        UserSummaryDto actor = new UserSummaryDto();
+        actor.setId(row.getActorId());
+        actor.setUsername(row.getActorUsername());
+        actor.setFirstName(row.getActorFirstName());
+        actor.setLastName(row.getActorLastName());
+        actor.setProfileImage(row.getActorProfileImage());
+        actor.setAvatarUrl(row.getActorAvatarUrl());
+
         NotificationDto dto = new NotificationDto();
-        dto.setId(notification.getId());
-        dto.setType(notification.getType());
-        dto.setActor(userMapper.toSummaryDto(notification.getActor()));
-        dto.setPostId(notification.getPost() != null ? notification.getPost().getId() : null);
-        dto.setCommentId(notification.getComment() != null ? notification.getComment().getId() : null);
-        dto.setRead(notification.isRead());
-        dto.setCreatedAt(notification.getCreatedAt());
-        dto.setMessage(formatNotificationMessage(notification));
+        dto.setId(row.getId());
+        dto.setType(row.getType());
+        dto.setActor(actor);
+        dto.setPostId(row.getPostId());
+        dto.setCommentId(row.getCommentId());
+        dto.setRead(row.isRead() || marker.covers(row.getId(), row.getCreatedAt()));
+        dto.setCreatedAt(row.getCreatedAt());
+        dto.setMessage(formatNotificationMessage(row.getType(), row.getActorUsername()));
         return dto;
     }
 
-    private String formatNotificationMessage(Notification notification) {
-        String actorName = notification.getActor().getUsername();
-
-        return switch (notification.getType()) {
+    private String formatNotificationMessage(Notification.NotificationType type, String actorName) {
+        return switch (type) {
             case NEW_POST -> actorName + " posted something new";
             case NEW_LIKE -> actorName + " liked your post";
             case NEW_COMMENT -> actorName + " commented on your post";
             case NEW_FOLLOW -> actorName + " started following you";
+            case NEW_MENTION -> actorName + " mentioned you in a post";
         };
     }
 }
@@ -0,0 +1,38 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.OutboxProperties;
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keeps an outbox event claimed while its handler works through a long
+ * fan-out, so other relays do not reclaim it after outbox.relay.lease.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxLeases {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxProperties properties;
+
+    /**
+     * Extend the lease by another outbox.relay.lease. Call it once per page.
+     * Throws when another relay has taken the event over: it runs the handler
+     * again, and the result of this run would be dropped anyway.
+     * Events that were not claimed by a relay (run directly) have no lease.
+     */
+    public void renew(OutboxEvent event) {
+        if (event.getStatus() != OutboxEvent.Status.PROCESSING) {
+            return;
+        }
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(properties.getLease());
+        if (outboxEventRepository.extendLease(event.getId(), event.getAttempts(),
+                OutboxEvent.Status.PROCESSING, leaseUntil) == 0) {
+            throw new IllegalStateException("Lost the claim on outbox event " + event.getId());
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.AsyncConfig;
+import com.minhtetthar.post_now.config.OutboxProperties;
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the outbox and dispatches due events to the bounded notification and
+ * email executors.
+ * Delivery is at-least-once: an event is marked processed only after its
+ * handler committed, so handlers must be idempotent.
+ * A handler that outlives its lease may find the event reclaimed by another
+ * relay; its outcome is then dropped and the newer claim decides.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final List<OutboxEvent.Status> CLAIMABLE =
+            List.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.PROCESSING);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final NotificationService notificationService;
+    private final ImageVariantService imageVariantService;
+    private final OutboxProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final ThreadPoolTaskExecutor emailExecutor;
+    private final ThreadPoolTaskExecutor imageExecutor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter processedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       NotificationService notificationService,
+                       OutboxProperties properties,
+                       MeterRegistry meterRegistry,
+                       @Qualifier(AsyncConfig.NOTIFICATION_EXECUTOR) ThreadPoolTaskExecutor notificationExecutor,
+                       @Qualifier(AsyncConfig.EMAIL_EXECUTOR) ThreadPoolTaskExecutor emailExecutor,
+                       @Qualifier(AsyncConfig.IMAGE_EXECUTOR) ThreadPoolTaskExecutor imageExecutor,
+                       ImageVariantService imageVariantService) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.notificationService = notificationService;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.notificationExecutor = notificationExecutor;
+        this.emailExecutor = emailExecutor;
+        this.imageExecutor = imageExecutor;
+        this.imageVariantService = imageVariantService;
+
+        this.processedCounter = meterRegistry.counter("outbox.events.processed");
+        this.retriedCounter = meterRegistry.counter("outbox.events.retried");
+        this.failedCounter = meterRegistry.counter("outbox.events.failed");
+        Gauge.builder("outbox.events.pending", pending, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("outbox.relay.in-flight", inFlight, AtomicInteger::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval:1000}")
+    public void poll() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        pending.set(outboxEventRepository.countByStatus(OutboxEvent.Status.PENDING));
+
+        // Only claim what the executors can still queue, so claimed events never wait out their lease in memory
+        int capacity = remainingCapacity(notificationExecutor) + remainingCapacity(emailExecutor)
+                + remainingCapacity(imageExecutor);
+        int limit = Math.min(properties.getBatchSize(), capacity);
+        if (limit <= 0) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> dueIds = outboxEventRepository.findDueIds(CLAIMABLE, now, PageRequest.of(0, limit));
+
+        for (Long id : dueIds) {
+            LocalDateTime leaseUntil = now.plus(properties.getLease());
+            if (outboxEventRepository.claim(id, CLAIMABLE, OutboxEvent.Status.PROCESSING, now, leaseUntil) == 0) {
+                continue; // Claimed by another instance
+            }
+            submit(id);
+        }
+    }
+
+    private void submit(Long id) {
+        OutboxEvent event = outboxEventRepository.findById(id).orElse(null);
+        if (event == null) {
+            return;
+        }
+
+        ThreadPoolTaskExecutor executor = switch (event.getType()) {
+            case NEW_POST_EMAIL -> emailExecutor;
+            case POST_IMAGE_VARIANTS, PROFILE_IMAGE_VARIANTS -> imageExecutor;
+            default -> notificationExecutor;
+        };
+
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    process(event);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            outboxEventRepository.release(id, OutboxEvent.Status.PENDING, LocalDateTime.now());
+            log.debug("Executor saturated, released outbox event {}", id);
+        }
+    }
+
+    private int remainingCapacity(ThreadPoolTaskExecutor executor) {
+        ThreadPoolExecutor pool = executor.getThreadPoolExecutor();
+        return pool.getQueue().remainingCapacity() + pool.getMaximumPoolSize() - pool.getActiveCount();
+    }
+
+    @Scheduled(cron = "${outbox.relay.cleanup-cron:0 0 * * * *}")
+    public void cleanup() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getCleanupAfter());
+        int deleted = outboxEventRepository.deleteByStatusAndProcessedAtBefore(OutboxEvent.Status.PROCESSED, cutoff);
+        if (deleted > 0) {
+            log.info("Deleted {} processed outbox events", deleted);
+        }
+    }
+
+    private void process(OutboxEvent event) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            dispatch(event);
+
+            if (finish(event, OutboxEvent.Status.PROCESSED, event.getAvailableAt(), LocalDateTime.now(), null)) {
+                processedCounter.increment();
+            }
+        } catch (Exception e) {
+            handleFailure(event, e);
+        } finally {
+            sample.stop(meterRegistry.timer("outbox.dispatch", "type", event.getType().name()));
+        }
+    }
+
+    private void dispatch(OutboxEvent event) {
+        switch (event.getType()) {
+            case NEW_POST -> notificationService.createNewPostNotification(event);
+            case NEW_POST_EMAIL -> notificationService.sendNewPostEmails(event);
+            case NEW_MENTION -> notificationService.createNewMentionNotification(event);
+            case NEW_LIKE -> notificationService.createNewLikeNotification(event);
+            case NEW_COMMENT -> notificationService.createNewCommentNotification(event);
+            case NEW_FOLLOW -> notificationService.createNewFollowNotification(event);
+            case POST_IMAGE_VARIANTS -> imageVariantService.generatePostVariants(event);
+            case PROFILE_IMAGE_VARIANTS -> imageVariantService.generateProfileVariants(event);
+        }
+    }
+
+    private void handleFailure(OutboxEvent event, Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        error = error.length() > 1000 ? error.substring(0, 1000) : error;
+
+        if (event.getAttempts() >= properties.getMaxAttempts()) {
+            if (finish(event, OutboxEvent.Status.FAILED, event.getAvailableAt(), null, error)) {
+                failedCounter.increment();
+                log.error("Outbox event {} ({}) failed permanently after {} attempts",
+                        event.getId(), event.getType(), event.getAttempts(), e);
+            }
+        } else {
+            LocalDateTime retryAt = LocalDateTime.now().plus(backoff(event.getAttempts()));
+            if (finish(event, OutboxEvent.Status.PENDING, retryAt, null, error)) {
+                retriedCounter.increment();
+                log.warn("Outbox event {} ({}) failed on attempt {}, retrying at {}",
+                        event.getId(), event.getType(), event.getAttempts(), retryAt, e);
+            }
+        }
+    }
+
+    /**
+     * Store the outcome unless another relay reclaimed the event meanwhile.
+     */
+    private boolean finish(OutboxEvent event, OutboxEvent.Status status, LocalDateTime availableAt,
+                           LocalDateTime processedAt, String error) {
+        if (outboxEventRepository.finish(event.getId(), event.getAttempts(), OutboxEvent.Status.PROCESSING,
+                status, availableAt, processedAt, error) == 0) {
+            log.warn("Outbox event {} ({}) was reclaimed after its lease expired, dropping the outcome of attempt {}",
+                    event.getId(), event.getType(), event.getAttempts());
+            return false;
+        }
+        return true;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = properties.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(properties.getMaxRetryBackoff()) > 0 ? properties.getMaxRetryBackoff() : delay;
+    }
+}
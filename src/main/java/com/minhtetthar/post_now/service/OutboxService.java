@@ -0,0 +1,59 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Records domain events in the caller's transaction, so an event exists
+ * if and only if the change that caused it was committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    public void publishNewPost(Long authorId, Long postId) {
+        publish(OutboxEvent.EventType.NEW_POST, authorId, postId, null, null);
+        publish(OutboxEvent.EventType.NEW_POST_EMAIL, authorId, postId, null, null);
+    }
+
+    public void publishNewMention(Long authorId, Long postId) {
+        publish(OutboxEvent.EventType.NEW_MENTION, authorId, postId, null, null);
+    }
+
+    public void publishNewLike(Long actorId, Long postId) {
+        publish(OutboxEvent.EventType.NEW_LIKE, actorId, postId, null, null);
+    }
+
+    public void publishNewComment(Long actorId, Long postId, Long commentId) {
+        publish(OutboxEvent.EventType.NEW_COMMENT, actorId, postId, commentId, null);
+    }
+
+    public void publishNewFollow(Long followerId, Long followingId) {
+        publish(OutboxEvent.EventType.NEW_FOLLOW, followerId, null, null, followingId);
+    }
+
+    public void publishPostImageChanged(Long authorId, Long postId) {
+        publish(OutboxEvent.EventType.POST_IMAGE_VARIANTS, authorId, postId, null, null);
+    }
+
+    public void publishProfileImageChanged(Long userId) {
+        publish(OutboxEvent.EventType.PROFILE_IMAGE_VARIANTS, userId, null, null, userId);
+    }
+
+    private void publish(OutboxEvent.EventType type, Long actorId, Long postId, Long commentId, Long targetUserId) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setActorId(actorId);
+        event.setPostId(postId);
+        event.setCommentId(commentId);
+        event.setTargetUserId(targetUserId);
+        outboxEventRepository.save(event);
+    }
+}
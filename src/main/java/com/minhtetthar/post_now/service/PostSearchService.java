@@ -0,0 +1,133 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.service.search.PostSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Post search. On Postgres queries go through a generated tsvector column with
+ * a GIN index, so their cost follows the number of matches rather than the
+ * table size, and results are ranked. Elsewhere (H2 in development) the
+ * portable LIKE query is used.
+ * <p>
+ * With search.posts.index.enabled, queries are answered by the embedded
+ * Lucene index instead and only the matching posts are loaded from the
+ * database; the queries above remain the fallback while the index opens.
+ */
+@Service
+@Slf4j
+public class PostSearchService {
+
+    private static final String SCHEMA_SCRIPT = "db/postgres/posts-search.sql";
+    private static final String MIGRATION_SCRIPT = "db/postgres/posts-search-migration.sql";
+
+    private final PostRepository postRepository;
+    private final DatabasePlatform databasePlatform;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final SearchProperties.Posts properties;
+    private final PostSearchIndex postSearchIndex;
+
+    private volatile boolean fullTextAvailable;
+
+    public PostSearchService(PostRepository postRepository,
+                             DatabasePlatform databasePlatform,
+                             JdbcTemplate jdbcTemplate,
+                             DataSource dataSource,
+                             SearchProperties searchProperties,
+                             PostSearchIndex postSearchIndex) {
+        this.postRepository = postRepository;
+        this.databasePlatform = databasePlatform;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.properties = searchProperties.getPosts();
+        this.postSearchIndex = postSearchIndex;
+    }
+
+    /**
+     * Runs after Hibernate has created or updated the posts table. Never alters
+     * posts: the search_vector column comes from a one-off migration, and only
+     * the index, built concurrently, is created here.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeFullText() {
+        if (!properties.isFullTextEnabled() || !databasePlatform.isPostgres()) {
+            return;
+        }
+        Boolean present = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+                        "WHERE table_name = 'posts' AND column_name = 'search_vector')",
+                Boolean.class);
+        if (!Boolean.TRUE.equals(present)) {
+            log.warn("posts.search_vector is missing, post search falls back to LIKE. Run {} once.",
+                    MIGRATION_SCRIPT);
+            return;
+        }
+
+        if (properties.isInitializeSchema()) {
+            try {
+                new ResourceDatabasePopulator(new ClassPathResource(SCHEMA_SCRIPT)).execute(dataSource);
+            } catch (DataAccessException e) {
+                log.error("Could not initialize post full-text search from {}", SCHEMA_SCRIPT, e);
+            }
+        }
+        fullTextAvailable = true;
+        log.info("Post search uses the Postgres full-text index");
+    }
+
+    public Page<Post> search(String searchTerm, Pageable pageable) {
+        if (postSearchIndex.isReady()) {
+            return searchIndex(searchTerm, pageable);
+        }
+        if (fullTextAvailable) {
+            // Results are ordered by rank; a client supplied sort would be appended to the native query
+            return postRepository.findByFullTextSearch(searchTerm,
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        }
+        return postRepository.findBySearchTerm(searchTerm, pageable);
+    }
+
+    private Page<Post> searchIndex(String searchTerm, Pageable pageable) {
+        PostSearchIndex.SearchHits hits = postSearchIndex.search(
+                searchTerm, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.postIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.total());
+        }
+
+        // One query for the page, then back into ranking order
+        Map<Long, Post> byId = new HashMap<>();
+        for (Post post : postRepository.findAllById(hits.postIds())) {
+            if (Boolean.TRUE.equals(post.getActive())) {
+                byId.put(post.getId(), post);
+            }
+        }
+        List<Post> posts = new ArrayList<>(byId.size());
+        for (Long id : hits.postIds()) {
+            Post post = byId.get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return new PageImpl<>(posts, pageable, hits.total());
+    }
+}
@@ -5,6 +5,7 @@ import com.minhtetthar.post_now.dto.post.PostDto;
 import com.minhtetthar.post_now.dto.post.PostUpdateDto;
 import com.minhtetthar.post_now.entity.Post;
 import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.event.PostChangedEvent;
 import com.minhtetthar.post_now.mapper.PostMapper;
 import com.minhtetthar.post_now.repository.CommentRepository;
 import com.minhtetthar.post_now.repository.LikeRepository;
@@ -12,11 +13,14 @@ import com.minhtetthar.post_now.repository.PostRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Objects;
+
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -27,6 +31,10 @@ public class PostService {
     private final LikeRepository likeRepository;
     private final PostMapper postMapper;
     private final UserService userService;
+    private final OutboxService outboxService;
+    private final PostSearchService postSearchService;
+    private final PostTagService postTagService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Cacheable(value = "posts", key = "#id")
     public PostDto getPostById(Long id, String currentUsername) {
@@ -35,6 +43,16 @@ public class PostService {
         return enrichPostDto(post, currentUsername);
     }
 
+    /**
+     * The post's current image, read from the row: the cached PostDto can
+     * predate the last image change.
+     */
+    public String getImageUrl(Long id) {
+        return postRepository.findActivePostById(id)
+                .orElseThrow(() -> new RuntimeException("Post not found with id: " + id))
+                .getImageUrl();
+    }
+
     public Page<PostDto> getAllPosts(Pageable pageable, String currentUsername) {
         Page<Post> posts;
 
@@ -55,7 +73,12 @@ public class PostService {
     }
 
     public Page<PostDto> searchPosts(String searchTerm, Pageable pageable, String currentUsername) {
-        return postRepository.findBySearchTerm(searchTerm, pageable)
+        return postSearchService.search(searchTerm, pageable)
+                .map(post -> enrichPostDto(post, currentUsername));
+    }
+
+    public Page<PostDto> getPostsByTag(String tag, Pageable pageable, String currentUsername) {
+        return postTagService.findPublicPostsByTag(tag, pageable)
                 .map(post -> enrichPostDto(post, currentUsername));
     }
 
@@ -67,6 +90,16 @@ public class PostService {
         Post post = postMapper.toEntity(createDto);
         post.setAuthor(author);
         post = postRepository.save(post);
+        eventPublisher.publishEvent(PostChangedEvent.saved(post));
+
+        // Followers are notified by the outbox relay once this transaction commits
+        outboxService.publishNewPost(author.getId(), post.getId());
+        if (!postTagService.index(post).isEmpty()) {
+            outboxService.publishNewMention(author.getId(), post.getId());
+        }
+        if (post.getImageUrl() != null) {
+            outboxService.publishPostImageChanged(author.getId(), post.getId());
+        }
 
         return enrichPostDto(post, username);
     }
@@ -81,8 +114,22 @@ public class PostService {
             throw new RuntimeException("You don't have permission to update this post");
         }
 
+        String previousImageUrl = post.getImageUrl();
         postMapper.updateEntity(post, updateDto);
+        if (!Objects.equals(previousImageUrl, post.getImageUrl())) {
+            // Variants of the old image no longer apply; new ones follow asynchronously
+            post.setThumbnailUrl(null);
+            post.setDisplayImageUrl(null);
+            if (post.getImageUrl() != null) {
+                outboxService.publishPostImageChanged(post.getAuthor().getId(), post.getId());
+            }
+        }
         post = postRepository.save(post);
+        eventPublisher.publishEvent(PostChangedEvent.saved(post));
+        if (!postTagService.index(post).isEmpty()) {
+            // Only users mentioned by this edit are notified
+            outboxService.publishNewMention(post.getAuthor().getId(), post.getId());
+        }
 
         return enrichPostDto(post, username);
     }
@@ -99,11 +146,8 @@ public class PostService {
 
         post.setActive(false);
         postRepository.save(post);
-    }
-
-    public Post getPostEntity(Long id) {
-        return postRepository.findActivePostById(id)
-                .orElseThrow(() -> new RuntimeException("Post not found with id: " + id));
+        postTagService.remove(post);
+        eventPublisher.publishEvent(PostChangedEvent.deleted(post.getId()));
     }
 
     @Cacheable(value = "postStats", key = "#post.id + '-' + #currentUsername")
@@ -0,0 +1,121 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.PostTag;
+import com.minhtetthar.post_now.repository.PostTagRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the post_tags index in step with post text. Posts are parsed once
+ * when they are written, so tag feeds and mention notifications read index
+ * rows instead of scanning post content.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PostTagService {
+
+    // Not inside a word, an email address or an HTML entity ("&#38;"); tags start with a letter
+    private static final Pattern HASHTAG = Pattern.compile("(?<![\\p{L}\\p{N}_&#])#(\\p{L}[\\p{L}\\p{N}_]{0,98})");
+    private static final Pattern MENTION = Pattern.compile("(?<![\\p{L}\\p{N}_@.])@([A-Za-z0-9_]{3,50})");
+
+    // Bound the rows written, and the notifications sent, for a single post. Counted
+    // apart, so a post full of hashtags still notifies the users it mentions.
+    private static final int MAX_HASHTAGS_PER_POST = 30;
+    private static final int MAX_MENTIONS_PER_POST = 30;
+
+    private final PostTagRepository postTagRepository;
+
+    /**
+     * Hashtags ("#java") and mentions ("@john") in {@code texts}, both lowercased.
+     */
+    public static Set<String> extract(String... texts) {
+        Set<String> hashtagTags = new LinkedHashSet<>();
+        Set<String> mentionTags = new LinkedHashSet<>();
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            Matcher hashtags = HASHTAG.matcher(text);
+            while (hashtagTags.size() < MAX_HASHTAGS_PER_POST && hashtags.find()) {
+                hashtagTags.add("#" + hashtags.group(1).toLowerCase(Locale.ROOT));
+            }
+            Matcher mentions = MENTION.matcher(text);
+            while (mentionTags.size() < MAX_MENTIONS_PER_POST && mentions.find()) {
+                mentionTags.add("@" + mentions.group(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        Set<String> tags = new LinkedHashSet<>(hashtagTags);
+        tags.addAll(mentionTags);
+        return tags;
+    }
+
+    public static boolean isMention(String tag) {
+        return tag.startsWith("@");
+    }
+
+    /**
+     * Bring the post's index rows in line with its current title and content.
+     *
+     * @return the mentions the post did not have before
+     */
+    @Transactional
+    public Set<String> index(Post post) {
+        Set<String> tags = extract(post.getTitle(), post.getContent());
+        Set<String> existing = new HashSet<>(postTagRepository.findTagsByPostId(post.getId()));
+
+        Set<String> removed = new HashSet<>(existing);
+        removed.removeAll(tags);
+        if (!removed.isEmpty()) {
+            postTagRepository.deleteByPostIdAndTagIn(post.getId(), removed);
+        }
+
+        List<PostTag> added = new ArrayList<>();
+        Set<String> newMentions = new LinkedHashSet<>();
+        for (String tag : tags) {
+            if (existing.contains(tag)) {
+                continue;
+            }
+            added.add(new PostTag(null, tag, post, post.getCreatedAt()));
+            if (isMention(tag)) {
+                newMentions.add(tag);
+            }
+        }
+        postTagRepository.saveAll(added);
+        return newMentions;
+    }
+
+    @Transactional
+    public void remove(Post post) {
+        postTagRepository.deleteByPostId(post.getId());
+    }
+
+    public Page<Post> findPublicPostsByTag(String tag, Pageable pageable) {
+        String normalized = tag.startsWith("#") ? tag.substring(1) : tag;
+        return postTagRepository.findPublicPostsByTag("#" + normalized.toLowerCase(Locale.ROOT), pageable);
+    }
+
+    /**
+     * Usernames mentioned in the post, lowercased and without the leading "@".
+     */
+    public List<String> findMentionedUsernames(Long postId) {
+        return postTagRepository.findTagsByPostId(postId).stream()
+                .filter(PostTagService::isMention)
+                .map(tag -> tag.substring(1).toLowerCase(Locale.ROOT)) // Rows written before mentions were lowercased
+                .distinct()
+                .toList();
+    }
+}
@@ -0,0 +1,234 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.StorageProperties;
+import com.minhtetthar.post_now.entity.StoredObject;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.StoredObjectRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.storage.StorageBackend;
+import com.minhtetthar.post_now.service.storage.StorageDiskCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes stored images nothing refers to anymore: uploads whose post was
+ * never created, unconfirmed presigned uploads, images of deleted posts and
+ * replaced profile images. The bucket is listed and compared against the
+ * image URLs of active posts and of all users, including disabled ones whose
+ * accounts may be enabled again; unreferenced originals and their
+ * variants older than the grace period are removed with multi-object deletes.
+ */
+@Service
+@Slf4j
+public class StorageGarbageCollector {
+
+    private final StorageBackend storageBackend;
+    private final StorageDiskCache diskCache;
+    private final FileStorageService fileStorageService;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final StoredObjectRepository storedObjectRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final StorageProperties.Gc properties;
+    private final Counter deletedCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public StorageGarbageCollector(StorageBackend storageBackend,
+                                   StorageDiskCache diskCache,
+                                   FileStorageService fileStorageService,
+                                   PostRepository postRepository,
+                                   UserRepository userRepository,
+                                   StoredObjectRepository storedObjectRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   StorageProperties storageProperties,
+                                   MeterRegistry meterRegistry) {
+        this.storageBackend = storageBackend;
+        this.diskCache = diskCache;
+        this.fileStorageService = fileStorageService;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.storedObjectRepository = storedObjectRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = storageProperties.getGc();
+        this.deletedCounter = Counter.builder("storage.gc.deleted")
+                .description("Orphaned objects (originals and variants) deleted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${storage.gc.cron:0 15 4 * * *}")
+    public void runScheduledCollection() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        collectOrphans();
+    }
+
+    /**
+     * Run one pass and return the number of deleted objects.
+     */
+    public long collectOrphans() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Orphan collection already running, skipping");
+            return 0;
+        }
+
+        try {
+            Instant cutoff = Instant.now().minus(properties.getGracePeriod());
+
+            // Snapshot first: anything referenced after this is either younger than
+            // the cutoff or caught by the re-check under lock in deleteBatch
+            Set<String> referenced = new HashSet<>();
+            addStems(referenced, postRepository.findActiveImageUrls());
+            addStems(referenced, userRepository.findProfileImages());
+
+            Map<String, List<String>> orphans = new LinkedHashMap<>();
+            Set<String> recent = new HashSet<>();
+            AtomicLong listed = new AtomicLong();
+            for (String prefix : properties.getPrefixes()) {
+                storageBackend.list(prefix, object -> {
+                    listed.incrementAndGet();
+                    String stem = FileStorageService.stemOf(object.getKey());
+                    if (referenced.contains(stem)) {
+                        return;
+                    }
+                    if (object.getLastModified().isAfter(cutoff)) {
+                        recent.add(stem); // A fresh variant means its original is in use
+                        return;
+                    }
+                    orphans.computeIfAbsent(stem, s -> new ArrayList<>()).add(object.getKey());
+                });
+            }
+            orphans.keySet().removeAll(recent);
+
+            long deleted = 0;
+            List<String> batch = new ArrayList<>(properties.getBatchSize());
+            for (String stem : orphans.keySet()) {
+                batch.add(stem);
+                if (batch.size() == properties.getBatchSize()) {
+                    deleted += deleteBatch(batch, orphans, cutoff);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                deleted += deleteBatch(batch, orphans, cutoff);
+            }
+
+            log.info("Orphan collection listed {} objects, deleted {} ({} candidate images)",
+                    listed.get(), deleted, orphans.size());
+            return deleted;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Deletes like FileStorageService.deleteImage: the rows are marked as being
+     * deleted (no references) and committed, then the objects are deleted with
+     * no lock held, then the rows are removed. Uploads of the same content wait
+     * for the mark to go instead of deduplicating onto a key that is about to
+     * disappear.
+     */
+    private long deleteBatch(List<String> stems, Map<String, List<String>> orphans, Instant cutoff) {
+        List<String> keys = new ArrayList<>();
+        List<String> marked = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Originals are the keys that are not variants of something else
+            Map<String, String> originalByStem = new HashMap<>();
+            for (String stem : stems) {
+                for (String key : orphans.get(stem)) {
+                    if (!key.startsWith(stem + "_")) {
+                        originalByStem.put(stem, key);
+                    }
+                }
+            }
+
+            // Locking the rows makes a concurrent upload of the same content wait for us
+            Map<String, StoredObject> rows = new HashMap<>();
+            for (StoredObject row : storedObjectRepository.findAllForUpdate(originalByStem.values())) {
+                rows.put(row.getObjectKey(), row);
+            }
+            List<String> urls = originalByStem.values().stream().map(fileStorageService::urlOf).toList();
+            Set<String> stillReferenced = new HashSet<>();
+            addStems(stillReferenced, postRepository.findActiveImageUrlsIn(urls));
+            addStems(stillReferenced, userRepository.findProfileImagesIn(urls));
+            LocalDateTime rowCutoff = LocalDateTime.ofInstant(cutoff, ZoneId.systemDefault());
+
+            List<StoredObject> marks = new ArrayList<>();
+            for (String stem : stems) {
+                if (stillReferenced.contains(stem)) {
+                    continue;
+                }
+                String original = originalByStem.get(stem);
+                StoredObject row = rows.get(original);
+                if (row != null && row.getUpdatedAt() != null && row.getUpdatedAt().isAfter(rowCutoff)) {
+                    continue; // Referenced again recently, the post may not be saved yet
+                }
+                keys.addAll(orphans.get(stem));
+                if (original == null) {
+                    continue; // Only variants left, nothing can be deduplicated onto them
+                }
+                if (row == null) {
+                    // Stored before reference counting; the mark still holds uploads off
+                    row = new StoredObject();
+                    row.setObjectKey(original);
+                }
+                row.setRefCount(0);
+                row.setUpdatedAt(LocalDateTime.now());
+                marks.add(row);
+                marked.add(original);
+            }
+            storedObjectRepository.saveAll(marks);
+        });
+        if (keys.isEmpty()) {
+            return 0;
+        }
+
+        List<String> failed;
+        try {
+            failed = storageBackend.delete(keys);
+            diskCache.evict(keys);
+        } finally {
+            // Whatever failed is listed again by the next run. Rows taken over by an
+            // upload after a stale mark have references again and stay.
+            if (!marked.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> storedObjectRepository.deleteAllInBatch(
+                        storedObjectRepository.findAllForUpdate(marked).stream()
+                                .filter(row -> row.getRefCount() == 0)
+                                .toList()));
+            }
+        }
+        if (!failed.isEmpty()) {
+            log.warn("Storage did not delete {} of {} orphaned objects: {}", failed.size(), keys.size(), failed);
+        }
+        long deleted = keys.size() - failed.size();
+        deletedCounter.increment(deleted);
+        return deleted;
+    }
+
+    private void addStems(Set<String> stems, List<String> imageUrls) {
+        for (String imageUrl : imageUrls) {
+            String key = fileStorageService.keyOf(imageUrl);
+            if (key != null) {
+                stems.add(FileStorageService.stemOf(key));
+            }
+        }
+    }
+}
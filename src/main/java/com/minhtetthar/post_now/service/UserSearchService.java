@@ -0,0 +1,125 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.search.UserTrigramIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fuzzy user search: substrings and misspellings of usernames and names,
+ * most similar first. On Postgres queries go through a pg_trgm GIN index;
+ * elsewhere (H2 in development) through the in-memory
+ * {@link UserTrigramIndex}. The leading-wildcard LIKE query, which scans the
+ * users table, is only the fallback while neither is available.
+ */
+@Service
+@Slf4j
+public class UserSearchService {
+
+    private static final String SCHEMA_SCRIPT = "db/postgres/users-trigram.sql";
+
+    private final UserRepository userRepository;
+    private final DatabasePlatform databasePlatform;
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final SearchProperties.Users properties;
+    private final UserTrigramIndex userTrigramIndex;
+
+    private volatile boolean trigramAvailable;
+
+    public UserSearchService(UserRepository userRepository,
+                             DatabasePlatform databasePlatform,
+                             JdbcTemplate jdbcTemplate,
+                             DataSource dataSource,
+                             SearchProperties searchProperties,
+                             UserTrigramIndex userTrigramIndex) {
+        this.userRepository = userRepository;
+        this.databasePlatform = databasePlatform;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.properties = searchProperties.getUsers();
+        this.userTrigramIndex = userTrigramIndex;
+    }
+
+    /**
+     * Runs after Hibernate has created or updated the users table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeTrigram() {
+        if (!properties.isFuzzyEnabled() || !databasePlatform.isPostgres()) {
+            return;
+        }
+        if (properties.isInitializeSchema()) {
+            try {
+                new ResourceDatabasePopulator(new ClassPathResource(SCHEMA_SCRIPT)).execute(dataSource);
+            } catch (DataAccessException e) {
+                log.error("Could not initialize user trigram search from {}", SCHEMA_SCRIPT, e);
+            }
+        }
+
+        Boolean present = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'idx_users_search_trgm')",
+                Boolean.class);
+        trigramAvailable = Boolean.TRUE.equals(present);
+        if (trigramAvailable) {
+            log.info("User search uses the pg_trgm index");
+        } else {
+            log.warn("idx_users_search_trgm is missing, user search falls back to LIKE. Run {} first.", SCHEMA_SCRIPT);
+        }
+    }
+
+    public Page<User> search(String searchTerm, Pageable pageable) {
+        if (trigramAvailable) {
+            // Results are ordered by similarity; a client supplied sort would be appended to the native query
+            return userRepository.findByTrigramSearch(searchTerm.trim(),
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        }
+        if (properties.isFuzzyEnabled() && userTrigramIndex.isReady()) {
+            return searchIndex(searchTerm, pageable);
+        }
+        return userRepository.findBySearchTerm(searchTerm, pageable);
+    }
+
+    private Page<User> searchIndex(String searchTerm, Pageable pageable) {
+        UserTrigramIndex.SearchHits hits = userTrigramIndex.search(
+                searchTerm, (int) pageable.getOffset(), pageable.getPageSize());
+        if (hits.userIds().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, hits.total());
+        }
+
+        // One query for the page, then back into ranking order
+        Map<Long, User> byId = new HashMap<>();
+        for (User user : userRepository.findAllById(hits.userIds())) {
+            if (Boolean.TRUE.equals(user.getEnabled())) {
+                byId.put(user.getId(), user);
+            }
+        }
+        List<User> users = new ArrayList<>(byId.size());
+        for (Long id : hits.userIds()) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return new PageImpl<>(users, pageable, hits.total());
+    }
+}
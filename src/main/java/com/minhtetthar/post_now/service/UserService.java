@@ -1,22 +1,32 @@
 package com.minhtetthar.post_now.service;
 
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.dto.user.UserAutocompleteDto;
 import com.minhtetthar.post_now.dto.user.UserCreateDto;
 import com.minhtetthar.post_now.dto.user.UserDto;
 import com.minhtetthar.post_now.dto.user.UserUpdateDto;
 import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.event.UserChangedEvent;
 import com.minhtetthar.post_now.mapper.UserMapper;
 import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.search.UserAutocompleteIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+import java.util.Objects;
+
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -25,6 +35,11 @@ public class UserService implements UserDetailsService {
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final OutboxService outboxService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserAutocompleteIndex autocompleteIndex;
+    private final UserSearchService userSearchService;
+    private final SearchProperties searchProperties;
 
     @Override
     @Cacheable(value = "users", key = "#username")
@@ -38,7 +53,7 @@ public class UserService implements UserDetailsService {
         return userMapper.toDto(user);
     }
 
-    @Cacheable(value = "users", key = "#id")
+    @Cacheable(value = "usersById", key = "#id")
     public UserDto getUserById(Long id) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
@@ -55,8 +70,29 @@ public class UserService implements UserDetailsService {
                 .map(userMapper::toDto);
     }
 
+    /**
+     * Users whose username, first or last name starts with the query, most
+     * followed first. Served from memory once the index is built.
+     */
+    public List<UserAutocompleteDto> autocomplete(String query, Integer limit) {
+        int size = Math.min(limit == null || limit <= 0 ? searchProperties.getAutocomplete().getDefaultLimit() : limit,
+                searchProperties.getAutocomplete().getMaxLimit());
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (searchProperties.getAutocomplete().isEnabled() && autocompleteIndex.isReady()) {
+            return autocompleteIndex.suggest(query, size);
+        }
+        PageRequest page = PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "followerCount")
+                .and(Sort.by("username")));
+        return userRepository.findBySearchTerm(query.trim(), page).stream()
+                .map(user -> new UserAutocompleteDto(user.getId(), user.getUsername(),
+                        user.getFirstName(), user.getLastName(), user.getFollowerCount()))
+                .toList();
+    }
+
     public Page<UserDto> searchUsers(String searchTerm, Pageable pageable) {
-        return userRepository.findBySearchTerm(searchTerm, pageable)
+        return userSearchService.search(searchTerm, pageable)
                 .map(userMapper::toDto);
     }
 
@@ -73,11 +109,12 @@ public class UserService implements UserDetailsService {
         user.setPassword(passwordEncoder.encode(createDto.getPassword()));
         user.setRole(User.Role.USER);
         user = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(user));
         return userMapper.toDto(user);
     }
 
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
+    @CacheEvict(value = {"users", "usersById"}, allEntries = true)
     public UserDto updateUser(String username, UserUpdateDto updateDto) {
         User user = loadUserByUsername(username);
 
@@ -87,16 +124,26 @@ public class UserService implements UserDetailsService {
             }
         }
 
+        String previousProfileImage = user.getProfileImage();
         userMapper.updateEntity(user, updateDto);
+        if (!Objects.equals(previousProfileImage, user.getProfileImage())) {
+            // The avatar of the old image no longer applies; a new one follows asynchronously
+            user.setAvatarUrl(null);
+            if (user.getProfileImage() != null) {
+                outboxService.publishProfileImageChanged(user.getId());
+            }
+        }
         user = userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(user));
         return userMapper.toDto(user);
     }
 
     @Transactional
-    @CacheEvict(value = "users", allEntries = true)
+    @CacheEvict(value = {"users", "usersById"}, allEntries = true)
     public void deleteUser(String username) {
         User user = loadUserByUsername(username);
         user.setEnabled(false);
         userRepository.save(user);
+        eventPublisher.publishEvent(UserChangedEvent.of(user));
     }
 }
\ No newline at end of file
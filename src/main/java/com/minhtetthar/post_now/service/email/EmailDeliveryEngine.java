@@ -0,0 +1,189 @@
+package com.minhtetthar.post_now.service.email;
+
+import com.minhtetthar.post_now.config.EmailDeliveryProperties;
+import com.minhtetthar.post_now.entity.EmailDelivery;
+import com.minhtetthar.post_now.repository.EmailDeliveryRepository;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Delivers emails in provider-sized batches. Batches are sent concurrently on
+ * virtual threads, bounded by a concurrency limit and a global requests-per-second
+ * limit, and retried with exponential backoff. The outcome for every recipient
+ * is stored in email_deliveries.
+ * <p>
+ * Emails that still fail after the last attempt are returned in the report
+ * rather than dropped, so callers can fail the work that sent them and have
+ * it retried.
+ */
+@Component
+@Slf4j
+public class EmailDeliveryEngine {
+
+    private final EmailTransport transport;
+    private final EmailDeliveryRepository deliveryRepository;
+    private final EmailDeliveryProperties properties;
+    private final String fromEmail;
+
+    private final Bucket rateLimit;
+    private final Semaphore concurrency;
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+
+    public EmailDeliveryEngine(EmailTransport transport,
+                               EmailDeliveryRepository deliveryRepository,
+                               EmailDeliveryProperties properties,
+                               MeterRegistry meterRegistry,
+                               @Value("${resend.from-email}") String fromEmail) {
+        this.transport = transport;
+        this.deliveryRepository = deliveryRepository;
+        this.properties = properties;
+        this.fromEmail = fromEmail;
+
+        int rate = Math.max(1, properties.getRequestsPerSecond());
+        this.rateLimit = Bucket.builder()
+                .addLimit(Bandwidth.builder()
+                        .capacity(rate)
+                        .refillGreedy(rate, Duration.ofSeconds(1))
+                        .build())
+                .build();
+        this.concurrency = new Semaphore(Math.max(1, properties.getMaxConcurrency()));
+
+        this.sentCounter = meterRegistry.counter("email.delivery.sent");
+        this.failedCounter = meterRegistry.counter("email.delivery.failed");
+        this.retriedCounter = meterRegistry.counter("email.delivery.retried");
+        log.info("Email delivery initialized with from address: {}", fromEmail);
+    }
+
+    /**
+     * Send all emails and block until every batch succeeded or ran out of attempts.
+     * Emails of failed batches are listed in {@link EmailDeliveryReport#getFailedEmails()}.
+     */
+    public EmailDeliveryReport deliver(List<OutgoingEmail> emails) {
+        if (emails.isEmpty()) {
+            return new EmailDeliveryReport();
+        }
+
+        int batchSize = Math.max(1, transport.maxBatchSize());
+        List<List<OutgoingEmail>> batches = new ArrayList<>();
+        List<Future<EmailDeliveryReport>> results = new ArrayList<>();
+        for (int from = 0; from < emails.size(); from += batchSize) {
+            List<OutgoingEmail> batch = emails.subList(from, Math.min(from + batchSize, emails.size()));
+            batches.add(batch);
+            results.add(senders.submit(() -> sendBatch(batch)));
+        }
+
+        EmailDeliveryReport report = new EmailDeliveryReport();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                report = report.add(results.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Interrupted while delivering emails", e);
+            } catch (ExecutionException e) {
+                // Not known to be sent, so reported as failed for the caller to retry
+                log.error("Unexpected error delivering email batch", e.getCause());
+                List<OutgoingEmail> batch = batches.get(i);
+                failedCounter.increment(batch.size());
+                report = report.add(new EmailDeliveryReport(0, batch.size(), 0, List.copyOf(batch)));
+            }
+        }
+        return report;
+    }
+
+    private EmailDeliveryReport sendBatch(List<OutgoingEmail> batch) throws InterruptedException {
+        concurrency.acquire();
+        try {
+            RuntimeException lastError = null;
+            for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+                rateLimit.asBlocking().consume(1);
+                try {
+                    List<String> messageIds = transport.sendBatch(fromEmail, batch);
+                    record(batch, EmailDelivery.Status.SENT, attempt, messageIds, null);
+                    sentCounter.increment(batch.size());
+                    return new EmailDeliveryReport(batch.size(), 0, attempt, List.of());
+                } catch (RuntimeException e) {
+                    lastError = e;
+                    if (attempt < properties.getMaxAttempts()) {
+                        retriedCounter.increment();
+                        Duration delay = backoff(attempt);
+                        log.warn("Email batch of {} failed on attempt {}, retrying in {} ms: {}",
+                                batch.size(), attempt, delay.toMillis(), e.getMessage());
+                        Thread.sleep(delay.toMillis());
+                    }
+                }
+            }
+
+            log.error("Email batch of {} failed after {} attempts", batch.size(), properties.getMaxAttempts(), lastError);
+            record(batch, EmailDelivery.Status.FAILED, properties.getMaxAttempts(), null,
+                    lastError != null ? lastError.getMessage() : null);
+            failedCounter.increment(batch.size());
+            return new EmailDeliveryReport(0, batch.size(), properties.getMaxAttempts(), List.copyOf(batch));
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    /**
+     * Exponential backoff with full jitter.
+     */
+    Duration backoff(int attempt) {
+        long max = properties.getMaxBackoff().toMillis();
+        long base = Math.min(max, properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20));
+        return Duration.ofMillis(ThreadLocalRandom.current().nextLong(base / 2, base + 1));
+    }
+
+    private void record(List<OutgoingEmail> batch, EmailDelivery.Status status, int attempts,
+                        List<String> messageIds, String error) {
+        if (!properties.isRecordOutcomes()) {
+            return;
+        }
+
+        String trimmedError = error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+        List<EmailDelivery> deliveries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OutgoingEmail email = batch.get(i);
+            EmailDelivery delivery = new EmailDelivery();
+            delivery.setRecipientId(email.getRecipientId());
+            delivery.setSourceEventId(email.getSourceEventId());
+            delivery.setRecipientEmail(email.getTo());
+            delivery.setSubject(email.getSubject());
+            delivery.setStatus(status);
+            delivery.setAttempts(attempts);
+            delivery.setProviderMessageId(messageIds != null && i < messageIds.size() ? messageIds.get(i) : null);
+            delivery.setError(trimmedError);
+            deliveries.add(delivery);
+        }
+
+        try {
+            deliveryRepository.saveAll(deliveries);
+        } catch (RuntimeException e) {
+            log.error("Failed to record outcomes for {} emails", deliveries.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+}
@@ -0,0 +1,24 @@
+package com.minhtetthar.post_now.service.email;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailDeliveryReport {
+    private int sent;
+    private int failed;
+    private int requests; // Provider requests, including retries
+    private List<OutgoingEmail> failedEmails = List.of(); // Emails that ran out of attempts
+
+    public EmailDeliveryReport add(EmailDeliveryReport other) {
+        List<OutgoingEmail> allFailed = new ArrayList<>(failedEmails);
+        allFailed.addAll(other.failedEmails);
+        return new EmailDeliveryReport(sent + other.sent, failed + other.failed, requests + other.requests, allFailed);
+    }
+}
@@ -0,0 +1,16 @@
+package com.minhtetthar.post_now.service.email;
+
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class EmailDigest {
+    private User recipient;
+    private List<Post> posts; // Newest first, capped at email.digest.max-posts-per-digest
+    private int totalPosts;
+}
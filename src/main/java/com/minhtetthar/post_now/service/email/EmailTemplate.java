@@ -0,0 +1,135 @@
+package com.minhtetthar.post_now.service.email;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An email template parsed into static text segments and slots.
+ * <p>
+ * {@code {{name}}} slots are HTML-escaped, {@code {{{name}}}} slots are inserted
+ * as-is. {@link #bind} fills some slots and folds them into the static text, so
+ * values shared by many emails (the post) are substituted once and only the
+ * per-recipient slots are left for {@link #render}. Instances are immutable.
+ */
+public final class EmailTemplate {
+
+    private final String name;
+    private final String[] texts; // texts[i] precedes slots[i]; the last one follows the last slot
+    private final Slot[] slots;
+    private final int staticLength;
+
+    private EmailTemplate(String name, List<String> texts, List<Slot> slots) {
+        this.name = name;
+        this.texts = texts.toArray(String[]::new);
+        this.slots = slots.toArray(Slot[]::new);
+        this.staticLength = texts.stream().mapToInt(String::length).sum();
+    }
+
+    public static EmailTemplate parse(String name, String source) {
+        List<String> texts = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+
+        int pos = 0;
+        int open;
+        while ((open = source.indexOf("{{", pos)) >= 0) {
+            boolean raw = source.startsWith("{{{", open);
+            String close = raw ? "}}}" : "}}";
+            int start = open + (raw ? 3 : 2);
+            int end = source.indexOf(close, start);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed slot in email template " + name + " at offset " + open);
+            }
+            String slotName = source.substring(start, end).trim();
+            if (slotName.isEmpty()) {
+                throw new IllegalArgumentException("Empty slot in email template " + name + " at offset " + open);
+            }
+            texts.add(source.substring(pos, open));
+            slots.add(new Slot(slotName, raw));
+            pos = end + close.length();
+        }
+        texts.add(source.substring(pos));
+        return new EmailTemplate(name, texts, slots);
+    }
+
+    /**
+     * Return a template with the given slots filled in. Slots without a value stay open.
+     */
+    public EmailTemplate bind(Map<String, String> values) {
+        List<String> boundTexts = new ArrayList<>();
+        List<Slot> openSlots = new ArrayList<>();
+
+        StringBuilder current = new StringBuilder(texts[0]);
+        for (int i = 0; i < slots.length; i++) {
+            String value = values.get(slots[i].name());
+            if (value != null) {
+                write(slots[i], value, current);
+            } else {
+                boundTexts.add(current.toString());
+                openSlots.add(slots[i]);
+                current.setLength(0);
+            }
+            current.append(texts[i + 1]);
+        }
+        boundTexts.add(current.toString());
+        return new EmailTemplate(name, boundTexts, openSlots);
+    }
+
+    /**
+     * Append the rendered template to {@code out}. Every open slot needs a value.
+     */
+    public void render(Map<String, String> values, StringBuilder out) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(texts[i]);
+            String value = values.get(slots[i].name());
+            if (value == null) {
+                throw new IllegalArgumentException(
+                        "No value for slot '" + slots[i].name() + "' in email template " + name);
+            }
+            write(slots[i], value, out);
+        }
+        out.append(texts[slots.length]);
+    }
+
+    public String render(Map<String, String> values) {
+        StringBuilder out = new StringBuilder(staticLength + 64 * slots.length);
+        render(values, out);
+        return out.toString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Characters of static text; a good initial capacity for a render buffer.
+     */
+    public int getStaticLength() {
+        return staticLength;
+    }
+
+    private static void write(Slot slot, String value, StringBuilder out) {
+        if (slot.raw()) {
+            out.append(value);
+        } else {
+            escapeHtml(value, out);
+        }
+    }
+
+    static void escapeHtml(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&' -> out.append("&amp;");
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '"' -> out.append("&quot;");
+                case '\'' -> out.append("&#39;");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private record Slot(String name, boolean raw) {
+    }
+}
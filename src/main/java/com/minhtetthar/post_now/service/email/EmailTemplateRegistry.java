@@ -0,0 +1,46 @@
+package com.minhtetthar.post_now.service.email;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses every template under classpath:templates/email once at startup.
+ * Templates are looked up by file name without the .html extension.
+ */
+@Component
+@Slf4j
+public class EmailTemplateRegistry {
+
+    private static final String LOCATION = "classpath:templates/email/*.html";
+
+    private final Map<String, EmailTemplate> templates = new HashMap<>();
+
+    public EmailTemplateRegistry() {
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(LOCATION)) {
+                String fileName = resource.getFilename();
+                String name = fileName.substring(0, fileName.length() - ".html".length());
+                templates.put(name, EmailTemplate.parse(name, resource.getContentAsString(StandardCharsets.UTF_8)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load email templates", e);
+        }
+        log.info("Loaded email templates: {}", templates.keySet());
+    }
+
+    public EmailTemplate get(String name) {
+        EmailTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("Unknown email template: " + name);
+        }
+        return template;
+    }
+}
@@ -0,0 +1,23 @@
+package com.minhtetthar.post_now.service.email;
+
+import java.util.List;
+
+/**
+ * Sends emails through a provider. Implementations are selected with the
+ * email.transport property.
+ */
+public interface EmailTransport {
+
+    /**
+     * Largest number of emails accepted by a single sendBatch call.
+     */
+    int maxBatchSize();
+
+    /**
+     * Send all emails in one provider request.
+     *
+     * @return provider message ids, in the order of the given emails
+     * @throws com.minhtetthar.post_now.exception.EmailDeliveryException if the batch was not accepted
+     */
+    List<String> sendBatch(String from, List<OutgoingEmail> emails);
+}
@@ -0,0 +1,78 @@
+package com.minhtetthar.post_now.service.email;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps sent emails in memory instead of calling a provider. Used for local
+ * development, tests and delivery benchmarks (email.transport=in-memory).
+ * An optional latency per batch simulates the provider round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "in-memory")
+@Slf4j
+public class InMemoryEmailTransport implements EmailTransport {
+
+    private final long latencyMillis;
+    private final int retainLimit;
+    private final List<OutgoingEmail> sent = new ArrayList<>();
+    private final AtomicLong sentCount = new AtomicLong();
+
+    public InMemoryEmailTransport(
+            @Value("${email.in-memory.latency-ms:0}") long latencyMillis,
+            @Value("${email.in-memory.retain-limit:1000}") int retainLimit) {
+        this.latencyMillis = latencyMillis;
+        this.retainLimit = retainLimit;
+        log.info("Using in-memory email transport, nothing will be delivered");
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return 100;
+    }
+
+    @Override
+    public List<String> sendBatch(String from, List<OutgoingEmail> emails) {
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (sent) {
+            for (OutgoingEmail email : emails) {
+                if (sent.size() < retainLimit) {
+                    sent.add(email);
+                }
+            }
+        }
+        sentCount.addAndGet(emails.size());
+        return emails.stream().map(email -> UUID.randomUUID().toString()).toList();
+    }
+
+    public List<OutgoingEmail> getSent() {
+        synchronized (sent) {
+            return List.copyOf(sent);
+        }
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public void clear() {
+        synchronized (sent) {
+            sent.clear();
+        }
+        sentCount.set(0);
+    }
+}
@@ -0,0 +1,18 @@
+package com.minhtetthar.post_now.service.email;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutgoingEmail {
+    private Long recipientId; // User the email is for, null for non-user recipients
+    private Long sourceEventId; // Outbox event the email is sent for, if any
+    private String to;
+    private String subject;
+    private String html;
+}
@@ -0,0 +1,58 @@
+package com.minhtetthar.post_now.service.email;
+
+import com.minhtetthar.post_now.exception.EmailDeliveryException;
+import com.resend.Resend;
+import com.resend.core.exception.ResendException;
+import com.resend.services.batch.model.BatchEmail;
+import com.resend.services.batch.model.CreateBatchEmailsResponse;
+import com.resend.services.emails.model.CreateEmailOptions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Sends through the Resend batch API, up to 100 emails per request.
+ */
+@Component
+@ConditionalOnProperty(name = "email.transport", havingValue = "resend", matchIfMissing = true)
+@Slf4j
+public class ResendEmailTransport implements EmailTransport {
+
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final Resend resendClient;
+
+    public ResendEmailTransport(@Value("${resend.api-key}") String apiKey) {
+        this.resendClient = new Resend(apiKey);
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public List<String> sendBatch(String from, List<OutgoingEmail> emails) {
+        List<CreateEmailOptions> options = emails.stream()
+                .map(email -> CreateEmailOptions.builder()
+                        .from(from)
+                        .to(email.getTo())
+                        .subject(email.getSubject())
+                        .html(email.getHtml())
+                        .build())
+                .toList();
+
+        try {
+            CreateBatchEmailsResponse response = emails.size() == 1
+                    ? new CreateBatchEmailsResponse(List.of(
+                            new BatchEmail(resendClient.emails().send(options.get(0)).getId())))
+                    : resendClient.batch().send(options);
+            return response.getData().stream().map(BatchEmail::getId).toList();
+        } catch (ResendException e) {
+            throw new EmailDeliveryException("Resend rejected batch: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.minhtetthar.post_now.service.image;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Pure-JVM image decoding, resizing and encoding with javax.imageio and Java2D.
+ */
+public final class ImageResizer {
+
+    private ImageResizer() {
+    }
+
+    /**
+     * Decode an image, refusing anything with more than maxPixels pixels
+     * before the pixel data is read.
+     *
+     * @return the decoded image, or null if no reader understands the input
+     */
+    public static BufferedImage read(InputStream input, long maxPixels) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new IOException("Image has " + pixels + " pixels, limit is " + maxPixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale to the given width, keeping the aspect ratio. Never upscales.
+     */
+    public static BufferedImage scaleToWidth(BufferedImage source, int width) {
+        if (source.getWidth() <= width) {
+            return source;
+        }
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        return scale(source, width, height);
+    }
+
+    /**
+     * Center-crop to a square and scale to size x size. Never upscales.
+     */
+    public static BufferedImage squareThumbnail(BufferedImage source, int size) {
+        int edge = Math.min(source.getWidth(), source.getHeight());
+        BufferedImage square = source.getSubimage(
+                (source.getWidth() - edge) / 2, (source.getHeight() - edge) / 2, edge, edge);
+        return edge <= size ? square : scale(square, size, size);
+    }
+
+    /**
+     * Halve repeatedly with bilinear filtering, then do the last step with
+     * bicubic; a single large bilinear step would drop most source pixels.
+     */
+    private static BufferedImage scale(BufferedImage source, int width, int height) {
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        while (currentWidth / 2 >= width && currentHeight / 2 >= height) {
+            currentWidth /= 2;
+            currentHeight /= 2;
+            current = draw(current, currentWidth, currentHeight, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        }
+        return draw(current, width, height, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height, Object interpolation) {
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    /**
+     * File extension for an encoded variant: PNG keeps transparency, everything
+     * else is stored as JPEG.
+     */
+    public static String outputFormat(BufferedImage image) {
+        return image.getColorModel().hasAlpha() ? "png" : "jpg";
+    }
+
+    /**
+     * Encode in the format chosen by {@link #outputFormat(BufferedImage)}.
+     */
+    public static byte[] write(BufferedImage image, float jpegQuality) throws IOException {
+        return "png".equals(outputFormat(image)) ? writePng(image) : writeJpeg(image, jpegQuality);
+    }
+
+    public static byte[] writePng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, "png", out)) {
+            throw new IOException("No PNG writer available");
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode as JPEG, flattening any transparency onto white.
+     */
+    public static byte[] writeJpeg(BufferedImage image, float quality) throws IOException {
+        BufferedImage rgb = image;
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = rgb.createGraphics();
+            try {
+                graphics.drawImage(image, 0, 0, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
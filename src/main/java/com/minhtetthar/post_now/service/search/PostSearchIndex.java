@@ -0,0 +1,328 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.event.PostChangedEvent;
+import com.minhtetthar.post_now.repository.PostRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Embedded Lucene index over post titles and contents, scored with BM25
+ * (Lucene's default similarity) and English stemming. Only active posts are
+ * indexed; documents hold nothing but the post id, so results are hydrated
+ * from the database in one query.
+ * <p>
+ * Changes made on this instance arrive as {@link PostChangedEvent}s after
+ * their transaction commits and become searchable within refresh-interval
+ * (near-real-time readers). Changes made through other instances are read
+ * every sync-interval: posts whose changed_at is past the newest change the
+ * index has seen, less sync-overlap for clock skew and late commits. That
+ * watermark is stored with each commit, so a restart opens the existing index
+ * and catches up from it. The index is rebuilt from the database only when it
+ * has no watermark or its document count still disagrees after catching up.
+ */
+@Component
+@Slf4j
+public class PostSearchIndex {
+
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_TITLE = "title";
+    private static final String FIELD_CONTENT = "content";
+    private static final float TITLE_BOOST = 2.0f;
+    private static final String WATERMARK = "changed-at-watermark";
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final PostRepository postRepository;
+    private final SearchProperties.Index properties;
+    private final Analyzer analyzer = new EnglishAnalyzer();
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile boolean ready;
+    private volatile LocalDateTime watermark;
+
+    public PostSearchIndex(PostRepository postRepository, SearchProperties searchProperties) {
+        this.postRepository = postRepository;
+        this.properties = searchProperties.getPosts().getIndex();
+    }
+
+    /**
+     * Open (or create) the on-disk index once the schema is in place, catch up
+     * with changes made since it was last committed, and rebuild it if it
+     * still does not match the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() throws IOException {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Path path = Path.of(properties.getDirectory()).toAbsolutePath();
+        directory = FSDirectory.open(path);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+
+        watermark = readWatermark();
+        if (watermark == null) {
+            log.info("Search index at {} has no watermark; rebuilding", path);
+            rebuild();
+        } else {
+            catchUp();
+            long indexed = writer.getDocStats().numDocs;
+            long active = postRepository.countByActiveTrue();
+            if (indexed != active) {
+                log.info("Search index at {} has {} posts, database has {}; rebuilding", path, indexed, active);
+                rebuild();
+            } else {
+                log.info("Opened search index at {} with {} posts", path, indexed);
+            }
+        }
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostChanged(PostChangedEvent event) {
+        if (writer == null) {
+            return; // Disabled, or not open yet: the startup check picks the change up
+        }
+        try {
+            Term id = new Term(FIELD_ID, event.getPostId().toString());
+            if (event.isDeleted()) {
+                writer.deleteDocuments(id);
+            } else {
+                writer.updateDocument(id, toDocument(event.getPostId(), event.getTitle(), event.getContent()));
+            }
+        } catch (IOException | RuntimeException e) {
+            // The database is the source of truth; the next catch-up repairs it
+            log.error("Failed to index post {}", event.getPostId(), e);
+        }
+    }
+
+    /**
+     * Ids of matching posts, best match first.
+     *
+     * @return at most {@code limit} ids starting at {@code offset}, and the total match count
+     */
+    public SearchHits search(String text, int offset, int limit) {
+        Query query = buildQuery(text);
+        if (query == null || offset >= properties.getMaxResults()) {
+            return new SearchHits(List.of(), 0);
+        }
+        int wanted = Math.min(offset + limit, properties.getMaxResults());
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs top = searcher.search(query, wanted);
+                List<Long> ids = new ArrayList<>(Math.max(0, top.scoreDocs.length - offset));
+                for (int i = offset; i < top.scoreDocs.length; i++) {
+                    ScoreDoc hit = top.scoreDocs[i];
+                    ids.add(Long.valueOf(searcher.storedFields().document(hit.doc).get(FIELD_ID)));
+                }
+                long total = Math.min(searcher.count(query), properties.getMaxResults());
+                return new SearchHits(ids, total);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Post search failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.posts.index.refresh-interval:1000}")
+    public void refresh() throws IOException {
+        if (searcherManager != null) {
+            searcherManager.maybeRefresh();
+        }
+    }
+
+    /**
+     * Read posts changed through other instances.
+     */
+    @Scheduled(fixedDelayString = "${search.posts.index.sync-interval:60000}")
+    public void sync() throws IOException {
+        if (ready) {
+            catchUp();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.posts.index.commit-interval:30000}")
+    public void commit() throws IOException {
+        if (writer != null && writer.hasUncommittedChanges()) {
+            writer.commit();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        ready = false;
+        if (writer != null) {
+            searcherManager.close();
+            writer.close(); // Commits pending changes
+            directory.close();
+        }
+    }
+
+    /**
+     * Apply every post changed after the watermark, less sync-overlap, and
+     * move the watermark to the newest change seen. Reapplying a change is
+     * harmless.
+     */
+    private synchronized void catchUp() throws IOException {
+        LocalDateTime since = watermark.minus(Duration.ofMillis(properties.getSyncOverlap()));
+        LocalDateTime newest = watermark;
+        long afterId = 0;
+        int applied = 0;
+        while (true) {
+            List<Post> batch = postRepository.findChangedAfter(
+                    since, afterId, PageRequest.of(0, properties.getRebuildBatchSize()));
+            for (Post post : batch) {
+                Term id = new Term(FIELD_ID, post.getId().toString());
+                if (Boolean.TRUE.equals(post.getActive())) {
+                    writer.updateDocument(id, toDocument(post.getId(), post.getTitle(), post.getContent()));
+                } else {
+                    writer.deleteDocuments(id);
+                }
+                if (post.getChangedAt().isAfter(newest)) {
+                    newest = post.getChangedAt();
+                }
+            }
+            applied += batch.size();
+            if (batch.size() < properties.getRebuildBatchSize()) {
+                break;
+            }
+            Post last = batch.get(batch.size() - 1);
+            since = last.getChangedAt();
+            afterId = last.getId();
+        }
+        if (newest.isAfter(watermark)) {
+            setWatermark(newest);
+        }
+        log.debug("Search index caught up with {} changed posts, watermark {}", applied, watermark);
+    }
+
+    private LocalDateTime readWatermark() {
+        for (Map.Entry<String, String> entry : writer.getLiveCommitData()) {
+            if (WATERMARK.equals(entry.getKey())) {
+                return LocalDateTime.parse(entry.getValue());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Stored with the next commit.
+     */
+    private void setWatermark(LocalDateTime value) {
+        watermark = value;
+        writer.setLiveCommitData(Map.of(WATERMARK, value.toString()).entrySet());
+    }
+
+    private synchronized void rebuild() throws IOException {
+        // Changes after this are read by the next catch-up
+        LocalDateTime rebuiltFrom = postRepository.findLastChangedAt().orElse(EPOCH);
+        writer.deleteAll();
+        long count = 0;
+        Long lastId = 0L;
+        while (true) {
+            List<Post> batch = postRepository.findByActiveTrueAndIdGreaterThanOrderByIdAsc(
+                    lastId, PageRequest.of(0, properties.getRebuildBatchSize()));
+            for (Post post : batch) {
+                writer.updateDocument(new Term(FIELD_ID, post.getId().toString()),
+                        toDocument(post.getId(), post.getTitle(), post.getContent()));
+            }
+            count += batch.size();
+            if (batch.size() < properties.getRebuildBatchSize()) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        setWatermark(rebuiltFrom);
+        writer.commit();
+        searcherManager.maybeRefreshBlocking();
+        log.info("Rebuilt search index with {} posts", count);
+    }
+
+    private Document toDocument(Long id, String title, String content) {
+        Document document = new Document();
+        document.add(new StringField(FIELD_ID, id.toString(), Field.Store.YES));
+        document.add(new TextField(FIELD_TITLE, title == null ? "" : title, Field.Store.NO));
+        document.add(new TextField(FIELD_CONTENT, content == null ? "" : content, Field.Store.NO));
+        return document;
+    }
+
+    /**
+     * Any analyzed term may match; title matches weigh more. Returns null if the
+     * text has no searchable terms (e.g. only stop words).
+     */
+    private Query buildQuery(String text) {
+        Set<String> terms = new LinkedHashSet<>();
+        try (TokenStream tokens = analyzer.tokenStream(FIELD_CONTENT, text == null ? "" : text)) {
+            CharTermAttribute term = tokens.addAttribute(CharTermAttribute.class);
+            tokens.reset();
+            while (tokens.incrementToken()) {
+                terms.add(term.toString());
+            }
+            tokens.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        for (String term : terms) {
+            query.add(new BoostQuery(new TermQuery(new Term(FIELD_TITLE, term)), TITLE_BOOST), BooleanClause.Occur.SHOULD);
+            query.add(new TermQuery(new Term(FIELD_CONTENT, term)), BooleanClause.Occur.SHOULD);
+        }
+        return query.build();
+    }
+
+    public record SearchHits(List<Long> postIds, long total) {
+    }
+}
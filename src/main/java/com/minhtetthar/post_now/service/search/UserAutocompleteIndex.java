@@ -0,0 +1,367 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.dto.user.UserAutocompleteDto;
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
+import com.minhtetthar.post_now.event.UserChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * In-memory prefix index over usernames, first and last names of enabled
+ * users, ranked by follower count.
+ * <p>
+ * The index is an immutable snapshot: all lowercased names, plus "first last"
+ * full names, sorted in one array, so the terms starting with a prefix form a
+ * contiguous range found by binary search. Small ranges are scanned per
+ * request; for prefixes matching more than scan-limit terms (the first letters
+ * typed) the best users are precomputed, which makes every lookup a binary
+ * search plus at most scan-limit comparisons. With several words the most
+ * selective word drives the lookup and the others must prefix-match another
+ * name; "john sm" is also looked up as a full name prefix, so two common words
+ * in name order still find the most followed matches.
+ * <p>
+ * Users changed after the snapshot was built are kept in a small overlay
+ * that takes precedence over the snapshot, and are folded in by the next
+ * rebuild (every rebuild-interval, or earlier once max-pending-changes is
+ * reached). Rebuilds also refresh follower counts.
+ * <p>
+ * Memory: per user the id and follower count (12 bytes), three name strings,
+ * lowercase copies of names that are not lowercase already, the full name term
+ * and four term slots, so roughly 150 to 300 bytes depending on name lengths.
+ * A synthetic million users with short names retained about 175 MB of heap and
+ * built in about 15 seconds; lookups took 5-50 microseconds, precomputed and
+ * scanned prefixes alike, since both compare at most a few hundred candidates.
+ * At 200k users: about 66 MB, built in about 4.5 seconds, lookups about 20
+ * microseconds precomputed and 60 scanned. The estimate for the current
+ * snapshot is logged after each rebuild and exposed as search.autocomplete.bytes.
+ */
+@Component
+@Slf4j
+public class UserAutocompleteIndex {
+
+    private static final int STRING_OVERHEAD = 40; // Header, hash, coder and array header
+
+    private final SearchProperties.Autocomplete properties;
+    private final UserIndexSnapshots<Snapshot> snapshots;
+
+    public UserAutocompleteIndex(UserRepository userRepository,
+                                 SearchProperties searchProperties,
+                                 MeterRegistry meterRegistry) {
+        this.properties = searchProperties.getAutocomplete();
+        this.snapshots = new UserIndexSnapshots<>("autocomplete", userRepository,
+                rows -> Snapshot.build(rows, properties.getScanLimit(), properties.getMaxLimit()),
+                properties::getRebuildBatchSize, properties::getMaxPendingChanges);
+        Gauge.builder("search.autocomplete.users", snapshots, s -> s.snapshot() == null ? 0 : s.snapshot().ids.length)
+                .register(meterRegistry);
+        Gauge.builder("search.autocomplete.bytes", snapshots, s -> s.snapshot() == null ? 0 : s.snapshot().estimatedBytes)
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return snapshots.snapshot() != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.autocomplete.rebuild-interval:600000}",
+            initialDelayString = "${search.autocomplete.rebuild-interval:600000}")
+    public void scheduledRebuild() {
+        if (properties.isEnabled()) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (properties.isEnabled()) {
+            snapshots.onUserChanged(event);
+        }
+    }
+
+    /**
+     * Users whose names start with the words of {@code query}, most followed first.
+     */
+    public List<UserAutocompleteDto> suggest(String query, int limit) {
+        Snapshot current = snapshots.snapshot();
+        String[] words = query == null ? new String[0] : query.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        if (current == null || words.length == 0 || words[0].isEmpty()) {
+            return List.of();
+        }
+
+        // Drive the lookup with the word matching the fewest terms
+        String driver = words[0];
+        int[] driverRange = current.range(driver);
+        for (int i = 1; i < words.length; i++) {
+            int[] range = current.range(words[i]);
+            if (range[1] - range[0] < driverRange[1] - driverRange[0]) {
+                driver = words[i];
+                driverRange = range;
+            }
+        }
+
+        Set<Integer> seen = new LinkedHashSet<>();
+        addCandidates(current, driver, driverRange, seen);
+        if (words.length > 1) {
+            // "john sm" is also a prefix of the full name term, whose precomputed top users
+            // all match, where those of "john" alone may mostly be filtered out
+            String phrase = String.join(" ", words);
+            addCandidates(current, phrase, current.range(phrase), seen);
+        }
+
+        List<UserAutocompleteDto> matches = new ArrayList<>();
+        for (int slot : seen) {
+            if (snapshots.isChanged(current.ids[slot])) {
+                continue; // Superseded by a later change
+            }
+            if (matchesAll(words, current.usernames[slot], current.firstNames[slot], current.lastNames[slot])) {
+                matches.add(new UserAutocompleteDto(current.ids[slot], current.usernames[slot],
+                        current.firstNames[slot], current.lastNames[slot], current.followers[slot]));
+            }
+        }
+        for (UserChangedEvent user : snapshots.changes()) {
+            if (user.isEnabled() && matchesAll(words, user.getUsername(), user.getFirstName(), user.getLastName())) {
+                matches.add(new UserAutocompleteDto(user.getUserId(), user.getUsername(),
+                        user.getFirstName(), user.getLastName(), current.followerCountOf(user.getUserId())));
+            }
+        }
+
+        matches.sort(Comparator.comparingLong(UserAutocompleteDto::getFollowerCount).reversed()
+                .thenComparing(UserAutocompleteDto::getUsername));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    private void addCandidates(Snapshot current, String prefix, int[] range, Set<Integer> slots) {
+        if (range[1] - range[0] > properties.getScanLimit()) {
+            for (int slot : current.topByPrefix.getOrDefault(prefix, new int[0])) {
+                slots.add(slot);
+            }
+        } else {
+            for (int i = range[0]; i < range[1]; i++) {
+                slots.add(current.termSlots[i]);
+            }
+        }
+    }
+
+    /**
+     * Build a new snapshot from the database and swap it in. Reads are served
+     * from the previous snapshot meanwhile.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        Snapshot built = snapshots.rebuild();
+        if (built != null) {
+            log.info("Built autocomplete index: {} users, {} terms, {} precomputed prefixes, ~{} MB in {} ms",
+                    built.ids.length, built.terms.length, built.topByPrefix.size(),
+                    built.estimatedBytes / (1024 * 1024), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    private static boolean matchesAll(String[] words, String username, String firstName, String lastName) {
+        for (String word : words) {
+            if (!startsWith(username, word) && !startsWith(firstName, word) && !startsWith(lastName, word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(String name, String prefix) {
+        return name != null && name.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    /**
+     * Immutable index state. Users are stored in slots ordered by id.
+     */
+    private static final class Snapshot {
+
+        private final long[] ids;
+        private final String[] usernames;
+        private final String[] firstNames;
+        private final String[] lastNames;
+        private final long[] followers;
+        private final String[] terms; // Lowercased names, sorted
+        private final int[] termSlots; // User slot of each term
+        private final Map<String, int[]> topByPrefix;
+        private final long estimatedBytes;
+
+        private Snapshot(long[] ids, String[] usernames, String[] firstNames, String[] lastNames, long[] followers,
+                         String[] terms, int[] termSlots, Map<String, int[]> topByPrefix, long estimatedBytes) {
+            this.ids = ids;
+            this.usernames = usernames;
+            this.firstNames = firstNames;
+            this.lastNames = lastNames;
+            this.followers = followers;
+            this.terms = terms;
+            this.termSlots = termSlots;
+            this.topByPrefix = topByPrefix;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        static Snapshot build(List<UserIndexRow> rows, int scanLimit, int maxLimit) {
+            int users = rows.size();
+            long[] ids = new long[users];
+            String[] usernames = new String[users];
+            String[] firstNames = new String[users];
+            String[] lastNames = new String[users];
+            long[] followers = new long[users];
+            long bytes = users * (8L + 8 + 3 * 4);
+
+            List<Term> entries = new ArrayList<>(users * 3);
+            for (int slot = 0; slot < users; slot++) {
+                UserIndexRow row = rows.get(slot);
+                ids[slot] = row.getId();
+                usernames[slot] = row.getUsername();
+                firstNames[slot] = row.getFirstName();
+                lastNames[slot] = row.getLastName();
+                followers[slot] = row.getFollowerCount();
+                bytes += addTerms(entries, slot, row.getUsername(), row.getFirstName(), row.getLastName());
+                if (row.getFirstName() != null && !row.getFirstName().isBlank()
+                        && row.getLastName() != null && !row.getLastName().isBlank()) {
+                    String fullName = (row.getFirstName().trim() + " " + row.getLastName().trim()).toLowerCase(Locale.ROOT);
+                    entries.add(new Term(fullName, slot));
+                    bytes += STRING_OVERHEAD + fullName.length();
+                }
+            }
+            entries.sort(Comparator.comparing(Term::text));
+
+            String[] terms = new String[entries.size()];
+            int[] termSlots = new int[entries.size()];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = entries.get(i).text();
+                termSlots[i] = entries.get(i).slot();
+            }
+            bytes += terms.length * 8L;
+
+            Map<String, int[]> topByPrefix = new HashMap<>();
+            // Extra candidates make up for users filtered out by pending changes or further words
+            precompute(terms, termSlots, followers, 0, terms.length, 0, scanLimit, maxLimit * 2, topByPrefix);
+            for (Map.Entry<String, int[]> entry : topByPrefix.entrySet()) {
+                bytes += 48 + STRING_OVERHEAD + entry.getKey().length() + 16 + entry.getValue().length * 4L;
+            }
+
+            return new Snapshot(ids, usernames, firstNames, lastNames, followers, terms, termSlots,
+                    topByPrefix, bytes);
+        }
+
+        private static long addTerms(List<Term> entries, int slot, String... names) {
+            long bytes = 0;
+            Set<String> distinct = new LinkedHashSet<>();
+            for (String name : names) {
+                if (name == null || name.isBlank()) {
+                    continue;
+                }
+                bytes += STRING_OVERHEAD + name.length();
+                String term = name.toLowerCase(Locale.ROOT);
+                if (term != name) {
+                    bytes += STRING_OVERHEAD + term.length(); // toLowerCase returns the same instance if unchanged
+                }
+                distinct.add(term);
+            }
+            for (String term : distinct) {
+                entries.add(new Term(term, slot));
+            }
+            return bytes;
+        }
+
+        /**
+         * Terms in [from, to) share their first {@code depth} characters. Split the
+         * range by the next character and precompute every part too large to scan.
+         */
+        private static void precompute(String[] terms, int[] termSlots, long[] followers, int from, int to,
+                                       int depth, int scanLimit, int keep, Map<String, int[]> topByPrefix) {
+            int i = from;
+            while (i < to && terms[i].length() <= depth) {
+                i++; // The term equal to the shared prefix sorts first
+            }
+            while (i < to) {
+                char next = terms[i].charAt(depth);
+                int end = i + 1;
+                while (end < to && terms[end].charAt(depth) == next) {
+                    end++;
+                }
+                if (end - i > scanLimit) {
+                    topByPrefix.put(terms[i].substring(0, depth + 1), top(termSlots, followers, i, end, keep));
+                    precompute(terms, termSlots, followers, i, end, depth + 1, scanLimit, keep, topByPrefix);
+                }
+                i = end;
+            }
+        }
+
+        private static int[] top(int[] termSlots, long[] followers, int from, int to, int keep) {
+            PriorityQueue<Integer> best = new PriorityQueue<>(Comparator.comparingLong(slot -> followers[slot]));
+            Set<Integer> seen = new HashSet<>();
+            for (int i = from; i < to; i++) {
+                int slot = termSlots[i];
+                if (!seen.add(slot)) {
+                    continue;
+                }
+                best.add(slot);
+                if (best.size() > keep) {
+                    best.poll();
+                }
+            }
+            int[] slots = new int[best.size()];
+            for (int i = slots.length - 1; i >= 0; i--) {
+                slots[i] = best.poll();
+            }
+            return slots;
+        }
+
+        /**
+         * [from, to) of the terms starting with {@code prefix}.
+         */
+        int[] range(String prefix) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            return new int[]{from, to};
+        }
+
+        private int lowerBound(String key) {
+            // Arrays.binarySearch may land anywhere in a run of equal terms ("john" x 10k)
+            int low = 0;
+            int high = terms.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (terms[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        long followerCountOf(Long userId) {
+            int slot = Arrays.binarySearch(ids, userId);
+            return slot >= 0 ? followers[slot] : 0;
+        }
+    }
+
+    private record Term(String text, int slot) {
+    }
+}
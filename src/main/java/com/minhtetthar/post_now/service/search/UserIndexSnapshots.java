@@ -0,0 +1,132 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
+import com.minhtetthar.post_now.event.UserChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+
+/**
+ * The snapshot of an in-memory user index plus the users changed since it was
+ * built. Readers check the overlay first: a user in it is served from the
+ * change, never from the snapshot.
+ * <p>
+ * A rebuild reads every enabled user by id and swaps the new snapshot in.
+ * Changes are versioned, and the rebuild then drops only the ones committed
+ * before it read the database. A change that arrives while the rebuild runs
+ * may or may not be in the rows read, so it stays until the next rebuild.
+ *
+ * @param <S> the index's immutable snapshot
+ */
+@Slf4j
+final class UserIndexSnapshots<S> {
+
+    private final String name;
+    private final UserRepository userRepository;
+    private final Function<List<UserIndexRow>, S> builder;
+    private final IntSupplier rebuildBatchSize;
+    private final IntSupplier maxPendingChanges;
+
+    private volatile S snapshot;
+    private final Map<Long, PendingChange> pending = new ConcurrentHashMap<>();
+    private final AtomicLong changeVersion = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    UserIndexSnapshots(String name,
+                       UserRepository userRepository,
+                       Function<List<UserIndexRow>, S> builder,
+                       IntSupplier rebuildBatchSize,
+                       IntSupplier maxPendingChanges) {
+        this.name = name;
+        this.userRepository = userRepository;
+        this.builder = builder;
+        this.rebuildBatchSize = rebuildBatchSize;
+        this.maxPendingChanges = maxPendingChanges;
+    }
+
+    /**
+     * @return the current snapshot, or null before the first rebuild
+     */
+    S snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Whether the user changed after the snapshot was built.
+     */
+    boolean isChanged(long userId) {
+        return pending.containsKey(userId);
+    }
+
+    /**
+     * The latest change of every user changed after the snapshot was built.
+     */
+    List<UserChangedEvent> changes() {
+        return pending.values().stream().map(PendingChange::event).toList();
+    }
+
+    /**
+     * Record a committed change. Past max-pending-changes a rebuild starts in
+     * the background, so the overlay every read walks stays small.
+     */
+    void onUserChanged(UserChangedEvent event) {
+        pending.put(event.getUserId(), new PendingChange(changeVersion.incrementAndGet(), event));
+        if (pending.size() > maxPendingChanges.getAsInt() && !rebuilding.get()) {
+            Thread.ofVirtual().name(name + "-rebuild").start(this::rebuild);
+        }
+    }
+
+    /**
+     * Build a new snapshot from the database and swap it in. Reads are served
+     * from the previous snapshot meanwhile.
+     *
+     * @return the new snapshot, or null if another rebuild was running or this one failed
+     */
+    S rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            long startedAtVersion = changeVersion.get();
+
+            int batchSize = rebuildBatchSize.getAsInt();
+            List<UserIndexRow> rows = new ArrayList<>();
+            Long lastId = 0L;
+            while (true) {
+                List<UserIndexRow> batch = userRepository.findIndexRowsAfter(lastId, PageRequest.of(0, batchSize));
+                rows.addAll(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            S built = builder.apply(rows);
+            snapshot = built;
+            // Changes committed before the database was read are part of the snapshot now
+            pending.forEach((id, change) -> {
+                if (change.version() <= startedAtVersion) {
+                    pending.remove(id, change);
+                }
+            });
+            return built;
+        } catch (RuntimeException e) {
+            log.error("Failed to build {} index", name, e);
+            return null;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private record PendingChange(long version, UserChangedEvent event) {
+    }
+}
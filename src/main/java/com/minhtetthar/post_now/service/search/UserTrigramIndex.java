@@ -0,0 +1,316 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
+import com.minhtetthar.post_now.event.UserChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory trigram index over usernames, first and last names of enabled
+ * users, for fuzzy user search on databases without pg_trgm (H2 in development).
+ * <p>
+ * Names are split into words and words into trigrams the way pg_trgm does it:
+ * lowercased, padded with two spaces in front and one behind, so "smith" gives
+ * "  s", " sm", "smi", "mit", "ith" and "th ". Each trigram maps to the sorted
+ * slots of the users having it. A user matches when their names contain at
+ * least min-similarity of the search term's trigrams, which finds substrings
+ * ("mith") as well as misspellings ("jonh smith"); results are ranked by that
+ * share, then by follower count.
+ * <p>
+ * A user sharing k of the term's n trigrams appears in at least one of any
+ * n - k + 1 posting lists, so candidates are collected from the shortest ones
+ * only and the long lists (" jo", "  s") are probed by binary search per
+ * candidate rather than walked.
+ * <p>
+ * Users changed after the snapshot was built are kept in an overlay until the
+ * next rebuild, see {@link UserIndexSnapshots}.
+ */
+@Component
+@Slf4j
+public class UserTrigramIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    // Most shared trigrams, then most followers
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::shared).reversed()
+            .thenComparing(Comparator.comparingLong(Hit::followers).reversed())
+            .thenComparingLong(Hit::userId);
+
+    private final DatabasePlatform databasePlatform;
+    private final SearchProperties.TrigramIndex properties;
+    private final UserIndexSnapshots<Snapshot> snapshots;
+
+    public UserTrigramIndex(UserRepository userRepository,
+                            DatabasePlatform databasePlatform,
+                            SearchProperties searchProperties,
+                            MeterRegistry meterRegistry) {
+        this.databasePlatform = databasePlatform;
+        this.properties = searchProperties.getUsers().getIndex();
+        this.snapshots = new UserIndexSnapshots<>("trigram", userRepository, Snapshot::build,
+                properties::getRebuildBatchSize, properties::getMaxPendingChanges);
+        Gauge.builder("search.users.trigram.users", snapshots, s -> s.snapshot() == null ? 0 : s.snapshot().ids.length)
+                .register(meterRegistry);
+        Gauge.builder("search.users.trigram.bytes", snapshots, s -> s.snapshot() == null ? 0 : s.snapshot().estimatedBytes)
+                .register(meterRegistry);
+    }
+
+    public boolean isReady() {
+        return snapshots.snapshot() != null;
+    }
+
+    /**
+     * Postgres searches through its own trigram index.
+     */
+    private boolean isActive() {
+        return properties.isEnabled() && !databasePlatform.isPostgres();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (isActive()) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${search.users.index.rebuild-interval:600000}",
+            initialDelayString = "${search.users.index.rebuild-interval:600000}")
+    public void scheduledRebuild() {
+        if (isActive()) {
+            rebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (isActive()) {
+            snapshots.onUserChanged(event);
+        }
+    }
+
+    /**
+     * Ids of the users matching {@code term}, best first, and the number of matches.
+     */
+    public SearchHits search(String term, int offset, int limit) {
+        Snapshot current = snapshots.snapshot();
+        long[] queryTrigrams = trigrams(term);
+        if (current == null || queryTrigrams.length == 0) {
+            return new SearchHits(List.of(), 0);
+        }
+        int n = queryTrigrams.length;
+        int required = Math.max(1, (int) Math.ceil(n * properties.getMinSimilarity()));
+
+        int[][] postings = new int[n][];
+        for (int i = 0; i < n; i++) {
+            postings[i] = current.postings.getOrDefault(queryTrigrams[i], EMPTY);
+        }
+        Arrays.sort(postings, Comparator.comparingInt(list -> list.length));
+
+        // Every match is in one of the n - required + 1 shortest lists. They are
+        // sorted, so merging them yields each candidate once with its count.
+        int walked = n - required + 1;
+        int[] cursors = new int[walked];
+        int wanted = Math.min(offset + limit, properties.getMaxResults());
+        PriorityQueue<Hit> best = new PriorityQueue<>(RANKING.reversed()); // Worst kept hit on top
+        long matches = 0;
+        while (true) {
+            int slot = Integer.MAX_VALUE;
+            for (int i = 0; i < walked; i++) {
+                if (cursors[i] < postings[i].length && postings[i][cursors[i]] < slot) {
+                    slot = postings[i][cursors[i]];
+                }
+            }
+            if (slot == Integer.MAX_VALUE) {
+                break;
+            }
+            int shared = 0;
+            for (int i = 0; i < walked; i++) {
+                if (cursors[i] < postings[i].length && postings[i][cursors[i]] == slot) {
+                    shared++;
+                    cursors[i]++;
+                }
+            }
+            for (int j = walked; j < n && shared + (n - j) >= required; j++) {
+                if (Arrays.binarySearch(postings[j], slot) >= 0) {
+                    shared++;
+                }
+            }
+            if (shared >= required && !snapshots.isChanged(current.ids[slot])) {
+                matches++;
+                keep(best, new Hit(current.ids[slot], shared, current.followers[slot]), wanted);
+            }
+        }
+        for (UserChangedEvent user : snapshots.changes()) {
+            if (!user.isEnabled()) {
+                continue;
+            }
+            long[] userTrigrams = trigrams(user.getUsername(), user.getFirstName(), user.getLastName());
+            int shared = 0;
+            for (long trigram : queryTrigrams) {
+                if (Arrays.binarySearch(userTrigrams, trigram) >= 0) {
+                    shared++;
+                }
+            }
+            if (shared >= required) {
+                matches++;
+                keep(best, new Hit(user.getUserId(), shared, current.followerCountOf(user.getUserId())), wanted);
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        List<Long> userIds = new ArrayList<>();
+        for (int k = offset; k < ranked.size(); k++) {
+            userIds.add(ranked.get(k).userId());
+        }
+        return new SearchHits(userIds, Math.min(matches, properties.getMaxResults()));
+    }
+
+    private static void keep(PriorityQueue<Hit> best, Hit hit, int wanted) {
+        if (best.size() < wanted) {
+            best.add(hit);
+        } else if (wanted > 0 && RANKING.compare(hit, best.peek()) < 0) {
+            best.poll();
+            best.add(hit);
+        }
+    }
+
+    /**
+     * Build a new snapshot from the database and swap it in. Searches are
+     * served from the previous snapshot meanwhile.
+     */
+    public void rebuild() {
+        long started = System.nanoTime();
+        Snapshot built = snapshots.rebuild();
+        if (built != null) {
+            log.info("Built user trigram index: {} users, {} trigrams, ~{} MB in {} ms",
+                    built.ids.length, built.postings.size(),
+                    built.estimatedBytes / (1024 * 1024), (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /**
+     * Distinct trigrams of the words in {@code texts}, sorted. Each trigram is
+     * packed into a long, 16 bits per character.
+     */
+    static long[] trigrams(String... texts) {
+        int capacity = 0;
+        for (String text : texts) {
+            capacity += text == null ? 0 : text.length() * 2; // A word of n characters has n + 1 trigrams
+        }
+        long[] buffer = new long[capacity];
+        int count = 0;
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            String lower = text.toLowerCase(Locale.ROOT);
+            int i = 0;
+            while (i < lower.length()) {
+                while (i < lower.length() && !Character.isLetterOrDigit(lower.charAt(i))) {
+                    i++;
+                }
+                int start = i;
+                while (i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))) {
+                    i++;
+                }
+                if (i == start) {
+                    break;
+                }
+                String padded = "  " + lower.substring(start, i) + " ";
+                for (int k = 0; k + 3 <= padded.length(); k++) {
+                    buffer[count++] = ((long) padded.charAt(k) << 32) | ((long) padded.charAt(k + 1) << 16) | padded.charAt(k + 2);
+                }
+            }
+        }
+        return Arrays.stream(buffer, 0, count).sorted().distinct().toArray();
+    }
+
+    public record SearchHits(List<Long> userIds, long total) {
+    }
+
+    private record Hit(long userId, int shared, long followers) {
+    }
+
+    /**
+     * Immutable index state. Users are stored in slots ordered by id, so
+     * posting lists filled in slot order are sorted.
+     */
+    private static final class Snapshot {
+
+        private final long[] ids;
+        private final long[] followers;
+        private final Map<Long, int[]> postings;
+        private final long estimatedBytes;
+
+        private Snapshot(long[] ids, long[] followers, Map<Long, int[]> postings, long estimatedBytes) {
+            this.ids = ids;
+            this.followers = followers;
+            this.postings = postings;
+            this.estimatedBytes = estimatedBytes;
+        }
+
+        static Snapshot build(List<UserIndexRow> rows) {
+            int users = rows.size();
+            long[] ids = new long[users];
+            long[] followers = new long[users];
+            Map<Long, PostingBuilder> builders = new HashMap<>();
+            for (int slot = 0; slot < users; slot++) {
+                UserIndexRow row = rows.get(slot);
+                ids[slot] = row.getId();
+                followers[slot] = row.getFollowerCount();
+                for (long trigram : trigrams(row.getUsername(), row.getFirstName(), row.getLastName())) {
+                    builders.computeIfAbsent(trigram, key -> new PostingBuilder()).add(slot);
+                }
+            }
+
+            Map<Long, int[]> postings = new HashMap<>(builders.size() * 4 / 3 + 1);
+            long bytes = users * 16L;
+            for (Map.Entry<Long, PostingBuilder> entry : builders.entrySet()) {
+                int[] slots = entry.getValue().toArray();
+                postings.put(entry.getKey(), slots);
+                bytes += 80 + 16 + slots.length * 4L; // Map node, boxed key, array header
+            }
+            return new Snapshot(ids, followers, postings, bytes);
+        }
+
+        long followerCountOf(long userId) {
+            int slot = Arrays.binarySearch(ids, userId);
+            return slot >= 0 ? followers[slot] : 0;
+        }
+    }
+
+    private static final class PostingBuilder {
+
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(slots, size);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.minhtetthar.post_now.service.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * One entry of a prefix listing.
+ */
+@Data
+@AllArgsConstructor
+public class ListedObject {
+    private String key;
+    private long size;
+    private Instant lastModified;
+}
@@ -0,0 +1,189 @@
+package com.minhtetthar.post_now.service.storage;
+
+import com.minhtetthar.post_now.config.StorageProperties;
+import com.minhtetthar.post_now.exception.FileUploadException;
+import com.minhtetthar.post_now.exception.StorageException;
+import com.minhtetthar.post_now.service.FileStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Objects as files under a root directory, keys mapping to relative paths.
+ * Needs no network, so it is what local development and benchmarks run on;
+ * files are served by the download endpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local")
+@Slf4j
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+    private final String publicUrl;
+
+    public LocalStorageBackend(StorageProperties storageProperties) throws IOException {
+        this.root = Path.of(storageProperties.getLocal().getRoot()).toAbsolutePath().normalize();
+        String url = storageProperties.getLocal().getPublicUrl();
+        this.publicUrl = url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+        Files.createDirectories(root);
+        log.info("Storing images under {}, served from {}", root, publicUrl);
+    }
+
+    @Override
+    public String getPublicUrl() {
+        return publicUrl;
+    }
+
+    /**
+     * Written to a temporary file next to the target and moved into place, so
+     * readers never see a partial object.
+     */
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) {
+        Path target = resolve(key);
+        Path temp = null;
+        try {
+            Files.createDirectories(target.getParent());
+            temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+            // Not closed: that would close the caller's stream
+            ReadableByteChannel source = Channels.newChannel(content);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < length) {
+                    long transferred = channel.transferFrom(source, position, length - position);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                if (position != length) {
+                    throw new FileUploadException(
+                            String.format("Upload ended after %d of %d bytes", position, length));
+                }
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Failed to write {}", target, e);
+            throw new FileUploadException("Failed to store file: " + e.getMessage(), e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    log.warn("Could not remove temporary file {}", temp, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new StorageException("Failed to read " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public byte[] readPrefix(String key, int length) {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                // Keep reading until the prefix is complete or the file ends
+            }
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        } catch (IOException e) {
+            throw new StorageException("Failed to read " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StoredObjectInfo stat(String key) {
+        Path file = resolve(key);
+        try {
+            return new StoredObjectInfo(Files.size(file), FileStorageService.contentTypeOf(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new StorageException("Failed to look up " + key + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<ListedObject> consumer) {
+        Path start = resolve(prefix);
+        Path directory = prefix.endsWith("/") ? start : start.getParent();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile)
+                    // Temporary files of writes in progress start with a dot
+                    .filter(file -> !file.getFileName().toString().startsWith("."))
+                    .map(file -> root.relativize(file).toString().replace('\\', '/'))
+                    .filter(key -> key.startsWith(prefix))
+                    .sorted()
+                    .forEach(key -> {
+                        Path file = root.resolve(key);
+                        try {
+                            consumer.accept(new ListedObject(key, Files.size(file),
+                                    Files.getLastModifiedTime(file).toInstant()));
+                        } catch (NoSuchFileException e) {
+                            // Deleted while listing
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException | UncheckedIOException e) {
+            throw new StorageException("Failed to list " + prefix + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> delete(Collection<String> keys) {
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(resolve(key));
+            } catch (IOException e) {
+                throw new StorageException("Failed to delete " + key + ": " + e.getMessage(), e);
+            }
+        }
+        return List.of();
+    }
+
+    @Override
+    public Path localFile(String key) {
+        Path file = resolve(key);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private Path resolve(String key) {
+        Path file = root.resolve(key).normalize();
+        if (!file.startsWith(root) || file.equals(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,233 @@
+package com.minhtetthar.post_now.service.storage;
+
+import com.minhtetthar.post_now.config.R2Config;
+import com.minhtetthar.post_now.dto.storage.PresignedUploadDto;
+import com.minhtetthar.post_now.exception.FileUploadException;
+import com.minhtetthar.post_now.exception.StorageException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.BlockingInputStreamAsyncRequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.PresignedPutObjectRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Cloudflare R2 through the S3 API. Uploads stream over the async (Netty)
+ * client; everything else uses the blocking client.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "r2", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class R2StorageBackend implements StorageBackend {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final int MAX_KEYS_PER_DELETE = 1000;
+
+    private final S3Client s3Client;
+    private final S3AsyncClient s3AsyncClient;
+    private final S3Presigner s3Presigner;
+    private final R2Config r2Config;
+
+    @Override
+    public String getPublicUrl() {
+        String publicUrl = r2Config.getPublicUrl();
+        return publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long length, String contentType) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(r2Config.getBucketName())
+                .key(key)
+                .contentType(contentType)
+                .contentLength(length)
+                .cacheControl(CACHE_CONTROL)
+                .acl(ObjectCannedACL.PUBLIC_READ)
+                .build();
+
+        try {
+            BlockingInputStreamAsyncRequestBody body = AsyncRequestBody.forBlockingInputStream(length);
+            CompletableFuture<PutObjectResponse> put = s3AsyncClient.putObject(putObjectRequest, body);
+            try {
+                body.writeInputStream(content);
+            } catch (RuntimeException e) {
+                // The request may have failed before the body was consumed; report that cause instead
+                if (put.isCompletedExceptionally()) {
+                    put.join();
+                }
+                throw e;
+            }
+            put.join();
+
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof S3Exception s3Exception) {
+                log.error("Failed to upload file to R2", s3Exception);
+                throw new FileUploadException(
+                        "Failed to upload file to cloud storage: " + s3Exception.awsErrorDetails().errorMessage(),
+                        s3Exception);
+            }
+            log.error("Failed to upload file to R2", e.getCause());
+            throw new FileUploadException("Failed to upload file to cloud storage: " + e.getCause().getMessage(), e);
+        } catch (S3Exception e) {
+            log.error("Failed to upload file to R2", e);
+            throw new FileUploadException("Failed to upload file to cloud storage: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        try {
+            return s3Client.getObject(GetObjectRequest.builder()
+                    .bucket(r2Config.getBucketName())
+                    .key(key)
+                    .build());
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            throw new StorageException("Failed to read " + key + " from R2: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public byte[] readPrefix(String key, int length) {
+        try {
+            return s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                    .bucket(r2Config.getBucketName())
+                    .key(key)
+                    .range("bytes=0-" + (length - 1))
+                    .build()).asByteArray();
+        } catch (S3Exception e) {
+            throw new StorageException("Failed to read " + key + " from R2: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public StoredObjectInfo stat(String key) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(HeadObjectRequest.builder()
+                    .bucket(r2Config.getBucketName())
+                    .key(key)
+                    .build());
+            return new StoredObjectInfo(head.contentLength(), head.contentType());
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw new StorageException("Failed to look up " + key + " in R2: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<ListedObject> consumer) {
+        try {
+            s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                            .bucket(r2Config.getBucketName())
+                            .prefix(prefix)
+                            .build())
+                    .contents()
+                    .forEach(object -> consumer.accept(
+                            new ListedObject(object.key(), object.size(), object.lastModified())));
+        } catch (S3Exception e) {
+            throw new StorageException("Failed to list " + prefix + " in R2: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> delete(Collection<String> keys) {
+        List<String> failed = new ArrayList<>();
+        List<ObjectIdentifier> batch = new ArrayList<>();
+        try {
+            for (String key : keys) {
+                batch.add(ObjectIdentifier.builder().key(key).build());
+                if (batch.size() == MAX_KEYS_PER_DELETE) {
+                    failed.addAll(deleteBatch(batch));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                failed.addAll(deleteBatch(batch));
+            }
+        } catch (S3Exception e) {
+            throw new StorageException("Failed to delete from R2: " + e.getMessage(), e);
+        }
+        return failed;
+    }
+
+    /**
+     * Quiet mode leaves successes out of the response, but per-key errors are
+     * still listed even though the request as a whole succeeded.
+     */
+    private List<String> deleteBatch(List<ObjectIdentifier> batch) {
+        if (batch.size() == 1) {
+            s3Client.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(r2Config.getBucketName())
+                    .key(batch.get(0).key())
+                    .build());
+            return List.of();
+        }
+        DeleteObjectsResponse response = s3Client.deleteObjects(DeleteObjectsRequest.builder()
+                .bucket(r2Config.getBucketName())
+                .delete(Delete.builder().objects(batch).quiet(true).build())
+                .build());
+        if (!response.hasErrors()) {
+            return List.of();
+        }
+        List<String> failed = new ArrayList<>();
+        for (S3Error error : response.errors()) {
+            log.warn("Failed to delete {} from R2: {} {}", error.key(), error.code(), error.message());
+            failed.add(error.key());
+        }
+        return failed;
+    }
+
+    @Override
+    public boolean supportsDirectUpload() {
+        return true;
+    }
+
+    /**
+     * Content type and length are part of the signature, so the URL cannot be
+     * used for a different type or size.
+     */
+    @Override
+    public PresignedUploadDto presignPut(String key, String contentType, long contentLength, Duration expiry) {
+        PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+                .bucket(r2Config.getBucketName())
+                .key(key)
+                .contentType(contentType)
+                .contentLength(contentLength)
+                .acl(ObjectCannedACL.PUBLIC_READ)
+                .build();
+
+        PresignedPutObjectRequest presigned = s3Presigner.presignPutObject(PutObjectPresignRequest.builder()
+                .signatureDuration(expiry)
+                .putObjectRequest(putObjectRequest)
+                .build());
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        presigned.signedHeaders().forEach((name, values) -> {
+            if (!name.equalsIgnoreCase("host")) {
+                headers.put(name, String.join(",", values));
+            }
+        });
+        return new PresignedUploadDto(key, presigned.url().toString(), "PUT", headers, presigned.expiration());
+    }
+}
@@ -0,0 +1,85 @@
+package com.minhtetthar.post_now.service.storage;
+
+import com.minhtetthar.post_now.dto.storage.PresignedUploadDto;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where image bytes live. Keys are bucket-relative paths such as
+ * posts/abc.png; {@link #getPublicUrl()} + key is the URL clients load.
+ * <p>
+ * Write failures surface as FileUploadException, everything else as
+ * StorageException.
+ */
+public interface StorageBackend {
+
+    /**
+     * Base URL that keys are appended to, without a trailing slash.
+     */
+    String getPublicUrl();
+
+    /**
+     * Store exactly {@code length} bytes from {@code content}. Blocks until
+     * the object is durable; the stream is not closed.
+     */
+    void put(String key, InputStream content, long length, String contentType);
+
+    /**
+     * @return the object content, or null if there is no such object
+     */
+    InputStream open(String key);
+
+    /**
+     * Read up to {@code length} bytes from the start of an object.
+     */
+    byte[] readPrefix(String key, int length);
+
+    /**
+     * @return size and type of the object, or null if there is no such object
+     */
+    StoredObjectInfo stat(String key);
+
+    /**
+     * Pass every object whose key starts with {@code prefix} to the consumer.
+     * Large listings are fetched page by page as they are consumed.
+     */
+    void list(String prefix, Consumer<ListedObject> consumer);
+
+    /**
+     * Delete objects; missing keys are ignored. Remote backends send them in
+     * as few requests as the API allows.
+     *
+     * @return the keys the backend reported as not deleted, empty if all are gone
+     */
+    List<String> delete(Collection<String> keys);
+
+    /**
+     * Whether clients can upload straight to the backend with {@link #presignPut}.
+     */
+    default boolean supportsDirectUpload() {
+        return false;
+    }
+
+    /**
+     * Sign a direct upload URL for clients. Only called when
+     * {@link #supportsDirectUpload()} is true.
+     *
+     * @throws UnsupportedOperationException if the backend cannot accept direct uploads
+     */
+    default PresignedUploadDto presignPut(String key, String contentType, long contentLength, Duration expiry) {
+        throw new UnsupportedOperationException("Direct uploads are not supported by this storage backend");
+    }
+
+    /**
+     * @return the file holding the object if it lives on the local disk, so it
+     *         can be served with zero-copy transfers; null otherwise
+     */
+    default Path localFile(String key) {
+        return null;
+    }
+}
@@ -0,0 +1,191 @@
+package com.minhtetthar.post_now.service.storage;
+
+import com.minhtetthar.post_now.config.StorageProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Read-through copy of remotely stored objects on local disk, so the download
+ * endpoint can serve popular images with sendfile instead of fetching them
+ * from R2 on every request. Objects are immutable once written (keys are
+ * content hashes or random), so entries never go stale; they are only
+ * dropped when the object is deleted or to stay within max-size, least
+ * recently served first. Disabled unless storage.cache.enabled is set.
+ */
+@Component
+@Slf4j
+public class StorageDiskCache {
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public StorageDiskCache(StorageProperties storageProperties, MeterRegistry meterRegistry) {
+        StorageProperties.Cache cache = storageProperties.getCache();
+        this.enabled = cache.isEnabled();
+        this.directory = Path.of(cache.getDirectory()).toAbsolutePath().normalize();
+        this.maxBytes = cache.getMaxSize().toBytes();
+        this.hitCounter = Counter.builder("storage.cache.hits").register(meterRegistry);
+        this.missCounter = Counter.builder("storage.cache.misses").register(meterRegistry);
+        Gauge.builder("storage.cache.bytes", totalBytes, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Pick up files cached before a restart.
+     */
+    @PostConstruct
+    void load() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                try {
+                    if (file.getFileName().toString().endsWith(".tmp")) {
+                        Files.delete(file); // Left over from an interrupted fill
+                        return;
+                    }
+                    long size = Files.size(file);
+                    entries.put(directory.relativize(file).toString().replace('\\', '/'), new Entry(size));
+                    totalBytes.addAndGet(size);
+                } catch (IOException e) {
+                    log.warn("Ignoring unreadable cache file {}", file, e);
+                }
+            });
+        }
+        log.info("Disk cache at {} holds {} files ({} bytes)", directory, entries.size(), totalBytes.get());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the cached file, fetched from the backend first if needed; null
+     *         if the backend has no such object
+     */
+    public Path get(String key, StorageBackend backend) {
+        Path file = resolve(key);
+        Entry entry = entries.get(key);
+        if (entry != null && Files.isRegularFile(file)) {
+            entry.lastAccess = System.nanoTime();
+            hitCounter.increment();
+            return file;
+        }
+        missCounter.increment();
+
+        Path temp = null;
+        try (InputStream content = backend.open(key)) {
+            if (content == null) {
+                return null;
+            }
+            Files.createDirectories(file.getParent());
+            temp = Files.createTempFile(file.getParent(), ".fill-", ".tmp");
+            long size = Files.copy(content, temp, StandardCopyOption.REPLACE_EXISTING);
+            // Concurrent misses on one key each fill their own temp file; the contents are identical
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Entry previous = entries.put(key, new Entry(size));
+            totalBytes.addAndGet(previous == null ? size : size - previous.size);
+        } catch (IOException e) {
+            // The cache is an optimization; let the caller stream from the backend instead
+            log.warn("Could not cache {}", key, e);
+            return null;
+        } finally {
+            deleteQuietly(temp);
+        }
+
+        if (totalBytes.get() > maxBytes) {
+            shrink();
+        }
+        return file;
+    }
+
+    public void evict(Collection<String> keys) {
+        if (!enabled) {
+            return;
+        }
+        for (String key : keys) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                totalBytes.addAndGet(-entry.size);
+                deleteQuietly(resolve(key));
+            }
+        }
+    }
+
+    /**
+     * Remove least recently served files until 90% of max-size is reached.
+     * A file being sent while it is removed stays readable until closed.
+     */
+    private synchronized void shrink() {
+        long target = maxBytes / 10 * 9;
+        if (totalBytes.get() <= target) {
+            return;
+        }
+        List<Map.Entry<String, Entry>> oldestFirst = new ArrayList<>(entries.entrySet());
+        oldestFirst.sort(Comparator.comparingLong(e -> e.getValue().lastAccess));
+        int removed = 0;
+        for (Map.Entry<String, Entry> candidate : oldestFirst) {
+            if (totalBytes.get() <= target) {
+                break;
+            }
+            if (entries.remove(candidate.getKey(), candidate.getValue())) {
+                totalBytes.addAndGet(-candidate.getValue().size);
+                deleteQuietly(resolve(candidate.getKey()));
+                removed++;
+            }
+        }
+        log.debug("Disk cache evicted {} files, now {} bytes", removed, totalBytes.get());
+    }
+
+    private Path resolve(String key) {
+        Path file = directory.resolve(key).normalize();
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+        return file;
+    }
+
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete cache file {}", file, e);
+        }
+    }
+
+    private static class Entry {
+        private final long size;
+        private volatile long lastAccess = System.nanoTime();
+
+        private Entry(long size) {
+            this.size = size;
+        }
+    }
+}
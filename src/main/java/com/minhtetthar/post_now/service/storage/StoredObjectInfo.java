@@ -0,0 +1,14 @@
+package com.minhtetthar.post_now.service.storage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * What a backend knows about a stored object without reading it.
+ */
+@Data
+@AllArgsConstructor
+public class StoredObjectInfo {
+    private long size;
+    private String contentType;
+}
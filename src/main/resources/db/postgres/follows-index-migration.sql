@@ -0,0 +1,9 @@
+-- One-off cleanup after idx_follows_following was widened to
+-- idx_follows_following_follower (following_id, follower_id), which serves
+-- every query the old index did. ddl-auto creates the new index but never
+-- drops the old one, which only slows down follows and unfollows.
+--
+-- CONCURRENTLY does not block reads or writes of follows; it cannot run
+-- inside a transaction block. Safe to run repeatedly.
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_follows_following;
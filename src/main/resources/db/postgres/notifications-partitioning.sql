@@ -0,0 +1,59 @@
+-- Converts the notifications table into a table range-partitioned by month on created_at.
+-- Run once during a maintenance window, then set notifications.retention.partitioning.enabled=true.
+-- NotificationRetentionService keeps creating future partitions and drops the ones that fall
+-- completely outside the retention of every notification type (none while a type has no max age).
+
+BEGIN;
+
+ALTER TABLE notifications RENAME TO notifications_legacy;
+ALTER INDEX IF EXISTS idx_user_created RENAME TO idx_user_created_legacy;
+ALTER INDEX IF EXISTS idx_user_read RENAME TO idx_user_read_legacy;
+ALTER INDEX IF EXISTS idx_source_event RENAME TO idx_source_event_legacy;
+ALTER INDEX IF EXISTS idx_type_created RENAME TO idx_type_created_legacy;
+
+CREATE TABLE notifications (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    type        VARCHAR(20)  NOT NULL,
+    user_id     BIGINT       NOT NULL REFERENCES users (id),
+    actor_id    BIGINT       NOT NULL REFERENCES users (id),
+    post_id     BIGINT       REFERENCES posts (id),
+    comment_id  BIGINT       REFERENCES comments (id),
+    source_event_id BIGINT,
+    is_read     BOOLEAN      NOT NULL DEFAULT FALSE,
+    created_at  TIMESTAMP(6) NOT NULL,
+    -- The partition key has to be part of every unique constraint
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_user_created ON notifications (user_id, created_at);
+CREATE INDEX idx_user_read ON notifications (user_id, is_read);
+CREATE INDEX idx_source_event ON notifications (source_event_id);
+CREATE INDEX idx_type_created ON notifications (type, created_at);
+
+-- Catches rows outside the monthly partitions (e.g. clock skew) instead of failing inserts
+CREATE TABLE notifications_default PARTITION OF notifications DEFAULT;
+
+-- Monthly partitions covering the existing data plus the next two months
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE((SELECT MIN(created_at) FROM notifications_legacy), now()));
+    last_month  DATE := date_trunc('month', now()) + INTERVAL '2 months';
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS notifications_p%s PARTITION OF notifications FOR VALUES FROM (%L) TO (%L)',
+            to_char(month_start, 'YYYYMM'), month_start, month_start + INTERVAL '1 month');
+        month_start := month_start + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO notifications (id, type, user_id, actor_id, post_id, comment_id, source_event_id, is_read, created_at)
+SELECT id, type, user_id, actor_id, post_id, comment_id, source_event_id, is_read, created_at
+FROM notifications_legacy;
+
+SELECT setval(pg_get_serial_sequence('notifications', 'id'),
+              COALESCE((SELECT MAX(id) FROM notifications), 0) + 1, false);
+
+DROP TABLE notifications_legacy;
+
+COMMIT;
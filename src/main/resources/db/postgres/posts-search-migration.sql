@@ -0,0 +1,21 @@
+-- One-off migration adding the tsvector column used by post full-text search.
+-- The application never runs it; until it has been run, post search uses the
+-- LIKE query.
+--
+-- Adding a stored generated column rewrites the posts table under an ACCESS
+-- EXCLUSIVE lock, which blocks reads and writes of posts until it finishes,
+-- so run it once by hand in a maintenance window. lock_timeout makes it give
+-- up instead of waiting behind long transactions while every other query on
+-- posts waits behind it; just run it again if it times out.
+--
+-- Afterwards the next application start builds the index (posts-search.sql).
+
+SET lock_timeout = '5s';
+
+ALTER TABLE posts ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('english', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('english', coalesce(content, '')), 'B')
+    ) STORED;
+
+RESET lock_timeout;
@@ -0,0 +1,8 @@
+-- Full-text search over posts. Title matches rank above content matches.
+-- Safe to run repeatedly; PostSearchService runs it at startup once the
+-- search_vector column exists (posts-search-migration.sql), unless
+-- search.posts.initialize-schema=false.
+--
+-- The index is built concurrently and does not block writes.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_posts_search_vector ON posts USING GIN (search_vector);
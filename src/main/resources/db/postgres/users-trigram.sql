@@ -0,0 +1,17 @@
+-- User search: trigram GIN index over username, first and last name, and
+-- the lowercased username lookup used to resolve mentions.
+-- Safe to run repeatedly; UserSearchService runs it at startup unless
+-- search.users.initialize-schema=false.
+--
+-- The index serves both LIKE '%term%' and the word similarity operator (<%),
+-- so substring and misspelled searches no longer scan the users table. The
+-- expression must stay identical to the one in UserRepository.findByTrigramSearch.
+-- Matches need pg_trgm.word_similarity_threshold (default 0.6) similarity.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_search_trgm ON users
+    USING GIN ((lower(username || ' ' || coalesce(first_name, '') || ' ' || coalesce(last_name, ''))) gin_trgm_ops);
+
+-- Mentions are matched to usernames ignoring case (UserRepository.findByUsernameLowerIn)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_lower ON users (lower(username));
@@ -0,0 +1,126 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.PostgresDataJpaTest;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@PostgresDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Concurrent inserts need committed rows
+class LikeRepositoryTests {
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Post post;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        User alice = user("alice");
+        bob = user("bob");
+        post = postRepository.save(Post.builder().title("Hello").content("World").author(alice).build());
+    }
+
+    @Test
+    void insertOnConflictAddsALikeOnce() {
+        assertThat(insert(post.getId(), bob.getId())).isEqualTo(1);
+        assertThat(insert(post.getId(), bob.getId())).isZero();
+
+        assertThat(likeRepository.countByPost(post)).isEqualTo(1);
+    }
+
+    @Test
+    void insertSkipsInactiveAndMissingPosts() {
+        post.setActive(false);
+        postRepository.save(post);
+
+        assertThat(insert(post.getId(), bob.getId())).isZero();
+        assertThat(insert(-1L, bob.getId())).isZero();
+        assertThat(likeRepository.count()).isZero();
+    }
+
+    @Test
+    void concurrentInsertsOfTheSameLikeDoNotFail() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return insert(post.getId(), bob.getId());
+                }));
+            }
+            start.countDown();
+
+            int added = 0;
+            for (Future<Integer> result : results) {
+                added += result.get(); // Rethrows a unique constraint violation
+            }
+            assertThat(added).isEqualTo(1);
+            assertThat(likeRepository.countByPost(post)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void deleteOnlyRemovesLikesOfActivePosts() {
+        insert(post.getId(), bob.getId());
+        post.setActive(false);
+        postRepository.save(post);
+
+        assertThat(delete(post.getId(), bob.getId())).isZero();
+
+        post.setActive(true);
+        postRepository.save(post);
+        assertThat(delete(post.getId(), bob.getId())).isEqualTo(1);
+        assertThat(likeRepository.count()).isZero();
+    }
+
+    private int insert(Long postId, Long userId) {
+        return transactionTemplate.execute(status ->
+                likeRepository.insertIfAbsentPostgres(postId, userId, LocalDateTime.now()));
+    }
+
+    private int delete(Long postId, Long userId) {
+        return transactionTemplate.execute(status -> likeRepository.deleteFromActivePost(postId, userId));
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .build());
+    }
+}
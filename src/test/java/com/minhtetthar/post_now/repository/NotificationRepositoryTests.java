@@ -0,0 +1,85 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.dto.notification.NotificationRow;
+import com.minhtetthar.post_now.entity.Notification;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class NotificationRepositoryTests {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User recipient;
+
+    @BeforeEach
+    void setUp() {
+        recipient = persistUser("recipient");
+        Post post = entityManager.persist(Post.builder().title("Hello").author(recipient).build());
+
+        for (int i = 0; i < 10; i++) {
+            Notification notification = new Notification();
+            notification.setUser(recipient);
+            notification.setActor(persistUser("actor" + i));
+            if (i % 2 == 0) {
+                notification.setType(Notification.NotificationType.NEW_LIKE);
+                notification.setPost(post);
+            } else {
+                notification.setType(Notification.NotificationType.NEW_FOLLOW);
+            }
+            entityManager.persist(notification);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void notificationPageUsesFixedNumberOfStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<NotificationRow> page = notificationRepository.findRowsByUserId(recipient.getId(), PageRequest.of(0, 5));
+        page.forEach(row -> {
+            assertThat(row.getActorUsername()).startsWith("actor");
+            if (row.getType() == Notification.NotificationType.NEW_LIKE) {
+                assertThat(row.getPostId()).isNotNull();
+            } else {
+                assertThat(row.getPostId()).isNull();
+            }
+        });
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        // One statement for the page and one for the count, independent of the page size
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    private User persistUser(String username) {
+        return entityManager.persist(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .build());
+    }
+}
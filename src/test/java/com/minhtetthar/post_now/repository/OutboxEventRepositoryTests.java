@@ -0,0 +1,104 @@
+package com.minhtetthar.post_now.repository;
+
+import com.minhtetthar.post_now.config.OutboxProperties;
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.service.OutboxLeases;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Lease renewals commit on their own
+class OutboxEventRepositoryTests {
+
+    private static final List<OutboxEvent.Status> CLAIMABLE =
+            List.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.PROCESSING);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private OutboxEvent event;
+
+    @BeforeEach
+    void setUp() {
+        event = new OutboxEvent();
+        event.setType(OutboxEvent.EventType.NEW_FOLLOW);
+        event.setActorId(1L);
+        event.setTargetUserId(2L);
+        event.setAvailableAt(LocalDateTime.now().minusMinutes(1));
+        event = outboxEventRepository.save(event);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void finishStoresTheOutcomeOfTheCurrentClaim() {
+        OutboxEvent claimed = claim();
+
+        assertThat(finish(claimed, OutboxEvent.Status.PROCESSED)).isEqualTo(1);
+
+        OutboxEvent stored = outboxEventRepository.findById(event.getId()).orElseThrow();
+        assertThat(stored.getStatus()).isEqualTo(OutboxEvent.Status.PROCESSED);
+        assertThat(stored.getProcessedAt()).isNotNull();
+    }
+
+    @Test
+    void lateWorkerCannotOverwriteANewerClaim() {
+        OutboxEvent first = claim();
+        expireLease();
+        OutboxEvent second = claim();
+        assertThat(finish(second, OutboxEvent.Status.PROCESSED)).isEqualTo(1);
+
+        // The first worker fails after its lease ran out
+        assertThat(finish(first, OutboxEvent.Status.PENDING)).isZero();
+
+        assertThat(outboxEventRepository.findById(event.getId()).orElseThrow().getStatus())
+                .isEqualTo(OutboxEvent.Status.PROCESSED);
+    }
+
+    @Test
+    void renewingALostClaimFails() {
+        OutboxLeases leases = new OutboxLeases(outboxEventRepository, new OutboxProperties());
+        OutboxEvent first = claim();
+        leases.renew(first);
+        assertThat(outboxEventRepository.findById(event.getId()).orElseThrow().getAvailableAt())
+                .isAfter(LocalDateTime.now().plusMinutes(4));
+
+        expireLease();
+        claim();
+
+        assertThatThrownBy(() -> leases.renew(first)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private OutboxEvent claim() {
+        LocalDateTime now = LocalDateTime.now();
+        assertThat(outboxEventRepository.claim(event.getId(), CLAIMABLE, OutboxEvent.Status.PROCESSING,
+                now, now.plusMinutes(5))).isEqualTo(1);
+        return outboxEventRepository.findById(event.getId()).orElseThrow();
+    }
+
+    private void expireLease() {
+        OutboxEvent stored = outboxEventRepository.findById(event.getId()).orElseThrow();
+        stored.setAvailableAt(LocalDateTime.now().minusSeconds(1));
+        outboxEventRepository.save(stored);
+    }
+
+    private int finish(OutboxEvent claimed, OutboxEvent.Status status) {
+        LocalDateTime now = LocalDateTime.now();
+        return outboxEventRepository.finish(claimed.getId(), claimed.getAttempts(), OutboxEvent.Status.PROCESSING,
+                status, now, status == OutboxEvent.Status.PROCESSED ? now : null, null);
+    }
+}
@@ -0,0 +1,106 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.EmailDigestProperties;
+import com.minhtetthar.post_now.entity.EmailDigestEntry;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.EmailDigestEntryRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.email.EmailDeliveryReport;
+import com.minhtetthar.post_now.service.email.OutgoingEmail;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailDigestServiceTests {
+
+    private static final Set<User.EmailFrequency> HOURLY = Set.of(User.EmailFrequency.HOURLY);
+    private static final Set<User.EmailFrequency> DAILY = Set.of(User.EmailFrequency.DAILY);
+
+    private final EmailDigestEntryRepository entryRepository = mock(EmailDigestEntryRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final EmailDigestService digestService = new EmailDigestService(
+            entryRepository, userRepository, emailService, new EmailDigestProperties());
+
+    private final Post post = Post.builder().id(100L).title("Hello").active(true).build();
+
+    @Test
+    void keepsEntriesOfRecipientsWhoseDigestFailed() {
+        pending(HOURLY, 1L, 2L);
+        when(entryRepository.findWithPostsByRecipientIdIn(List.of(1L, 2L)))
+                .thenReturn(List.of(entry(10L, 1L), entry(20L, 2L), entry(21L, 2L)));
+        when(userRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(user(1L), user(2L)));
+        OutgoingEmail failed = OutgoingEmail.builder().recipientId(2L).to("user2@example.com").build();
+        when(emailService.sendDigestEmails(anyList()))
+                .thenReturn(new EmailDeliveryReport(1, 1, 1, List.of(failed)));
+
+        int sent = digestService.sendDigests(HOURLY);
+
+        assertThat(sent).isEqualTo(1);
+        verify(entryRepository).deleteAllByIdInBatch(List.of(10L));
+    }
+
+    @Test
+    void dailyRunIsNotSkippedWhileHourlyRunIsInProgress() throws Exception {
+        pending(HOURLY, 1L);
+        pending(DAILY, 2L);
+        when(entryRepository.findWithPostsByRecipientIdIn(List.of(1L))).thenReturn(List.of(entry(10L, 1L)));
+        when(entryRepository.findWithPostsByRecipientIdIn(List.of(2L))).thenReturn(List.of(entry(20L, 2L)));
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user(1L)));
+        when(userRepository.findAllById(List.of(2L))).thenReturn(List.of(user(2L)));
+
+        CountDownLatch hourlySending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(emailService.sendDigestEmails(argThat(digests -> digests != null && digests.size() == 1
+                && digests.get(0).getRecipient().getId() == 1L))).thenAnswer(invocation -> {
+            hourlySending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new EmailDeliveryReport(1, 0, 1, List.of());
+        });
+        when(emailService.sendDigestEmails(argThat(digests -> digests != null && digests.size() == 1
+                && digests.get(0).getRecipient().getId() == 2L)))
+                .thenReturn(new EmailDeliveryReport(1, 0, 1, List.of()));
+
+        CompletableFuture<Integer> hourly = CompletableFuture.supplyAsync(() -> digestService.sendDigests(HOURLY));
+        assertThat(hourlySending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(digestService.sendDigests(HOURLY)).isZero();
+        assertThat(digestService.sendDigests(DAILY)).isEqualTo(1);
+
+        release.countDown();
+        assertThat(hourly.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    }
+
+    private void pending(Set<User.EmailFrequency> frequencies, Long... recipientIds) {
+        when(entryRepository.findPendingRecipientIds(eq(frequencies), eq(0L), any()))
+                .thenReturn(List.of(recipientIds));
+        when(entryRepository.findPendingRecipientIds(eq(frequencies), eq(recipientIds[recipientIds.length - 1]), any()))
+                .thenReturn(List.of());
+    }
+
+    private EmailDigestEntry entry(Long id, Long recipientId) {
+        EmailDigestEntry entry = new EmailDigestEntry();
+        entry.setId(id);
+        entry.setRecipientId(recipientId);
+        entry.setPost(post);
+        return entry;
+    }
+
+    private static User user(Long id) {
+        return User.builder().id(id).username("user" + id).email("user" + id + "@example.com").build();
+    }
+}
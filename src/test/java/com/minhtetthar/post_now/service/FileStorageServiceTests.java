@@ -0,0 +1,156 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.StorageProperties;
+import com.minhtetthar.post_now.dto.storage.UploadedImage;
+import com.minhtetthar.post_now.entity.StoredObject;
+import com.minhtetthar.post_now.exception.StorageBusyException;
+import com.minhtetthar.post_now.repository.StoredObjectRepository;
+import com.minhtetthar.post_now.service.storage.StorageBackend;
+import com.minhtetthar.post_now.service.storage.StorageDiskCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileStorageServiceTests {
+
+    private static final byte[] PNG = {(byte) 0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13, 1, 2, 3};
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final StorageBackend backend = mock(StorageBackend.class);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private FileStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        when(backend.getPublicUrl()).thenReturn("http://files");
+        executor.initialize();
+
+        StorageProperties properties = new StorageProperties();
+        properties.getCache().setDirectory(System.getProperty("java.io.tmpdir"));
+        properties.getUpload().setKeySecret("test-secret");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        storageService = new FileStorageService(backend, new StorageDiskCache(properties, registry), executor,
+                properties, storedObjectRepository, new TransactionTemplate(transactionManager), registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        storedObjectRepository.deleteAll();
+    }
+
+    @Test
+    void sameImageFromTheSameOwnerIsStoredOnce() {
+        UploadedImage first = upload(1L);
+        UploadedImage second = upload(1L);
+
+        assertThat(second.getKey()).isEqualTo(first.getKey());
+        assertThat(refCount(first.getKey())).isEqualTo(2);
+        verify(backend, times(1)).put(anyString(), any(), anyLong(), anyString());
+    }
+
+    @Test
+    void keysAreScopedToTheOwnerAndDoNotRevealTheHash() throws Exception {
+        UploadedImage mine = upload(1L);
+        UploadedImage theirs = upload(2L);
+
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PNG));
+        assertThat(mine.getSha256()).isEqualTo(sha256);
+        assertThat(mine.getKey()).startsWith("posts/1/").endsWith(".png").doesNotContain(sha256);
+        assertThat(theirs.getKey()).startsWith("posts/2/");
+        assertThat(refCount(mine.getKey())).isEqualTo(1);
+        assertThat(refCount(theirs.getKey())).isEqualTo(1);
+    }
+
+    @Test
+    void objectIsDeletedWithItsLastReference() {
+        UploadedImage image = upload(1L);
+        upload(1L);
+
+        storageService.deleteImage(image.getUrl());
+        assertThat(refCount(image.getKey())).isEqualTo(1);
+        verify(backend, never()).delete(any());
+
+        storageService.deleteImage(image.getUrl());
+        assertThat(storedObjectRepository.findById(image.getKey())).isEmpty();
+        verify(backend).delete(argThat(keys -> keys.contains(image.getKey())));
+    }
+
+    @Test
+    void storageIsCalledAfterTheReleaseIsCommitted() {
+        UploadedImage image = upload(1L);
+        List<Integer> countsSeenByStorage = new ArrayList<>();
+        doAnswer(invocation -> {
+            // Read in a separate transaction: only committed state is visible
+            countsSeenByStorage.add(refCount(image.getKey()));
+            return List.of();
+        }).when(backend).delete(any());
+
+        storageService.deleteImage(image.getUrl());
+
+        assertThat(countsSeenByStorage).containsExactly(0);
+        assertThat(storedObjectRepository.findById(image.getKey())).isEmpty();
+    }
+
+    @Test
+    void uploadWaitsForAnImageBeingDeleted() {
+        UploadedImage image = upload(1L);
+        jdbcTemplate.update("UPDATE stored_objects SET ref_count = 0 WHERE object_key = ?", image.getKey());
+
+        assertThatThrownBy(() -> upload(1L)).hasCauseInstanceOf(StorageBusyException.class);
+
+        // A deletion that never finished is taken over and the image stored again
+        jdbcTemplate.update("UPDATE stored_objects SET updated_at = DATEADD('MINUTE', -5, updated_at) WHERE object_key = ?",
+                image.getKey());
+        assertThat(upload(1L).getKey()).isEqualTo(image.getKey());
+        assertThat(refCount(image.getKey())).isEqualTo(1);
+        verify(backend, times(2)).put(anyString(), any(), anyLong(), anyString());
+    }
+
+    private UploadedImage upload(Long ownerId) {
+        MockMultipartFile file = new MockMultipartFile("image", "photo.png", "image/png", PNG);
+        return storageService.uploadImage(file, "posts", ownerId).join();
+    }
+
+    private int refCount(String key) {
+        return storedObjectRepository.findById(key).map(StoredObject::getRefCount).orElse(-1);
+    }
+}
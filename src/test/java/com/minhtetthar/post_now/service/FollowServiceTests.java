@@ -0,0 +1,164 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.dto.follow.RelationshipDto;
+import com.minhtetthar.post_now.entity.FollowChange;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.mapper.UserMapper;
+import com.minhtetthar.post_now.repository.FollowChangeRepository;
+import com.minhtetthar.post_now.repository.FollowRepository;
+import com.minhtetthar.post_now.repository.OutboxEventRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.graph.FollowGraph;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Evictions wait for the commit
+class FollowServiceTests {
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private FollowChangeRepository followChangeRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager("users", "usersById", "relationships");
+    private final FollowGraph followGraph = mock(FollowGraph.class);
+    private TransactionTemplate transactionTemplate;
+    private FollowService service;
+    private User alice;
+    private User bob;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        service = new FollowService(followRepository, followChangeRepository, userRepository, mock(UserMapper.class),
+                new OutboxService(outboxEventRepository), followGraph,
+                mock(ApplicationEventPublisher.class), cacheManager);
+        alice = user("alice");
+        bob = user("bob");
+    }
+
+    @AfterEach
+    void tearDown() {
+        followRepository.deleteAll();
+        followChangeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void evictsCachedUsersOnceTheFollowCommits() {
+        Cache users = cacheManager.getCache("users");
+        Cache usersById = cacheManager.getCache("usersById");
+        Cache relationships = cacheManager.getCache("relationships");
+        users.put("bob", bob);
+        usersById.put(bob.getId(), "profile of bob");
+        assertThat(service.getRelationships("alice", List.of("bob")).get("bob").isFollowing()).isFalse();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.followUser("alice", "bob");
+            // A read before the commit would cache the old counts again
+            assertThat(users.get("bob")).isNotNull();
+            assertThat(usersById.get(bob.getId())).isNotNull();
+            assertThat(relationships.get(alice.getId() + ":" + bob.getId())).isNotNull();
+        });
+
+        assertThat(users.get("bob")).isNull();
+        assertThat(usersById.get(bob.getId())).isNull();
+        assertThat(relationships.get(alice.getId() + ":" + bob.getId())).isNull();
+        assertThat(service.getRelationships("alice", List.of("bob")).get("bob").isFollowing()).isTrue();
+        assertThat(userRepository.findById(bob.getId()).orElseThrow().getFollowerCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackFollowKeepsTheCache() {
+        Cache users = cacheManager.getCache("users");
+        users.put("bob", bob);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            service.followUser("alice", "bob");
+            status.setRollbackOnly();
+        });
+
+        assertThat(users.get("bob")).isNotNull();
+    }
+
+    @Test
+    void relationshipsLeaveOutUnknownAndDisabledUsers() {
+        User carol = user("carol");
+        carol.setEnabled(false);
+        userRepository.save(carol);
+        transactionTemplate.executeWithoutResult(status -> service.followUser("bob", "alice"));
+
+        Map<String, RelationshipDto> relationships =
+                service.getRelationships("alice", List.of("alice", "bob", "carol", "nobody"));
+
+        assertThat(relationships).containsOnlyKeys("bob");
+        assertThat(relationships.get("bob").isFollowing()).isFalse();
+        assertThat(relationships.get("bob").isFollowedBy()).isTrue();
+    }
+
+    @Test
+    void countsComeFromTheUserRowNotTheGraph() {
+        when(followGraph.isReady()).thenReturn(true); // A graph that has not seen the follow yet
+        transactionTemplate.executeWithoutResult(status -> service.followUser("alice", "bob"));
+
+        assertThat(service.getFollowerCount("bob")).isEqualTo(1);
+        assertThat(service.getFollowingCount("alice")).isEqualTo(1);
+        assertThat(service.getFollowerCount("alice")).isZero();
+    }
+
+    @Test
+    void logsFollowsAndUnfollowsForOtherInstances() {
+        transactionTemplate.executeWithoutResult(status -> service.followUser("alice", "bob"));
+        transactionTemplate.executeWithoutResult(status -> {
+            service.followUser("bob", "alice");
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> service.unfollowUser("alice", "bob"));
+
+        List<FollowChange> changes = followChangeRepository.findAll(Sort.by("id"));
+        assertThat(changes).extracting(FollowChange::getFollowerId, FollowChange::getFollowingId, FollowChange::isFollowing)
+                .containsExactly(
+                        tuple(alice.getId(), bob.getId(), true),
+                        tuple(alice.getId(), bob.getId(), false));
+        assertThat(changes).allSatisfy(change -> assertThat(change.getChangedAt()).isNotNull());
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .build());
+    }
+}
@@ -0,0 +1,144 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.FollowGraphProperties;
+import com.minhtetthar.post_now.config.FollowSuggestionProperties;
+import com.minhtetthar.post_now.dto.follow.FollowEdge;
+import com.minhtetthar.post_now.dto.follow.FollowSuggestionDto;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.event.FollowChangedEvent;
+import com.minhtetthar.post_now.repository.FollowChangeRepository;
+import com.minhtetthar.post_now.repository.FollowRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.graph.FollowGraph;
+import com.minhtetthar.post_now.service.graph.FollowSuggester;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FollowSuggestionServiceTests {
+
+    private final FollowSuggestionProperties properties = new FollowSuggestionProperties();
+    private final List<FollowEdge> follows = new ArrayList<>();
+    private final Map<Long, User> users = new HashMap<>();
+    private FollowGraph graph;
+    private FollowSuggester suggester;
+    private FollowSuggestionService service;
+
+    @BeforeEach
+    void setUp() {
+        // alice (1) follows 2 and 3, who follow 100..130 and 200
+        follow(1, 2);
+        follow(1, 3);
+        for (long id = 100; id <= 130; id++) {
+            follow(2, id);
+        }
+        follow(3, 200);
+        user(1, "alice");
+        for (long id = 100; id <= 130; id++) {
+            user(id, "user" + id);
+        }
+        user(200, "user200");
+
+        FollowRepository followRepository = mock(FollowRepository.class);
+        when(followRepository.findEdgesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return follows.stream().filter(edge -> edge.getId() > afterId).toList();
+        });
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findIdByUsername("alice")).thenReturn(Optional.of(1L));
+        when(userRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(users::get).filter(user -> user != null).toList();
+        });
+
+        graph = new FollowGraph(followRepository, mock(FollowChangeRepository.class), new FollowGraphProperties(), new SimpleMeterRegistry());
+        graph.load();
+        suggester = new FollowSuggester(graph, properties);
+        service = new FollowSuggestionService(suggester, graph, userRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        suggester.shutdown();
+    }
+
+    @Test
+    void ranksByMutualsThenFollowersThenId() {
+        follow(3, 130);
+        graph.onFollowChanged(FollowChangedEvent.followed(3L, 130L));
+
+        assertThat(ids(service.getSuggestions("alice", 4))).containsExactly(130L, 100L, 101L, 102L);
+        assertThat(service.getSuggestions("alice", 4).get(0).getMutualCount()).isEqualTo(2);
+    }
+
+    @Test
+    void keepsLoadingPastDisabledAndFollowedCandidates() {
+        for (long id = 100; id <= 109; id++) {
+            users.get(id).setEnabled(false);
+        }
+        service.getSuggestions("alice", 3); // Cache the ranking
+        // Followed through another instance: the cached ranking still has them
+        graph.onFollowChanged(FollowChangedEvent.followed(1L, 110L));
+        graph.onFollowChanged(FollowChangedEvent.followed(1L, 111L));
+
+        assertThat(ids(service.getSuggestions("alice", 3))).containsExactly(112L, 113L, 114L);
+    }
+
+    @Test
+    void returnsFewerWhenCandidatesRunOut() {
+        users.values().forEach(user -> user.setEnabled(false));
+        users.get(200L).setEnabled(true);
+
+        assertThat(ids(service.getSuggestions("alice", 10))).containsExactly(200L);
+    }
+
+    @Test
+    void followChangesRerankCachedListsInTheBackground() throws InterruptedException {
+        assertThat(ids(service.getSuggestions("alice", 1))).containsExactly(100L);
+
+        // bob (2) follows 200 too, giving it a second mutual
+        follow(2, 200);
+        FollowChangedEvent event = FollowChangedEvent.followed(2L, 200L);
+        graph.onFollowChanged(event);
+        service.onFollowChanged(event);
+
+        List<FollowSuggestionDto> suggestions = List.of();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            suggestions = service.getSuggestions("alice", 1);
+            if (ids(suggestions).equals(List.of(200L))) {
+                break;
+            }
+            Thread.sleep(20);
+        }
+        assertThat(ids(suggestions)).containsExactly(200L);
+        assertThat(suggestions.get(0).getMutualCount()).isEqualTo(2);
+    }
+
+    private static List<Long> ids(List<FollowSuggestionDto> suggestions) {
+        return suggestions.stream().map(FollowSuggestionDto::getId).toList();
+    }
+
+    private void follow(long followerId, long followingId) {
+        follows.add(new FollowEdge((long) follows.size() + 1, followerId, followingId));
+    }
+
+    private void user(long id, String username) {
+        users.put(id, User.builder().id(id).username(username).email(username + "@example.com")
+                .password("secret").build());
+    }
+}
@@ -0,0 +1,114 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.LikeRepository;
+import com.minhtetthar.post_now.repository.OutboxEventRepository;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+class LikeServiceTests {
+
+    @Autowired
+    private LikeRepository likeRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private LikeService service;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        service = new LikeService(likeRepository, postRepository, mock(UserService.class),
+                new OutboxService(outboxEventRepository), userRepository, new DatabasePlatform(dataSource));
+        User author = user("alice");
+        user("bob");
+        post = postRepository.save(Post.builder().title("Hello").content("World").author(author).build());
+    }
+
+    @Test
+    void likeIsIdempotent() {
+        assertThat(service.likePost(post.getId(), "bob")).isTrue();
+        assertThat(service.likePost(post.getId(), "bob")).isFalse();
+
+        assertThat(likeRepository.countByPost(post)).isEqualTo(1);
+        assertThat(likeEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void unlikeIsIdempotent() {
+        assertThat(service.unlikePost(post.getId(), "bob")).isFalse();
+        service.likePost(post.getId(), "bob");
+
+        assertThat(service.unlikePost(post.getId(), "bob")).isTrue();
+        assertThat(service.unlikePost(post.getId(), "bob")).isFalse();
+        assertThat(likeRepository.countByPost(post)).isZero();
+    }
+
+    @Test
+    void toggleReportsTheResultingState() {
+        assertThat(service.toggleLike(post.getId(), "bob")).isTrue();
+        assertThat(likeRepository.countByPost(post)).isEqualTo(1);
+        assertThat(service.toggleLike(post.getId(), "bob")).isFalse();
+        assertThat(likeRepository.countByPost(post)).isZero();
+        assertThat(service.toggleLike(post.getId(), "bob")).isTrue();
+
+        assertThat(likeEvents()).isEqualTo(2);
+    }
+
+    @Test
+    void deletedPostsCannotBeLikedOrUnliked() {
+        service.likePost(post.getId(), "bob");
+        post.setActive(false);
+        postRepository.save(post);
+
+        assertThatThrownBy(() -> service.likePost(post.getId(), "bob")).hasMessageContaining("Post not found");
+        assertThatThrownBy(() -> service.unlikePost(post.getId(), "bob")).hasMessageContaining("Post not found");
+        assertThatThrownBy(() -> service.toggleLike(post.getId(), "bob")).hasMessageContaining("Post not found");
+        assertThat(likeRepository.countByPost(post)).isEqualTo(1);
+        assertThat(likeEvents()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownPostsAreNotFound() {
+        assertThatThrownBy(() -> service.likePost(-1L, "bob")).hasMessageContaining("Post not found");
+        assertThatThrownBy(() -> service.unlikePost(-1L, "bob")).hasMessageContaining("Post not found");
+    }
+
+    private long likeEvents() {
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> event.getType() == OutboxEvent.EventType.NEW_LIKE)
+                .count();
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .build());
+    }
+}
@@ -0,0 +1,131 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.PostgresDataJpaTest;
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.NotificationRetentionProperties;
+import com.minhtetthar.post_now.entity.Notification.NotificationType;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.NotificationRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@PostgresDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // The partitioning script manages its own transaction
+class NotificationRetentionServiceTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final NotificationRetentionProperties properties = new NotificationRetentionProperties();
+    private NotificationRetentionService service;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jdbcTemplate.execute(new ClassPathResource("db/postgres/notifications-partitioning.sql")
+                .getContentAsString(StandardCharsets.UTF_8));
+
+        properties.setPauseBetweenBatches(Duration.ZERO);
+        properties.getPartitioning().setEnabled(true);
+        service = new NotificationRetentionService(notificationRepository, properties,
+                new DatabasePlatform(dataSource), jdbcTemplate, new TransactionTemplate(transactionManager));
+
+        userId = userRepository.save(User.builder()
+                .username("alice")
+                .email("alice@example.com")
+                .password("secret")
+                .build()).getId();
+    }
+
+    @Test
+    void keepsExpiredPartitionWhileATypeHasNoMaxAge() {
+        YearMonth old = YearMonth.now().minusYears(3);
+        createPartition(old);
+        insert(NotificationType.NEW_LIKE, old);
+        insert(NotificationType.NEW_FOLLOW, old);
+        for (NotificationType type : NotificationType.values()) {
+            if (type != NotificationType.NEW_FOLLOW) {
+                properties.getMaxAge().put(type, Duration.ofDays(30));
+            }
+        }
+
+        service.purgeExpiredNotifications();
+
+        // NEW_FOLLOW has no max age: the partition stays and only the like is purged
+        assertThat(partitionExists(old)).isTrue();
+        assertThat(jdbcTemplate.queryForList("SELECT type FROM " + partition(old), String.class))
+                .containsExactly("NEW_FOLLOW");
+
+        properties.getMaxAge().put(NotificationType.NEW_FOLLOW, Duration.ofDays(365));
+        service.purgeExpiredNotifications();
+
+        assertThat(partitionExists(old)).isFalse();
+    }
+
+    @Test
+    void movesRowsFromDefaultPartitionWhenCreatingAPartition() {
+        YearMonth ahead = YearMonth.now().plusMonths(2);
+        jdbcTemplate.execute("DROP TABLE " + partition(ahead));
+        insert(NotificationType.NEW_LIKE, ahead);
+        assertThat(count("notifications_default")).isEqualTo(1);
+
+        service.purgeExpiredNotifications();
+
+        assertThat(partitionExists(ahead)).isTrue();
+        assertThat(count(partition(ahead))).isEqualTo(1);
+        assertThat(count("notifications_default")).isZero();
+        assertThat(count("notifications")).isEqualTo(1);
+    }
+
+    private void createPartition(YearMonth month) {
+        jdbcTemplate.execute("CREATE TABLE " + partition(month) + " PARTITION OF notifications FOR VALUES FROM ('"
+                + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private void insert(NotificationType type, YearMonth month) {
+        jdbcTemplate.update("INSERT INTO notifications (type, user_id, actor_id, is_read, created_at) " +
+                "VALUES (?, ?, ?, false, ?)", type.name(), userId, userId, month.atDay(10).atStartOfDay());
+    }
+
+    private boolean partitionExists(YearMonth month) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition(month)));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private static String partition(YearMonth month) {
+        return "notifications_p" + month.format(DateTimeFormatter.ofPattern("yyyyMM"));
+    }
+}
@@ -0,0 +1,301 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.EmailDigestProperties;
+import com.minhtetthar.post_now.config.OutboxProperties;
+import com.minhtetthar.post_now.dto.follow.FollowerRecipient;
+import com.minhtetthar.post_now.entity.EmailDelivery;
+import com.minhtetthar.post_now.entity.Follow;
+import com.minhtetthar.post_now.entity.Notification;
+import com.minhtetthar.post_now.entity.OutboxEvent;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.CommentRepository;
+import com.minhtetthar.post_now.repository.EmailDeliveryRepository;
+import com.minhtetthar.post_now.repository.EmailDigestEntryRepository;
+import com.minhtetthar.post_now.repository.FollowRepository;
+import com.minhtetthar.post_now.repository.NotificationReadMarkerRepository;
+import com.minhtetthar.post_now.repository.NotificationRepository;
+import com.minhtetthar.post_now.repository.OutboxEventRepository;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.PostTagRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.email.EmailDeliveryReport;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+class NotificationServiceTests {
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private PostTagRepository postTagRepository;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private EmailDeliveryRepository emailDeliveryRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EmailDigestEntryRepository digestEntryRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicLong userNumbers = new AtomicLong();
+    private final EmailService emailService = mock(EmailService.class);
+    private final List<Long> emailed = new ArrayList<>();
+    private PostTagService postTagService;
+    private NotificationService service;
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        postTagService = new PostTagService(postTagRepository);
+        EmailDigestService emailDigestService = new EmailDigestService(digestEntryRepository, userRepository,
+                emailService, new EmailDigestProperties());
+        service = new NotificationService(notificationRepository, mock(NotificationReadMarkerRepository.class),
+                userRepository, followRepository, postRepository, mock(CommentRepository.class), postTagService,
+                emailService, emailDigestService, emailDeliveryRepository, entityManager,
+                new TransactionTemplate(transactionManager),
+                new OutboxLeases(outboxEventRepository, new OutboxProperties()));
+        when(emailService.sendNewPostEmails(any(), any(), anyList(), anyLong())).thenAnswer(invocation -> {
+            List<FollowerRecipient> recipients = invocation.getArgument(2);
+            recipients.forEach(recipient -> emailed.add(recipient.getId()));
+            return new EmailDeliveryReport(recipients.size(), 0, recipients.size(), List.of());
+        });
+        alice = user("alice");
+    }
+
+    @Test
+    void newPostNotificationsCoverAPartialLastChunk() {
+        List<User> followers = followers(1203, User.EmailFrequency.DAILY);
+        Post post = post(Post.PostType.PUBLIC, "Hello");
+
+        service.createNewPostNotification(event(OutboxEvent.EventType.NEW_POST, post));
+
+        assertThat(newPostRecipients(post)).containsExactlyInAnyOrderElementsOf(ids(followers));
+    }
+
+    @Test
+    void newPostNotificationsCoverAnExactMultipleOfTheChunkSize() {
+        List<User> followers = followers(1000, User.EmailFrequency.DAILY);
+        Post post = post(Post.PostType.PUBLIC, "Hello");
+
+        service.createNewPostNotification(event(OutboxEvent.EventType.NEW_POST, post));
+
+        assertThat(newPostRecipients(post)).containsExactlyInAnyOrderElementsOf(ids(followers));
+    }
+
+    @Test
+    void redeliveredNewPostEventOnlyNotifiesTheRest() {
+        List<User> followers = followers(1000, User.EmailFrequency.DAILY);
+        Post post = post(Post.PostType.PUBLIC, "Hello");
+        OutboxEvent event = event(OutboxEvent.EventType.NEW_POST, post);
+        service.createNewPostNotification(event);
+        // The first delivery got through 700 followers before failing
+        List<Notification> created = notificationRepository.findAll();
+        notificationRepository.deleteAll(created.subList(700, created.size()));
+        List<Long> kept = created.subList(0, 700).stream().map(Notification::getId).toList();
+
+        service.createNewPostNotification(event);
+
+        assertThat(newPostRecipients(post)).containsExactlyInAnyOrderElementsOf(ids(followers));
+        assertThat(notificationRepository.findAllById(kept)).hasSize(700);
+    }
+
+    @Test
+    void newPostEmailsCoverEveryPage() {
+        List<User> immediate = followers(700, User.EmailFrequency.IMMEDIATE);
+        List<User> digest = followers(503, User.EmailFrequency.DAILY);
+        Post post = post(Post.PostType.PUBLIC, "Hello");
+
+        service.sendNewPostEmails(event(OutboxEvent.EventType.NEW_POST_EMAIL, post));
+
+        assertThat(emailed).containsExactlyElementsOf(ids(immediate));
+        assertThat(digestEntryRepository.findRecipientIdsByPostId(post.getId(), ids(digest)))
+                .containsExactlyInAnyOrderElementsOf(ids(digest));
+    }
+
+    @Test
+    void redeliveredNewPostEmailsSkipRecipientsAlreadyEmailedOrQueued() {
+        List<User> immediate = followers(503, User.EmailFrequency.IMMEDIATE);
+        List<User> digest = followers(497, User.EmailFrequency.DAILY);
+        Post post = post(Post.PostType.PUBLIC, "Hello");
+        OutboxEvent event = event(OutboxEvent.EventType.NEW_POST_EMAIL, post);
+        // An earlier attempt emailed the first 300 and queued the first 200 digests
+        for (User user : immediate.subList(0, 300)) {
+            EmailDelivery delivery = new EmailDelivery();
+            delivery.setRecipientId(user.getId());
+            delivery.setSourceEventId(event.getId());
+            delivery.setRecipientEmail(user.getEmail());
+            delivery.setStatus(EmailDelivery.Status.SENT);
+            delivery.setAttempts(1);
+            emailDeliveryRepository.save(delivery);
+        }
+        new EmailDigestService(digestEntryRepository, userRepository, emailService, new EmailDigestProperties())
+                .enqueue(post, ids(digest.subList(0, 200)));
+
+        service.sendNewPostEmails(event);
+
+        assertThat(emailed).containsExactlyElementsOf(ids(immediate.subList(300, 503)));
+        assertThat(digestEntryRepository.findRecipientIdsByPostId(post.getId(), ids(digest)))
+                .containsExactlyInAnyOrderElementsOf(ids(digest));
+        assertThat(digestEntryRepository.count()).isEqualTo(digest.size());
+    }
+
+    @Test
+    void notifiesMentionedUsersIgnoringCase() {
+        User bob = user("bob");
+        User carol = user("Carol");
+        User dave = user("dave");
+        dave.setEnabled(false);
+        userRepository.save(dave);
+        Post post = post(Post.PostType.PUBLIC, "Thanks @Bob and @CAROL, @bob again. Also @alice @dave @nobody");
+
+        service.createNewMentionNotification(mentionEvent(post));
+
+        assertThat(recipients(post)).containsExactlyInAnyOrder(bob.getId(), carol.getId());
+    }
+
+    @Test
+    void redeliveryDoesNotNotifyTwice() {
+        User bob = user("bob");
+        Post post = post(Post.PostType.PUBLIC, "Hello @bob");
+
+        service.createNewMentionNotification(mentionEvent(post));
+        service.createNewMentionNotification(mentionEvent(post));
+
+        assertThat(recipients(post)).containsExactly(bob.getId());
+    }
+
+    @Test
+    void skipsPostsTheMentionedUserCannotView() {
+        user("bob");
+        Post privatePost = post(Post.PostType.PRIVATE, "Just for me, not @bob");
+        Post draft = post(Post.PostType.DRAFT, "Draft for @bob");
+
+        service.createNewMentionNotification(mentionEvent(privatePost));
+        service.createNewMentionNotification(mentionEvent(draft));
+
+        assertThat(recipients(privatePost)).isEmpty();
+        assertThat(recipients(draft)).isEmpty();
+    }
+
+    @Test
+    void mentionsAfterManyHashtagsStillNotify() {
+        User bob = user("bob");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            content.append("#tag").append(i).append(' ');
+        }
+        Post post = post(Post.PostType.PUBLIC, content + "cc @bob");
+
+        service.createNewMentionNotification(mentionEvent(post));
+
+        assertThat(recipients(post)).containsExactly(bob.getId());
+    }
+
+    private List<User> followers(int count, User.EmailFrequency frequency) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String username = frequency.name().toLowerCase(Locale.ROOT) + userNumbers.incrementAndGet();
+            users.add(User.builder()
+                    .username(username)
+                    .email(username + "@example.com")
+                    .password("secret")
+                    .emailFrequency(frequency)
+                    .build());
+        }
+        users = userRepository.saveAll(users);
+        List<Follow> follows = new ArrayList<>();
+        for (User user : users) {
+            Follow follow = new Follow();
+            follow.setFollower(user);
+            follow.setFollowing(alice);
+            follows.add(follow);
+        }
+        followRepository.saveAll(follows);
+        return users;
+    }
+
+    private List<Long> newPostRecipients(Post post) {
+        return notificationRepository.findAll().stream()
+                .filter(notification -> notification.getType() == Notification.NotificationType.NEW_POST)
+                .filter(notification -> notification.getPost().getId().equals(post.getId()))
+                .map(notification -> notification.getUser().getId())
+                .toList();
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+
+    private List<Long> recipients(Post post) {
+        return notificationRepository.findAll().stream()
+                .filter(notification -> notification.getType() == Notification.NotificationType.NEW_MENTION)
+                .filter(notification -> notification.getPost().getId().equals(post.getId()))
+                .map(notification -> notification.getUser().getId())
+                .toList();
+    }
+
+    private OutboxEvent mentionEvent(Post post) {
+        return event(OutboxEvent.EventType.NEW_MENTION, post);
+    }
+
+    private OutboxEvent event(OutboxEvent.EventType type, Post post) {
+        OutboxEvent event = new OutboxEvent();
+        event.setId(eventIds.incrementAndGet());
+        event.setType(type);
+        event.setActorId(post.getAuthor().getId());
+        event.setPostId(post.getId());
+        return event;
+    }
+
+    private Post post(Post.PostType type, String content) {
+        Post post = postRepository.save(Post.builder().title("Post").content(content).type(type)
+                .author(alice).build());
+        postTagService.index(post);
+        return post;
+    }
+
+    private User user(String username) {
+        return userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .build());
+    }
+}
@@ -0,0 +1,91 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.PostgresDataJpaTest;
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.search.PostSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@PostgresDataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Indexes are built concurrently, outside a transaction
+class PostSearchServiceTests {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private PostSearchService searchService;
+
+    @BeforeEach
+    void setUp() {
+        searchService = new PostSearchService(postRepository, new DatabasePlatform(dataSource), jdbcTemplate,
+                dataSource, new SearchProperties(), mock(PostSearchIndex.class));
+
+        User author = userRepository.save(User.builder()
+                .username("alice")
+                .email("alice@example.com")
+                .password("secret")
+                .build());
+        postRepository.save(Post.builder().title("Morning notes").content("She runs every day").author(author).build());
+        postRepository.save(Post.builder().title("Running shoes").content("A review").author(author).build());
+    }
+
+    @Test
+    void startupLeavesThePostsTableAloneAndFallsBackToLike() {
+        searchService.initializeFullText();
+
+        assertThat(columnExists()).isFalse();
+        assertThat(searchService.search("running", PageRequest.of(0, 10)))
+                .extracting(Post::getTitle)
+                .containsExactly("Running shoes");
+    }
+
+    @Test
+    void startupBuildsTheIndexOnceTheMigrationHasRun() throws IOException {
+        jdbcTemplate.execute(new ClassPathResource("db/postgres/posts-search-migration.sql")
+                .getContentAsString(StandardCharsets.UTF_8));
+
+        searchService.initializeFullText();
+
+        Integer indexes = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_indexes WHERE indexname = 'idx_posts_search_vector'", Integer.class);
+        assertThat(indexes).isEqualTo(1);
+        // Stemmed matches, title matches ranked first
+        assertThat(searchService.search("running", PageRequest.of(0, 10)))
+                .extracting(Post::getTitle)
+                .containsExactly("Running shoes", "Morning notes");
+    }
+
+    private boolean columnExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+                        "WHERE table_name = 'posts' AND column_name = 'search_vector')",
+                Boolean.class));
+    }
+}
@@ -0,0 +1,38 @@
+package com.minhtetthar.post_now.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostTagServiceTests {
+
+    @Test
+    void extractsLowercasedHashtagsAndMentions() {
+        assertThat(PostTagService.extract("#Java and @John_Doe", "more #java for @john_doe and @Ann"))
+                .containsExactly("#java", "@john_doe", "@ann");
+    }
+
+    @Test
+    void skipsEmailAddressesEntitiesAndShortNames() {
+        assertThat(PostTagService.extract("mail bob@example.com, &#38; and @ab")).isEmpty();
+    }
+
+    @Test
+    void capsHashtagsAndMentionsSeparately() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("#tag").append(i).append(' ');
+        }
+        for (int i = 0; i < 40; i++) {
+            text.append("@user").append(i).append(' ');
+        }
+
+        Set<String> tags = PostTagService.extract(text.toString());
+
+        assertThat(tags.stream().filter(tag -> tag.startsWith("#"))).hasSize(30);
+        assertThat(tags.stream().filter(PostTagService::isMention)).hasSize(30);
+        assertThat(tags).contains("#tag0", "#tag29", "@user0", "@user29").doesNotContain("#tag30", "@user30");
+    }
+}
@@ -0,0 +1,163 @@
+package com.minhtetthar.post_now.service;
+
+import com.minhtetthar.post_now.config.StorageProperties;
+import com.minhtetthar.post_now.entity.StoredObject;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.StoredObjectRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import com.minhtetthar.post_now.service.storage.ListedObject;
+import com.minhtetthar.post_now.service.storage.StorageBackend;
+import com.minhtetthar.post_now.service.storage.StorageDiskCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StorageGarbageCollectorTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final StorageBackend backend = mock(StorageBackend.class);
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final List<ListedObject> objects = new ArrayList<>();
+    private final List<String> deleted = new ArrayList<>();
+    private final Set<String> failing = new HashSet<>();
+    private final List<Integer> refCountsSeenByStorage = new ArrayList<>();
+    private final StorageProperties properties = new StorageProperties();
+    private StorageGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        when(backend.getPublicUrl()).thenReturn("http://files");
+        doAnswer(invocation -> {
+            String prefix = invocation.getArgument(0);
+            Consumer<ListedObject> consumer = invocation.getArgument(1);
+            objects.stream().filter(object -> object.getKey().startsWith(prefix)).forEach(consumer);
+            return null;
+        }).when(backend).list(anyString(), any());
+        doAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            List<String> failed = keys.stream().filter(failing::contains).toList();
+            keys.stream().filter(key -> !failing.contains(key)).forEach(deleted::add);
+            // Read in a separate transaction: only committed state is visible
+            keys.forEach(key -> storedObjectRepository.findById(key)
+                    .ifPresent(row -> refCountsSeenByStorage.add(row.getRefCount())));
+            return failed;
+        }).when(backend).delete(any());
+        executor.initialize();
+
+        properties.getCache().setDirectory(System.getProperty("java.io.tmpdir"));
+        properties.getUpload().setKeySecret("test-secret");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StorageDiskCache diskCache = new StorageDiskCache(properties, registry);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        FileStorageService fileStorageService = new FileStorageService(backend, diskCache, executor, properties,
+                storedObjectRepository, transactionTemplate, registry);
+        collector = new StorageGarbageCollector(backend, diskCache, fileStorageService, postRepository,
+                userRepository, storedObjectRepository, transactionTemplate, properties, registry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        userRepository.deleteAll();
+        storedObjectRepository.deleteAll();
+    }
+
+    @Test
+    void keepsProfileImagesOfDisabledUsers() {
+        saveUser("active", "http://files/profiles/1/a.png", true);
+        saveUser("disabled", "http://files/profiles/2/b.png", false);
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        objects.add(new ListedObject("profiles/1/a.png", 10, old));
+        objects.add(new ListedObject("profiles/1/a_avatar.jpg", 10, old));
+        objects.add(new ListedObject("profiles/2/b.png", 10, old));
+        objects.add(new ListedObject("profiles/2/b_avatar.jpg", 10, old));
+        objects.add(new ListedObject("profiles/3/orphan.png", 10, old));
+        objects.add(new ListedObject("profiles/3/orphan_avatar.jpg", 10, old));
+
+        long count = collector.collectOrphans();
+
+        assertThat(deleted).containsExactlyInAnyOrder("profiles/3/orphan.png", "profiles/3/orphan_avatar.jpg");
+        assertThat(count).isEqualTo(2);
+    }
+
+    @Test
+    void marksRowsAsDeletingBeforeStorageIsCalled() {
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        objects.add(new ListedObject("posts/1/unused.png", 10, old));
+        objects.add(new ListedObject("posts/1/legacy.png", 10, old));
+        StoredObject unused = new StoredObject();
+        unused.setObjectKey("posts/1/unused.png");
+        unused.setRefCount(1); // Uploaded, but the post was never created
+        storedObjectRepository.save(unused);
+        properties.getGc().setGracePeriod(Duration.ZERO);
+
+        long count = collector.collectOrphans();
+
+        assertThat(count).isEqualTo(2);
+        // Both committed with no references, the legacy object with a new row
+        assertThat(refCountsSeenByStorage).containsExactly(0, 0);
+        assertThat(storedObjectRepository.count()).isZero();
+    }
+
+    @Test
+    void keysStorageFailedToDeleteAreNotCounted() {
+        Instant old = Instant.now().minus(Duration.ofDays(2));
+        objects.add(new ListedObject("posts/1/a.png", 10, old));
+        objects.add(new ListedObject("posts/1/a_thumb.jpg", 10, old));
+        failing.add("posts/1/a_thumb.jpg");
+
+        long count = collector.collectOrphans();
+
+        assertThat(count).isEqualTo(1);
+        assertThat(deleted).containsExactly("posts/1/a.png");
+        assertThat(storedObjectRepository.count()).isZero();
+    }
+
+    private void saveUser(String username, String profileImage, boolean enabled) {
+        userRepository.save(User.builder()
+                .username(username)
+                .email(username + "@example.com")
+                .password("secret")
+                .profileImage(profileImage)
+                .enabled(enabled)
+                .build());
+    }
+}
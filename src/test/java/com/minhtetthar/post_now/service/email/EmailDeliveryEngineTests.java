@@ -0,0 +1,161 @@
+package com.minhtetthar.post_now.service.email;
+
+import com.minhtetthar.post_now.config.EmailDeliveryProperties;
+import com.minhtetthar.post_now.entity.EmailDelivery;
+import com.minhtetthar.post_now.exception.EmailDeliveryException;
+import com.minhtetthar.post_now.repository.EmailDeliveryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class EmailDeliveryEngineTests {
+
+    private final EmailDeliveryRepository deliveryRepository = mock(EmailDeliveryRepository.class);
+    private final EmailDeliveryProperties properties = new EmailDeliveryProperties();
+    private final FlakyTransport transport = new FlakyTransport();
+    private EmailDeliveryEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofMillis(1));
+        properties.setMaxBackoff(Duration.ofMillis(4));
+        properties.setRequestsPerSecond(1000);
+        engine = new EmailDeliveryEngine(transport, deliveryRepository, properties,
+                new SimpleMeterRegistry(), "noreply@example.com");
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    void retriesFailedBatchUntilItIsAccepted() {
+        transport.failuresBeforeSuccess = 2;
+
+        EmailDeliveryReport report = engine.deliver(emails(2));
+
+        assertThat(report.getSent()).isEqualTo(2);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getRequests()).isEqualTo(3);
+        assertThat(report.getFailedEmails()).isEmpty();
+
+        List<EmailDelivery> deliveries = recordedDeliveries();
+        assertThat(deliveries).extracting(EmailDelivery::getStatus)
+                .containsOnly(EmailDelivery.Status.SENT);
+        assertThat(deliveries).extracting(EmailDelivery::getAttempts).containsOnly(3);
+        assertThat(deliveries).extracting(EmailDelivery::getRecipientId).containsExactly(1L, 2L);
+        assertThat(deliveries).extracting(EmailDelivery::getSourceEventId).containsOnly(42L);
+        assertThat(deliveries).extracting(EmailDelivery::getProviderMessageId).containsExactly("msg-1", "msg-2");
+    }
+
+    @Test
+    void reportsAndRecordsEmailsThatRanOutOfAttempts() {
+        transport.failuresBeforeSuccess = Integer.MAX_VALUE;
+
+        List<OutgoingEmail> emails = emails(2);
+        EmailDeliveryReport report = engine.deliver(emails);
+
+        assertThat(report.getSent()).isZero();
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getRequests()).isEqualTo(3);
+        assertThat(report.getFailedEmails()).containsExactlyElementsOf(emails);
+        assertThat(transport.requests.get()).isEqualTo(3);
+
+        List<EmailDelivery> deliveries = recordedDeliveries();
+        assertThat(deliveries).extracting(EmailDelivery::getStatus)
+                .containsOnly(EmailDelivery.Status.FAILED);
+        assertThat(deliveries).extracting(EmailDelivery::getAttempts).containsOnly(3);
+        assertThat(deliveries).extracting(EmailDelivery::getError).containsOnly("provider unavailable");
+    }
+
+    @Test
+    void reportsOnlyTheBatchesThatFailed() {
+        transport.maxBatchSize = 2;
+        transport.failingRecipient = 3L;
+
+        EmailDeliveryReport report = engine.deliver(emails(5));
+
+        assertThat(report.getSent()).isEqualTo(3);
+        assertThat(report.getFailed()).isEqualTo(2);
+        assertThat(report.getFailedEmails()).extracting(OutgoingEmail::getRecipientId).containsExactly(3L, 4L);
+    }
+
+    @Test
+    void skipsRecordingWhenDisabled() {
+        properties.setRecordOutcomes(false);
+
+        engine.deliver(emails(1));
+
+        verify(deliveryRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void backoffDoublesWithJitterUpToTheMaximum() {
+        properties.setInitialBackoff(Duration.ofMillis(100));
+        properties.setMaxBackoff(Duration.ofSeconds(1));
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(engine.backoff(1).toMillis()).isBetween(50L, 100L);
+            assertThat(engine.backoff(3).toMillis()).isBetween(200L, 400L);
+            assertThat(engine.backoff(10).toMillis()).isBetween(500L, 1000L);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EmailDelivery> recordedDeliveries() {
+        ArgumentCaptor<List<EmailDelivery>> captor = ArgumentCaptor.forClass(List.class);
+        verify(deliveryRepository).saveAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static List<OutgoingEmail> emails(int count) {
+        List<OutgoingEmail> emails = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            emails.add(OutgoingEmail.builder()
+                    .recipientId(id)
+                    .sourceEventId(42L)
+                    .to("user" + id + "@example.com")
+                    .subject("Hello")
+                    .html("<p>Hello</p>")
+                    .build());
+        }
+        return emails;
+    }
+
+    private static class FlakyTransport implements EmailTransport {
+
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile int failuresBeforeSuccess;
+        private volatile int maxBatchSize = 100;
+        private volatile Long failingRecipient;
+
+        @Override
+        public int maxBatchSize() {
+            return maxBatchSize;
+        }
+
+        @Override
+        public List<String> sendBatch(String from, List<OutgoingEmail> emails) {
+            if (requests.incrementAndGet() <= failuresBeforeSuccess
+                    || emails.stream().anyMatch(email -> email.getRecipientId().equals(failingRecipient))) {
+                throw new EmailDeliveryException("provider unavailable");
+            }
+            return emails.stream().map(email -> "msg-" + email.getRecipientId()).toList();
+        }
+    }
+}
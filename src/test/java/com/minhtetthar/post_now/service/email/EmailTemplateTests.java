@@ -0,0 +1,41 @@
+package com.minhtetthar.post_now.service.email;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailTemplateTests {
+
+    private final EmailTemplate template = EmailTemplate.parse("test",
+            "<p>Hi {{name}},</p><h1>{{ title }}</h1>{{{body}}}");
+
+    @Test
+    void rendersEscapedAndRawSlots() {
+        String html = template.render(Map.of("name", "<bob>", "title", "Tom & Jerry", "body", "<b>hi</b>"));
+
+        assertThat(html).isEqualTo("<p>Hi &lt;bob&gt;,</p><h1>Tom &amp; Jerry</h1><b>hi</b>");
+    }
+
+    @Test
+    void bindLeavesOnlyOpenSlots() {
+        EmailTemplate bound = template.bind(Map.of("title", "\"Quoted\"", "body", "<i>x</i>"));
+
+        StringBuilder buffer = new StringBuilder();
+        bound.render(Map.of("name", "alice"), buffer);
+
+        assertThat(buffer.toString()).isEqualTo("<p>Hi alice,</p><h1>&quot;Quoted&quot;</h1><i>x</i>");
+        assertThat(bound.getStaticLength()).isEqualTo("<p>Hi ,</p><h1>&quot;Quoted&quot;</h1><i>x</i>".length());
+    }
+
+    @Test
+    void rejectsMissingValuesAndUnclosedSlots() {
+        assertThatThrownBy(() -> template.render(Map.of("name", "alice")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("title");
+        assertThatThrownBy(() -> EmailTemplate.parse("broken", "Hi {{name"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,250 @@
+package com.minhtetthar.post_now.service.graph;
+
+import com.minhtetthar.post_now.config.FollowGraphProperties;
+import com.minhtetthar.post_now.dto.follow.FollowEdge;
+import com.minhtetthar.post_now.entity.FollowChange;
+import com.minhtetthar.post_now.event.FollowChangedEvent;
+import com.minhtetthar.post_now.repository.FollowChangeRepository;
+import com.minhtetthar.post_now.repository.FollowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FollowGraphTests {
+
+    private final FollowRepository followRepository = mock(FollowRepository.class);
+    private final FollowChangeRepository followChangeRepository = mock(FollowChangeRepository.class);
+    private final FollowGraphProperties properties = new FollowGraphProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<FollowEdge> follows = new ArrayList<>();
+    private final List<FollowChange> changes = new ArrayList<>();
+    private final LocalDateTime now = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private FollowGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        properties.setLoadBatchSize(2); // Several pages per load
+        when(followRepository.findEdgesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return follows.stream()
+                    .filter(edge -> edge.getId() > afterId)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        when(followChangeRepository.findChangedAfter(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> changesAfter(invocation.getArgument(0), invocation.getArgument(1),
+                        invocation.getArgument(2)));
+        when(followChangeRepository.findLastChangedAt()).thenAnswer(invocation -> changes.stream()
+                .map(FollowChange::getChangedAt)
+                .max(Comparator.naturalOrder()));
+        graph = new FollowGraph(followRepository, followChangeRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void loadsEveryPageInBothDirections() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(2, 3);
+        follow(4, 3);
+        follow(3, 1);
+
+        assertThat(graph.isReady()).isFalse();
+        graph.load();
+
+        assertThat(graph.isReady()).isTrue();
+        assertThat(graph.isFollowing(1, 2)).isTrue();
+        assertThat(graph.isFollowing(2, 1)).isFalse();
+        assertThat(graph.following(1)).containsExactly(2, 3);
+        assertThat(graph.followers(3)).containsExactly(1, 2, 4);
+        assertThat(graph.followerCount(3)).isEqualTo(3);
+        assertThat(graph.followingCount(4)).isEqualTo(1);
+        assertThat(graph.followerCount(99)).isZero();
+        assertThat(meterRegistry.get("follow.graph.edges").gauge().value()).isEqualTo(5);
+    }
+
+    @Test
+    void followAndUnfollowEventsUpdateChecksAndCounts() {
+        follow(1, 2);
+        graph.load();
+
+        graph.onFollowChanged(FollowChangedEvent.followed(3L, 2L));
+        graph.onFollowChanged(FollowChangedEvent.followed(1L, 3L));
+        assertThat(graph.isFollowing(3, 2)).isTrue();
+        assertThat(graph.followers(2)).containsExactly(1, 3);
+        assertThat(graph.followingCount(1)).isEqualTo(2);
+
+        graph.onFollowChanged(FollowChangedEvent.unfollowed(1L, 2L));
+        assertThat(graph.isFollowing(1, 2)).isFalse();
+        assertThat(graph.followers(2)).containsExactly(3);
+        assertThat(graph.following(1)).containsExactly(3);
+        assertThat(meterRegistry.get("follow.graph.edges").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void repeatedEventsDoNotChangeCounts() {
+        follow(1, 2);
+        graph.load();
+
+        graph.onFollowChanged(FollowChangedEvent.followed(1L, 2L));
+        graph.onFollowChanged(FollowChangedEvent.unfollowed(2L, 1L));
+        graph.onFollowChanged(FollowChangedEvent.unfollowed(1L, 2L));
+        graph.onFollowChanged(FollowChangedEvent.unfollowed(1L, 2L));
+
+        assertThat(graph.followerCount(2)).isZero();
+        assertThat(graph.followingCount(1)).isZero();
+        assertThat(meterRegistry.get("follow.graph.edges").gauge().value()).isZero();
+    }
+
+    @Test
+    void reloadPicksUpFollowsMadeElsewhere() {
+        follow(1, 2);
+        graph.load();
+
+        // Written by another instance: no event reaches this graph
+        follows.clear();
+        follow(2, 1);
+        graph.load();
+
+        assertThat(graph.isFollowing(1, 2)).isFalse();
+        assertThat(graph.isFollowing(2, 1)).isTrue();
+        assertThat(graph.followerCount(1)).isEqualTo(1);
+    }
+
+    @Test
+    void changesDuringLoadAreReplayedOntoTheNewGraph() {
+        follow(1, 2);
+        follow(1, 3);
+        follow(1, 4);
+        graph.load();
+
+        when(followRepository.findEdgesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            if (afterId == 0) {
+                // Committed after the load read these rows
+                graph.onFollowChanged(FollowChangedEvent.followed(5L, 1L));
+                graph.onFollowChanged(FollowChangedEvent.unfollowed(1L, 2L));
+            }
+            return follows.stream()
+                    .filter(edge -> edge.getId() > afterId)
+                    .limit(((Pageable) invocation.getArgument(1)).getPageSize())
+                    .toList();
+        });
+        graph.load();
+
+        assertThat(graph.isFollowing(5, 1)).isTrue();
+        assertThat(graph.isFollowing(1, 2)).isFalse();
+        assertThat(graph.following(1)).containsExactly(3, 4);
+        assertThat(graph.followers(1)).containsExactly(5);
+    }
+
+    @Test
+    void failedLoadKeepsThePreviousGraph() {
+        follow(1, 2);
+        graph.load();
+
+        when(followRepository.findEdgesAfter(anyLong(), any(Pageable.class)))
+                .thenThrow(new IllegalStateException("Connection refused"));
+        graph.load();
+
+        assertThat(graph.isReady()).isTrue();
+        assertThat(graph.isFollowing(1, 2)).isTrue();
+        // Not loading anymore, so later events are not queued for replay
+        graph.onFollowChanged(FollowChangedEvent.followed(2L, 1L));
+        assertThat(graph.isFollowing(2, 1)).isTrue();
+    }
+
+    @Test
+    void catchUpAppliesChangesMadeElsewhere() {
+        follow(1, 2);
+        logChange(1, 2, true, now);
+        graph.load();
+
+        // Written by another instance: no event reaches this graph
+        logChange(2, 1, true, now.plusSeconds(1));
+        logChange(3, 1, true, now.plusSeconds(2));
+        logChange(1, 2, false, now.plusSeconds(3));
+        graph.catchUp();
+
+        assertThat(graph.isFollowing(1, 2)).isFalse();
+        assertThat(graph.followers(1)).containsExactly(2, 3);
+        assertThat(graph.followingCount(1)).isZero();
+        assertThat(meterRegistry.get("follow.graph.edges").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void catchUpRereadsTheOverlapForLateCommits() {
+        graph.load();
+        logChange(1, 2, true, now);
+        graph.catchUp();
+
+        // Committed after the last catch-up, stamped before the newest change it saw
+        logChange(3, 2, true, now.minusSeconds(30));
+        logChange(4, 2, true, now.minusMinutes(5)); // Past sync-overlap: left to the next reload
+        graph.catchUp();
+
+        assertThat(graph.followers(2)).containsExactly(1, 3);
+    }
+
+    @Test
+    void catchUpAppliesOnlyTheLatestChangeOfEachPair() {
+        graph.load();
+        logChange(1, 2, true, now);
+        logChange(1, 2, false, now); // Same timestamp, later id
+        logChange(2, 1, false, now.plusSeconds(1));
+        logChange(2, 1, true, now); // Later id despite an earlier clock
+        graph.catchUp();
+
+        assertThat(graph.isFollowing(1, 2)).isFalse();
+        assertThat(graph.isFollowing(2, 1)).isTrue();
+    }
+
+    @Test
+    void localChangesDuringCatchUpAreNotUndone() {
+        follow(1, 2);
+        graph.load();
+        logChange(1, 2, true, now);
+
+        when(followChangeRepository.findChangedAfter(any(LocalDateTime.class), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> {
+                    List<FollowChange> read = changesAfter(invocation.getArgument(0), invocation.getArgument(1),
+                            invocation.getArgument(2));
+                    // Committed after the catch-up read the log
+                    graph.onFollowChanged(FollowChangedEvent.unfollowed(1L, 2L));
+                    return read;
+                });
+        graph.catchUp();
+
+        assertThat(graph.isFollowing(1, 2)).isFalse();
+        assertThat(graph.followerCount(2)).isZero();
+    }
+
+    private List<FollowChange> changesAfter(LocalDateTime since, long afterId, Pageable page) {
+        return changes.stream()
+                .filter(change -> change.getChangedAt().isAfter(since)
+                        || (change.getChangedAt().isEqual(since) && change.getId() > afterId))
+                .sorted(Comparator.comparing(FollowChange::getChangedAt).thenComparing(FollowChange::getId))
+                .limit(page.getPageSize())
+                .toList();
+    }
+
+    private void logChange(long followerId, long followingId, boolean following, LocalDateTime changedAt) {
+        changes.add(new FollowChange((long) changes.size() + 1, followerId, followingId, following, changedAt));
+    }
+
+    private void follow(long followerId, long followingId) {
+        follows.add(new FollowEdge((long) follows.size() + 1, followerId, followingId));
+    }
+}
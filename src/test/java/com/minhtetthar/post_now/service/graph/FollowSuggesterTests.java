@@ -0,0 +1,101 @@
+package com.minhtetthar.post_now.service.graph;
+
+import com.minhtetthar.post_now.config.FollowGraphProperties;
+import com.minhtetthar.post_now.config.FollowSuggestionProperties;
+import com.minhtetthar.post_now.dto.follow.FollowEdge;
+import com.minhtetthar.post_now.repository.FollowChangeRepository;
+import com.minhtetthar.post_now.repository.FollowRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FollowSuggesterTests {
+
+    private final FollowSuggestionProperties properties = new FollowSuggestionProperties();
+    private final List<FollowEdge> follows = new ArrayList<>();
+    private FollowGraph graph;
+    private FollowSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        // User 1 follows 2, 3 and 4
+        follow(1, 2, 3, 4);
+        follow(2, 5, 6, 7, 3);
+        follow(3, 5, 6, 10);
+        follow(4, 5, 1, 8);
+        follow(9, 8);
+
+        FollowRepository followRepository = mock(FollowRepository.class);
+        when(followRepository.findEdgesAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            return follows.stream().filter(edge -> edge.getId() > afterId).toList();
+        });
+        graph = new FollowGraph(followRepository, mock(FollowChangeRepository.class), new FollowGraphProperties(), new SimpleMeterRegistry());
+        graph.load();
+        suggester = new FollowSuggester(graph, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        suggester.shutdown();
+    }
+
+    @Test
+    void ranksByMutualsThenFollowersThenId() {
+        FollowSuggester.Ranking ranking = suggester.suggest(1, 10);
+
+        // 8 and 7 and 10 have one mutual each; 8 has two followers, 7 and 10 one
+        assertThat(ranking.ids()).containsExactly(5, 6, 8, 7, 10);
+        assertThat(ranking.mutuals()).containsExactly(3, 2, 1, 1, 1);
+    }
+
+    @Test
+    void leavesOutTheUserAndAccountsAlreadyFollowed() {
+        assertThat(suggester.suggest(1, 10).ids()).doesNotContain(1, 2, 3, 4);
+        assertThat(suggester.suggest(9, 10).ids()).isEmpty(); // 8 follows no one
+        assertThat(suggester.suggest(42, 10).ids()).isEmpty();
+    }
+
+    @Test
+    void keepsTheBestUpToDepth() {
+        FollowSuggester.Ranking ranking = suggester.suggest(1, 2);
+
+        assertThat(ranking.ids()).containsExactly(5, 6);
+        assertThat(suggester.suggest(1, 0).ids()).isEmpty();
+    }
+
+    @Test
+    void parallelCountsMatchSequentialOnes() {
+        properties.setParallelThreshold(0);
+        FollowSuggester parallel = new FollowSuggester(graph, properties);
+        try {
+            assertThat(parallel.suggest(1, 10)).usingRecursiveComparison().isEqualTo(suggester.suggest(1, 10));
+        } finally {
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    void mutualCountIsExact() {
+        assertThat(suggester.mutualCount(1, 5)).isEqualTo(3);
+        assertThat(suggester.mutualCount(1, 8)).isEqualTo(1);
+        assertThat(suggester.mutualCount(1, 9)).isZero();
+    }
+
+    private void follow(long followerId, long... followingIds) {
+        for (long followingId : followingIds) {
+            follows.add(new FollowEdge((long) follows.size() + 1, followerId, followingId));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.minhtetthar.post_now.service.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageResizerTests {
+
+    @Test
+    void scaleToWidthKeepsAspectRatio() {
+        BufferedImage scaled = ImageResizer.scaleToWidth(image(1600, 900, BufferedImage.TYPE_INT_RGB), 400);
+
+        assertThat(scaled.getWidth()).isEqualTo(400);
+        assertThat(scaled.getHeight()).isEqualTo(225);
+    }
+
+    @Test
+    void scaleToWidthNeverUpscales() {
+        BufferedImage source = image(300, 200, BufferedImage.TYPE_INT_RGB);
+
+        assertThat(ImageResizer.scaleToWidth(source, 300)).isSameAs(source);
+        assertThat(ImageResizer.scaleToWidth(source, 1200)).isSameAs(source);
+    }
+
+    @Test
+    void squareThumbnailCropsTheCenterAndNeverUpscales() {
+        BufferedImage source = image(300, 100, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(100, 50, Color.RED.getRGB());
+
+        BufferedImage small = ImageResizer.squareThumbnail(source, 200);
+        assertThat(small.getWidth()).isEqualTo(100);
+        assertThat(small.getHeight()).isEqualTo(100);
+        assertThat(small.getRGB(0, 50)).isEqualTo(Color.RED.getRGB());
+
+        BufferedImage scaled = ImageResizer.squareThumbnail(image(800, 600, BufferedImage.TYPE_INT_RGB), 64);
+        assertThat(scaled.getWidth()).isEqualTo(64);
+        assertThat(scaled.getHeight()).isEqualTo(64);
+    }
+
+    @Test
+    void scalingKeepsTransparency() {
+        BufferedImage scaled = ImageResizer.scaleToWidth(image(800, 800, BufferedImage.TYPE_INT_ARGB), 100);
+
+        assertThat(scaled.getColorModel().hasAlpha()).isTrue();
+    }
+
+    @Test
+    void writesPngForTransparentImagesAndJpegOtherwise() throws IOException {
+        BufferedImage transparent = image(20, 10, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage opaque = image(20, 10, BufferedImage.TYPE_INT_RGB);
+
+        assertThat(ImageResizer.outputFormat(transparent)).isEqualTo("png");
+        assertThat(ImageResizer.write(transparent, 0.8f)).startsWith(0x89, 'P', 'N', 'G');
+        assertThat(ImageResizer.outputFormat(opaque)).isEqualTo("jpg");
+        assertThat(ImageResizer.write(opaque, 0.8f)).startsWith(0xFF, 0xD8);
+    }
+
+    @Test
+    void jpegFlattensTransparencyOntoWhite() throws IOException {
+        BufferedImage transparent = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(ImageResizer.writeJpeg(transparent, 0.9f)));
+
+        Color color = new Color(decoded.getRGB(8, 8));
+        assertThat(color.getRed()).isGreaterThan(245);
+        assertThat(color.getGreen()).isGreaterThan(245);
+        assertThat(color.getBlue()).isGreaterThan(245);
+    }
+
+    @Test
+    void readRefusesImagesAboveThePixelLimit() throws IOException {
+        byte[] png = ImageResizer.writePng(image(100, 100, BufferedImage.TYPE_INT_RGB));
+
+        assertThat(ImageResizer.read(new ByteArrayInputStream(png), 10_000).getWidth()).isEqualTo(100);
+        assertThatThrownBy(() -> ImageResizer.read(new ByteArrayInputStream(png), 9_999))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("limit");
+        assertThat(ImageResizer.read(new ByteArrayInputStream(new byte[]{1, 2, 3}), 10_000)).isNull();
+    }
+
+    private static BufferedImage image(int width, int height, int type) {
+        return new BufferedImage(width, height, type);
+    }
+}
@@ -0,0 +1,129 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.entity.Post;
+import com.minhtetthar.post_now.entity.User;
+import com.minhtetthar.post_now.repository.PostRepository;
+import com.minhtetthar.post_now.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Posts are saved straight through the repository, as another instance
+ * would: no PostChangedEvent reaches the index.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostSearchIndexTests {
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path directory;
+
+    private final SearchProperties properties = new SearchProperties();
+    private PostSearchIndex index;
+    private User author;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties.getPosts().getIndex().setDirectory(directory.toString());
+        author = userRepository.save(User.builder()
+                .username("alice")
+                .email("alice@example.com")
+                .password("secret")
+                .build());
+        index = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        index.close();
+        postRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void syncPicksUpPostsChangedElsewhere() throws IOException {
+        Post post = postRepository.save(Post.builder().title("Sourdough starter").content("Feed it daily")
+                .author(author).build());
+        sync();
+        assertThat(search("sourdough")).containsExactly(post.getId());
+
+        post.setTitle("Rye starter");
+        post = postRepository.save(post);
+        sync();
+        assertThat(search("sourdough")).isEmpty();
+        assertThat(search("rye")).containsExactly(post.getId());
+
+        post.setActive(false);
+        postRepository.save(post);
+        sync();
+        assertThat(search("rye")).isEmpty();
+    }
+
+    @Test
+    void restartCatchesUpWithChangesMadeWhileClosed() throws IOException {
+        Post post = postRepository.save(Post.builder().title("Sourdough starter").content("Feed it daily")
+                .author(author).build());
+        sync();
+        index.close();
+
+        // Same number of active posts, so a count check alone would miss it
+        post.setTitle("Rye starter");
+        postRepository.save(post);
+        index = open();
+
+        assertThat(search("sourdough")).isEmpty();
+        assertThat(search("rye")).containsExactly(post.getId());
+    }
+
+    @Test
+    void openRebuildsWhenCatchingUpMissesPosts() throws IOException {
+        index.close();
+        Post post = postRepository.save(Post.builder().title("Sourdough starter").content("Feed it daily")
+                .author(author).build());
+        // Rows written before changed_at existed are only noticed by the count check
+        jdbcTemplate.update("UPDATE posts SET changed_at = NULL");
+
+        index = open();
+
+        assertThat(search("sourdough")).containsExactly(post.getId());
+    }
+
+    private PostSearchIndex open() throws IOException {
+        PostSearchIndex opened = new PostSearchIndex(postRepository, properties);
+        opened.open();
+        return opened;
+    }
+
+    private void sync() throws IOException {
+        index.sync();
+        index.refresh();
+    }
+
+    private List<Long> search(String text) throws IOException {
+        index.refresh();
+        return index.search(text, 0, 10).postIds();
+    }
+}
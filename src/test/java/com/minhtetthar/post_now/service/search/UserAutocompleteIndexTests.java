@@ -0,0 +1,139 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.dto.user.UserAutocompleteDto;
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
+import com.minhtetthar.post_now.event.UserChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserAutocompleteIndexTests {
+
+    private static final String[] FIRST_NAMES = {"john", "joan", "jonas", "jordan", "maria", "mario", "sam", "sara"};
+    private static final String[] LAST_NAMES = {"smith", "smythe", "stone", "jones", "miller", "mills", "young"};
+
+    @Test
+    void ranksPrefixMatchesByFollowerCount() {
+        UserAutocompleteIndex index = build(256, List.of(
+                new UserIndexRow(1L, "alice", "Alice", "Walker", 5),
+                new UserIndexRow(2L, "alex", "Alex", "Stone", 50),
+                new UserIndexRow(3L, "bwalker", "Albert", "Walker", 1),
+                new UserIndexRow(4L, "bob", "Bob", "Alvarez", 100),
+                new UserIndexRow(5L, "carol", "Carol", "Young", 500)));
+
+        assertThat(usernames(index.suggest("al", 10))).containsExactly("bob", "alex", "alice", "bwalker");
+        assertThat(usernames(index.suggest("AL", 2))).containsExactly("bob", "alex");
+        assertThat(usernames(index.suggest("al walk", 10))).containsExactly("alice", "bwalker");
+        assertThat(usernames(index.suggest("walker al", 10))).containsExactly("alice", "bwalker");
+        assertThat(usernames(index.suggest("zed", 10))).isEmpty();
+        assertThat(index.suggest("al", 10).get(0).getFollowerCount()).isEqualTo(100);
+    }
+
+    @Test
+    void precomputedPrefixesMatchAFullScan() {
+        List<UserIndexRow> rows = syntheticUsers(2_000, new Random(7));
+        // Every prefix above 4 terms is served from the precomputed top users
+        UserAutocompleteIndex precomputed = build(4, rows);
+        UserAutocompleteIndex scanned = build(Integer.MAX_VALUE, rows);
+
+        for (String query : List.of("j", "jo", "john", "s", "sm", "m", "mari", "john s", "john smi", "sara y")) {
+            List<UserAutocompleteDto> expected = bruteForce(rows, query, 10);
+            assertThat(precomputed.suggest(query, 10)).as(query).isEqualTo(expected);
+            assertThat(scanned.suggest(query, 10)).as(query).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void pendingChangesOverrideTheSnapshot() {
+        UserAutocompleteIndex index = build(256, List.of(
+                new UserIndexRow(1L, "alice", "Alice", "Walker", 5),
+                new UserIndexRow(2L, "alex", "Alex", "Stone", 50)));
+
+        index.onUserChanged(new UserChangedEvent(2L, "zoe", "Zoe", "Stone", true));
+        index.onUserChanged(new UserChangedEvent(3L, "alfred", "Alfred", "Hall", true));
+        index.onUserChanged(new UserChangedEvent(1L, "alice", "Alice", "Walker", false));
+
+        assertThat(usernames(index.suggest("al", 10))).containsExactly("alfred");
+        List<UserAutocompleteDto> renamed = index.suggest("zo", 10);
+        assertThat(usernames(renamed)).containsExactly("zoe");
+        assertThat(renamed.get(0).getFollowerCount()).isEqualTo(50);
+    }
+
+    private static List<UserIndexRow> syntheticUsers(int count, Random random) {
+        // Distinct follower counts, so the expected order has no ties
+        List<Long> followers = new ArrayList<>();
+        for (long i = 0; i < count; i++) {
+            followers.add(i);
+        }
+        Collections.shuffle(followers, random);
+        List<UserIndexRow> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            rows.add(new UserIndexRow((long) i + 1, first + "_" + last + i, capitalize(first), capitalize(last),
+                    followers.get(i)));
+        }
+        return rows;
+    }
+
+    private static List<UserAutocompleteDto> bruteForce(List<UserIndexRow> rows, String query, int limit) {
+        String[] words = query.toLowerCase(Locale.ROOT).split(" ");
+        return rows.stream()
+                .filter(row -> {
+                    for (String word : words) {
+                        if (!row.getUsername().toLowerCase(Locale.ROOT).startsWith(word)
+                                && !row.getFirstName().toLowerCase(Locale.ROOT).startsWith(word)
+                                && !row.getLastName().toLowerCase(Locale.ROOT).startsWith(word)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                })
+                .sorted(Comparator.comparingLong(UserIndexRow::getFollowerCount).reversed())
+                .limit(limit)
+                .map(row -> new UserAutocompleteDto(row.getId(), row.getUsername(), row.getFirstName(),
+                        row.getLastName(), row.getFollowerCount()))
+                .toList();
+    }
+
+    private static UserAutocompleteIndex build(int scanLimit, List<UserIndexRow> rows) {
+        SearchProperties properties = new SearchProperties();
+        properties.getAutocomplete().setScanLimit(scanLimit);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findIndexRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return rows.stream()
+                    .filter(row -> row.getId() > afterId)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        UserAutocompleteIndex index = new UserAutocompleteIndex(userRepository, properties, new SimpleMeterRegistry());
+        index.rebuild();
+        assertThat(index.isReady()).isTrue();
+        return index;
+    }
+
+    private static List<String> usernames(List<UserAutocompleteDto> users) {
+        return users.stream().map(UserAutocompleteDto::getUsername).toList();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+}
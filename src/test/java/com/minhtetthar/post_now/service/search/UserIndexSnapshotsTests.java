@@ -0,0 +1,76 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
+import com.minhtetthar.post_now.event.UserChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserIndexSnapshotsTests {
+
+    private final List<UserIndexRow> rows = new ArrayList<>();
+    private final List<Runnable> duringLoad = new ArrayList<>();
+    private UserIndexSnapshots<List<Long>> snapshots;
+
+    @BeforeEach
+    void setUp() {
+        for (long id = 1; id <= 5; id++) {
+            rows.add(new UserIndexRow(id, "user" + id, "User", "Number" + id, id));
+        }
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findIndexRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            duringLoad.forEach(Runnable::run);
+            duringLoad.clear();
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return rows.stream().filter(row -> row.getId() > afterId).limit(page.getPageSize()).toList();
+        });
+        snapshots = new UserIndexSnapshots<>("test", userRepository,
+                loaded -> loaded.stream().map(UserIndexRow::getId).toList(), () -> 2, () -> 100);
+    }
+
+    @Test
+    void loadsEveryPage() {
+        assertThat(snapshots.snapshot()).isNull();
+
+        assertThat(snapshots.rebuild()).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(snapshots.snapshot()).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void rebuildDropsOnlyChangesMadeBeforeItStarted() {
+        snapshots.onUserChanged(changed(1L, "renamed"));
+        // Committed while the rebuild reads users, so it may be missing from the rows
+        duringLoad.add(() -> snapshots.onUserChanged(changed(2L, "late")));
+
+        snapshots.rebuild();
+
+        assertThat(snapshots.isChanged(1L)).isFalse();
+        assertThat(snapshots.isChanged(2L)).isTrue();
+        assertThat(snapshots.changes()).extracting(UserChangedEvent::getUsername).containsExactly("late");
+    }
+
+    @Test
+    void aLaterChangeOfTheSameUserSurvivesTheRebuild() {
+        snapshots.onUserChanged(changed(1L, "first"));
+        duringLoad.add(() -> snapshots.onUserChanged(changed(1L, "second")));
+
+        snapshots.rebuild();
+
+        assertThat(snapshots.changes()).extracting(UserChangedEvent::getUsername).containsExactly("second");
+    }
+
+    private static UserChangedEvent changed(long id, String username) {
+        return new UserChangedEvent(id, username, "User", "Number" + id, true);
+    }
+}
@@ -0,0 +1,113 @@
+package com.minhtetthar.post_now.service.search;
+
+import com.minhtetthar.post_now.config.DatabasePlatform;
+import com.minhtetthar.post_now.config.SearchProperties;
+import com.minhtetthar.post_now.dto.user.UserIndexRow;
+import com.minhtetthar.post_now.event.UserChangedEvent;
+import com.minhtetthar.post_now.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserTrigramIndexTests {
+
+    // "smith" has 6 trigrams; the others share 5, 3 and 2 of them
+    private static final List<UserIndexRow> USERS = List.of(
+            new UserIndexRow(1L, "jsmith", "John", "Smith", 10),
+            new UserIndexRow(2L, "asmith", "Anna", "Smith", 10),
+            new UserIndexRow(3L, "bsmith", "Ben", "Smith", 40),
+            new UserIndexRow(4L, "smithers", "Carl", "Smithers", 1000),
+            new UserIndexRow(5L, "dsmyth", "Dan", "Smyth", 5000),
+            new UserIndexRow(6L, "esmote", "Eve", "Smote", 9000));
+
+    @Test
+    void trigramsArePaddedPerWordLikePgTrgm() {
+        assertThat(decode(UserTrigramIndex.trigrams("smith")))
+                .containsExactly("  s", " sm", "ith", "mit", "smi", "th ");
+        assertThat(decode(UserTrigramIndex.trigrams("Al")))
+                .containsExactly("  a", " al", "al ");
+        assertThat(decode(UserTrigramIndex.trigrams("j.doe 42")))
+                .containsExactlyInAnyOrder("  j", " j ", "  d", " do", "doe", "oe ", "  4", " 42", "42 ");
+    }
+
+    @Test
+    void trigramsAreDistinctSortedAndCaseInsensitive() {
+        long[] trigrams = UserTrigramIndex.trigrams("Smith", null, "SMITH smith");
+        assertThat(trigrams).isEqualTo(UserTrigramIndex.trigrams("smith"));
+        assertThat(trigrams).isSorted();
+        assertThat(UserTrigramIndex.trigrams()).isEmpty();
+        assertThat(UserTrigramIndex.trigrams((String) null)).isEmpty();
+        assertThat(UserTrigramIndex.trigrams(" -- ")).isEmpty();
+    }
+
+    @Test
+    void matchesNeedMinSimilarityOfTheTermsTrigrams() {
+        UserTrigramIndex index = build(0.5);
+        assertThat(index.search("smith", 0, 10).userIds()).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+        // Substrings and misspellings
+        assertThat(index.search("mith", 0, 10).userIds()).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(index.search("smiht", 0, 10).userIds()).contains(1L, 2L, 3L);
+        assertThat(index.search("xyz", 0, 10).userIds()).isEmpty();
+
+        assertThat(build(0.6).search("smith", 0, 10).userIds()).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+        assertThat(build(1.0).search("smith", 0, 10).userIds()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void ranksBySharedTrigramsThenFollowersThenId() {
+        UserTrigramIndex index = build(0.5);
+
+        UserTrigramIndex.SearchHits hits = index.search("smith", 0, 10);
+        assertThat(hits.userIds()).containsExactly(3L, 1L, 2L, 4L, 5L);
+        assertThat(hits.total()).isEqualTo(5);
+
+        UserTrigramIndex.SearchHits page = index.search("smith", 1, 2);
+        assertThat(page.userIds()).containsExactly(1L, 2L);
+        assertThat(page.total()).isEqualTo(5);
+    }
+
+    @Test
+    void pendingChangesOverrideTheSnapshot() {
+        UserTrigramIndex index = build(0.5);
+        index.onUserChanged(new UserChangedEvent(3L, "bjones", "Ben", "Jones", true));
+        index.onUserChanged(new UserChangedEvent(6L, "esmith", "Eve", "Smith", true));
+        index.onUserChanged(new UserChangedEvent(5L, "dsmyth", "Dan", "Smyth", false));
+
+        // The renamed user 6 keeps the follower count from the snapshot
+        assertThat(index.search("smith", 0, 10).userIds()).containsExactly(6L, 1L, 2L, 4L);
+    }
+
+    private static UserTrigramIndex build(double minSimilarity) {
+        SearchProperties properties = new SearchProperties();
+        properties.getUsers().getIndex().setMinSimilarity(minSimilarity);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findIndexRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            Pageable page = invocation.getArgument(1);
+            return USERS.stream()
+                    .filter(row -> row.getId() > afterId)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+        UserTrigramIndex index = new UserTrigramIndex(userRepository, mock(DatabasePlatform.class), properties,
+                new SimpleMeterRegistry());
+        index.rebuild();
+        return index;
+    }
+
+    private static List<String> decode(long[] trigrams) {
+        return Arrays.stream(trigrams)
+                .mapToObj(trigram -> new String(new char[]{
+                        (char) (trigram >>> 32), (char) (trigram >>> 16 & 0xFFFF), (char) (trigram & 0xFFFF)}))
+                .toList();
+    }
+}